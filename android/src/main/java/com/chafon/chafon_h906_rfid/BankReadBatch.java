@@ -0,0 +1,153 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bir neçə tag / bank üzrə ReadData_G2 sorğuları — bir scheduler komandası içində ardıcıl
+ * icra olunur (N kanal gedişi və N bağlantı probe-u əvəzinə bir). Data buferi bütün
+ * sorğular üçün bir dəfə ayrılır; nəticələr bir siyahı kimi qaytarılır.
+ */
+final class BankReadBatch {
+
+  static final int MEM_RESERVED = 0;
+  static final int MEM_EPC = 1;
+  static final int MEM_TID = 2;
+  static final int MEM_USER = 3;
+
+  static final int MAX_WORDS = 64;
+  static final int MAX_REQUESTS = 4096;
+  static final int DEFAULT_RETRIES = 1;
+
+  static final class Request {
+    final int index;
+    final TagSelector target;
+    final byte mem;
+    final byte wordPtr;
+    final byte len;
+    final byte[] password;
+
+    Request(int index, TagSelector target, int mem, int wordPtr, int len, byte[] password) {
+      this.index = index;
+      this.target = target;
+      this.mem = (byte) mem;
+      this.wordPtr = (byte) wordPtr;
+      this.len = (byte) len;
+      this.password = password;
+    }
+  }
+
+  /** 0..3 və ya "reserved" | "epc" | "tid" | "user"; tanınmırsa -1. */
+  static int parseMem(Object v, int def) {
+    if (v == null) return def;
+    if (v instanceof Number) {
+      int m = ((Number) v).intValue();
+      return m >= MEM_RESERVED && m <= MEM_USER ? m : -1;
+    }
+    if ("reserved".equals(v)) return MEM_RESERVED;
+    if ("epc".equals(v)) return MEM_EPC;
+    if ("tid".equals(v)) return MEM_TID;
+    if ("user".equals(v)) return MEM_USER;
+    return -1;
+  }
+
+  /**
+   * {epc?|tid?|mask?, mem=1, wordPtr=2 (EPC) / 0, len=6, password?} → Request.
+   * Səhv arqumentdə IllegalArgumentException.
+   */
+  static Request parseRequest(int index, Map<?, ?> m, TagSelector target, byte[] defaultPassword) {
+    int mem = parseMem(m.get("mem"), MEM_EPC);
+    if (mem < 0) throw new IllegalArgumentException("request " + index + ": mem must be 0..3 or reserved/epc/tid/user");
+    int wordPtr = intArg(m, "wordPtr", mem == MEM_EPC ? 2 : 0);
+    if (wordPtr < 0 || wordPtr > 255) throw new IllegalArgumentException("request " + index + ": wordPtr must be 0..255");
+    int len = intArg(m, "len", 6);
+    if (len < 1 || len > MAX_WORDS) throw new IllegalArgumentException("request " + index + ": len must be 1.." + MAX_WORDS);
+    Object pwd = m.get("password");
+    byte[] password = pwd instanceof String && HexCodec.digitCount((String) pwd) == 8
+            ? HexCodec.decode((String) pwd) : defaultPassword;
+    return new Request(index, target != null ? target : TagSelector.fromMap(m), mem, wordPtr, len, password);
+  }
+
+  /**
+   * requests — hər biri öz hədəfi ilə; epcs × banks — hər EPC üçün hər bank (məs. TID + user).
+   * İkisi birlikdə verilə bilər: əvvəl requests, sonra epcs × banks.
+   */
+  static List<Request> parse(List<Map<String, Object>> requests, List<String> epcs,
+                             List<Map<String, Object>> banks, byte[] defaultPassword) {
+    List<Request> out = new ArrayList<>();
+    if (requests != null) {
+      for (Map<String, Object> m : requests) out.add(parseRequest(out.size(), m, null, defaultPassword));
+    }
+    if (epcs != null && banks != null) {
+      for (String epc : epcs) {
+        TagSelector target = TagSelector.byEpc(epc);
+        for (Map<String, Object> bank : banks) out.add(parseRequest(out.size(), bank, target, defaultPassword));
+      }
+    }
+    if (out.size() > MAX_REQUESTS) {
+      throw new IllegalArgumentException("at most " + MAX_REQUESTS + " reads per call");
+    }
+    return out;
+  }
+
+  private static int intArg(Map<?, ?> m, String key, int def) {
+    Object v = m.get(key);
+    return v instanceof Number ? ((Number) v).intValue() : def;
+  }
+
+  private final byte[] buf = new byte[MAX_WORDS * 2];
+  private final byte[] err = new byte[1];
+  private int ok = 0;
+  private int failed = 0;
+
+  /**
+   * Reader thread: bütün sorğuları ardıcıl oxu; tag xətaları retries dəfə təkrarlanır
+   * (BulkTagWriter ilə eyni qayda). Qaytarır: sorğu sırası ilə nəticələr
+   * [{index, target, mem, wordPtr, len, success, code, attempts, hex? | tagError?}].
+   */
+  List<Map<String, Object>> run(RfidReader reader, byte comAddr, List<Request> requests, int retries,
+                                BulkTagWriter.ResultListener listener) {
+    List<Map<String, Object>> out = new ArrayList<>(requests.size());
+    for (Request q : requests) {
+      TagSelector t = q.target;
+      int attempts = 0;
+      int rc;
+      do {
+        attempts++;
+        err[0] = 0;
+        rc = reader.ReadData_G2(comAddr, t.eNum, t.epc, q.mem, q.wordPtr, q.len, q.password,
+                t.maskMem, t.maskAdr, t.maskLen, t.maskData, buf, err);
+        listener.onResult(rc);
+      } while (rc != 0 && attempts <= retries && BulkTagWriter.isRetriable(rc, err[0] & 0xFF));
+
+      Map<String, Object> m = new HashMap<>();
+      m.put("index", q.index);
+      m.put("target", t.describe());
+      m.put("mem", (int) q.mem);
+      m.put("wordPtr", q.wordPtr & 0xFF);
+      m.put("len", (int) q.len);
+      m.put("success", rc == 0);
+      m.put("code", rc);
+      m.put("attempts", attempts);
+      if (rc == 0) {
+        m.put("hex", HexCodec.encode(buf, 0, q.len * 2));
+        ok++;
+      } else {
+        m.put("tagError", err[0] & 0xFF);
+        failed++;
+      }
+      out.add(m);
+    }
+    return out;
+  }
+
+  int ok() {
+    return ok;
+  }
+
+  int failed() {
+    return failed;
+  }
+}
@@ -0,0 +1,320 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Toplu tag proqramlaşdırma (re-tagging): iş siyahısı reader thread-də ardıcıl,
+ * Dart-a hər tag üçün qayıtmadan icra olunur. Hər iş — hədəf (TagSelector), bank,
+ * söz ünvanı, data və access password; WriteData_G2 və ya Lock_G2. Tag xətalarında
+ * iş yerindəcə təkrarlanır; nəticələr yığılıb progress event-ləri ilə batch halında gedir.
+ * Bütün metodlar reader thread-dən çağırılır (cancel — istənilən thread-dən).
+ */
+final class BulkTagWriter {
+
+  static final String OP_WRITE = "write";
+  static final String OP_WRITE_EPC = "writeEpc"; // PC (uzunluq) + yeni EPC, söz 1-dən
+  static final String OP_LOCK = "lock";
+
+  static final int DEFAULT_RETRIES = 2;
+  static final int DEFAULT_PROGRESS_EVERY = 32;
+  static final long PROGRESS_INTERVAL_MS = 250;
+  static final long SLICE_MS = 100;      // bir scheduler komandasının ən uzun müddəti
+  static final int MAX_WRITE_WORDS = 32;
+  static final int MAX_COMM_FAILURES = 3; // ardıcıl bu qədər iş rabitə xətası ilə bitsə — dayan
+
+  private static final int RC_NO_TAG = 0xFB;
+  private static final int RC_TAG_ERROR = 0xFC;   // errorCode tag-ın cavabıdır
+  private static final int RC_COMM_ERROR = 0x30;
+  private static final int TAG_ERR_OVERRUN = 0x03;
+  private static final int TAG_ERR_LOCKED = 0x04;
+  private static final int PC_LENGTH_MASK = 0xF8; // PC-nin yuxarı byte-ı: bit 15..11 — EPC uzunluğu
+
+  /** Hər WriteData_G2 / Lock_G2 cəhdinin rc-si (plugin link sağlamlığını yeniləyir). */
+  interface ResultListener {
+    void onResult(int rc);
+  }
+
+  static final class Job {
+    final int index;
+    final String op;
+    final TagSelector target;
+    final byte mem;
+    final byte wordPtr;
+    final byte[] data;       // lock üçün boş
+    final byte[] password;
+    final byte lockSelect;
+    final byte lockProtect;
+    final boolean verify;
+    final String newEpc;     // writeEpc
+
+    Job(int index, String op, TagSelector target, int mem, int wordPtr, byte[] data, byte[] password,
+        int lockSelect, int lockProtect, boolean verify, String newEpc) {
+      this.index = index;
+      this.op = op;
+      this.target = target;
+      this.mem = (byte) mem;
+      this.wordPtr = (byte) wordPtr;
+      this.data = data;
+      this.password = password;
+      this.lockSelect = (byte) lockSelect;
+      this.lockProtect = (byte) lockProtect;
+      this.verify = verify;
+      this.newEpc = newEpc;
+    }
+  }
+
+  /**
+   * {op='write'|'writeEpc'|'lock', epc?|tid?|mask?, mem=3, wordPtr=0, data (hex),
+   *  password='00000000', select, protect, verify} → Job. Səhv arqumentdə IllegalArgumentException.
+   */
+  static Job parseJob(int index, Map<?, ?> m, boolean verifyDefault) {
+    String op = m.get("op") instanceof String ? (String) m.get("op") : OP_WRITE;
+    TagSelector target = TagSelector.fromMap(m);
+    byte[] password = password4(m.get("password"));
+    boolean verify = m.get("verify") instanceof Boolean ? (Boolean) m.get("verify") : verifyDefault;
+
+    if (OP_LOCK.equals(op)) {
+      int select = intArg(m, "select", -1);
+      int protect = intArg(m, "protect", -1);
+      if (select < 0 || select > 4) throw new IllegalArgumentException("job " + index + ": select must be 0..4");
+      if (protect < 0 || protect > 3) throw new IllegalArgumentException("job " + index + ": protect must be 0..3");
+      return new Job(index, op, target, 0, 0, new byte[0], password, select, protect, false, null);
+    }
+
+    String hex = m.get("data") instanceof String ? (String) m.get("data") : null;
+    if (hex == null || HexCodec.digitCount(hex) == 0 || HexCodec.digitCount(hex) % 4 != 0) {
+      throw new IllegalArgumentException("job " + index + ": data must be whole words of hex");
+    }
+    byte[] data = HexCodec.decode(hex);
+    if (OP_WRITE_EPC.equals(op)) {
+      if (data.length / 2 > 31) throw new IllegalArgumentException("job " + index + ": EPC too long");
+      // PC sözü: EPC uzunluğu (söz) bit 15..11-də; UMI/XI/T/AFI (bit 10..0) yazıdan əvvəl
+      // tag-ın cari PC-sindən götürülür (mergePc)
+      byte[] pcEpc = new byte[2 + data.length];
+      pcEpc[0] = (byte) ((data.length / 2) << 3);
+      System.arraycopy(data, 0, pcEpc, 2, data.length);
+      return new Job(index, op, target, TagSelector.MEM_EPC, 1, pcEpc, password, 0, 0, verify,
+              HexCodec.encode(data));
+    }
+    if (!OP_WRITE.equals(op)) throw new IllegalArgumentException("job " + index + ": unknown op " + op);
+    if (data.length / 2 > MAX_WRITE_WORDS) {
+      throw new IllegalArgumentException("job " + index + ": at most " + MAX_WRITE_WORDS + " words per job");
+    }
+    int mem = intArg(m, "mem", 3);
+    if (mem < 0 || mem > 3) throw new IllegalArgumentException("job " + index + ": mem must be 0..3");
+    int wordPtr = intArg(m, "wordPtr", 0);
+    if (wordPtr < 0 || wordPtr > 255) throw new IllegalArgumentException("job " + index + ": wordPtr must be 0..255");
+    return new Job(index, op, target, mem, wordPtr, data, password, 0, 0, verify, null);
+  }
+
+  private static int intArg(Map<?, ?> m, String key, int def) {
+    Object v = m.get(key);
+    return v instanceof Number ? ((Number) v).intValue() : def;
+  }
+
+  private static byte[] password4(Object v) {
+    if (!(v instanceof String) || HexCodec.digitCount((String) v) != 8) return new byte[4];
+    return HexCodec.decode((String) v);
+  }
+
+  private final int id;
+  private final List<Job> jobs;
+  private final int maxRetries;
+  private final int progressEvery;
+  private final byte[] err = new byte[1];
+  private final byte[] pcBuf = new byte[2];
+  private byte[] verifyBuf = new byte[0];
+
+  private int next = 0;
+  private int ok = 0;
+  private int failed = 0;
+  private long retries = 0;
+  private int commFailures = 0;
+  private long startedAt = 0;
+  private long lastProgressAt = 0;
+  private volatile boolean cancelled = false;
+  private String abortReason = null;
+  private List<Map<String, Object>> pending = new ArrayList<>();
+
+  BulkTagWriter(int id, List<Job> jobs, int maxRetries, int progressEvery) {
+    this.id = id;
+    this.jobs = jobs;
+    this.maxRetries = Math.max(0, maxRetries);
+    this.progressEvery = Math.max(1, progressEvery);
+  }
+
+  int id() {
+    return id;
+  }
+
+  int total() {
+    return jobs.size();
+  }
+
+  void start(long now) {
+    startedAt = lastProgressAt = now;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  boolean isFinished() {
+    return cancelled || abortReason != null || next >= jobs.size();
+  }
+
+  /**
+   * İşləri ardıcıl icra et: sliceMs bitənə, progressEvery nəticə yığılana və ya siyahı
+   * bitənə qədər (reader digər komandalara da yer versin). Qaytarır: bu slice-da bitən iş sayı.
+   */
+  int runSlice(RfidReader reader, byte comAddr, long sliceMs, ResultListener listener) {
+    final long deadline = System.nanoTime() + sliceMs * 1_000_000L;
+    int n = 0;
+    while (!isFinished()) {
+      runJob(reader, comAddr, jobs.get(next++), listener);
+      n++;
+      if (pending.size() >= progressEvery || System.nanoTime() >= deadline) break;
+    }
+    return n;
+  }
+
+  private void runJob(RfidReader reader, byte comAddr, Job job, ResultListener listener) {
+    int attempts = 0;
+    int rc;
+    do {
+      if (attempts > 0) retries++;
+      attempts++;
+      err[0] = 0;
+      rc = attempt(reader, comAddr, job);
+      listener.onResult(rc);
+      if (rc == 0 && job.verify) {
+        rc = verify(reader, comAddr, job);
+        listener.onResult(rc);
+      }
+    } while (rc != 0 && attempts <= maxRetries && isRetriable(rc, err[0] & 0xFF) && !cancelled);
+
+    if (rc == 0) {
+      ok++;
+      commFailures = 0;
+    } else {
+      failed++;
+      if (rc == RC_COMM_ERROR || rc < 0) {
+        if (++commFailures >= MAX_COMM_FAILURES) abortReason = "link lost (rc=" + rc + ")";
+      } else {
+        commFailures = 0;
+      }
+    }
+    pending.add(resultMap(job, rc, err[0] & 0xFF, attempts));
+  }
+
+  private int attempt(RfidReader reader, byte comAddr, Job job) {
+    TagSelector t = job.target;
+    if (OP_LOCK.equals(job.op)) {
+      return reader.Lock_G2(comAddr, t.eNum, t.epc, job.lockSelect, job.lockProtect, job.password,
+              t.maskMem, t.maskAdr, t.maskLen, t.maskData, err);
+    }
+    if (OP_WRITE_EPC.equals(job.op)) {
+      int rc = mergePc(reader, comAddr, job);
+      if (rc != 0) return rc;
+    }
+    return reader.WriteData_G2(comAddr, (byte) (job.data.length / 2), t.eNum, t.epc, job.mem, job.wordPtr,
+            job.data, job.password, t.maskMem, t.maskAdr, t.maskLen, t.maskData, err);
+  }
+
+  /**
+   * writeEpc: tag-ın cari PC sözünü oxu və yazılacaq PC-də yalnız uzunluq sahəsini saxla —
+   * UMI/XI/T/AFI bitləri tag-da olduğu kimi qalır. Oxu alınmasa onun rc-si qaytarılır.
+   */
+  private int mergePc(RfidReader reader, byte comAddr, Job job) {
+    TagSelector t = job.target;
+    int rc = reader.ReadData_G2(comAddr, t.eNum, t.epc, TagSelector.MEM_EPC, (byte) 1, (byte) 1, job.password,
+            t.maskMem, t.maskAdr, t.maskLen, t.maskData, pcBuf, err);
+    if (rc != 0) return rc;
+    job.data[0] = (byte) ((job.data[0] & PC_LENGTH_MASK) | (pcBuf[0] & ~PC_LENGTH_MASK));
+    job.data[1] = pcBuf[1];
+    return 0;
+  }
+
+  /**
+   * Yazılanı geri oxu; fərq varsa RC_TAG_ERROR (təkrar cəhd olunur). writeEpc — yeni EPC ilə
+   * seçilir, PC-dən yalnız uzunluq sahəsi müqayisə olunur (XI kimi bitləri tag özü dəyişə bilər).
+   */
+  private int verify(RfidReader reader, byte comAddr, Job job) {
+    TagSelector t = job.newEpc != null ? TagSelector.byEpc(job.newEpc) : job.target;
+    int words = job.data.length / 2;
+    if (verifyBuf.length < job.data.length) verifyBuf = new byte[job.data.length];
+    int rc = reader.ReadData_G2(comAddr, t.eNum, t.epc, job.mem, job.wordPtr, (byte) words, job.password,
+            t.maskMem, t.maskAdr, t.maskLen, t.maskData, verifyBuf, err);
+    if (rc != 0) return rc;
+    int from = 0;
+    if (job.newEpc != null) {
+      if (((verifyBuf[0] ^ job.data[0]) & PC_LENGTH_MASK) != 0) {
+        err[0] = 0;
+        return RC_TAG_ERROR;
+      }
+      from = 2;
+    }
+    for (int i = from; i < job.data.length; i++) {
+      if (verifyBuf[i] != job.data[i]) {
+        err[0] = 0;
+        return RC_TAG_ERROR;
+      }
+    }
+    return 0;
+  }
+
+  /** Yaddaş kilidli / ünvan hüdud xaricidir — təkrar mənasızdır; qalan xətalar təkrarlanır. */
+  static boolean isRetriable(int rc, int tagErr) {
+    if (rc == RC_TAG_ERROR) return tagErr != TAG_ERR_LOCKED && tagErr != TAG_ERR_OVERRUN;
+    return rc != 0;
+  }
+
+  private static Map<String, Object> resultMap(Job job, int rc, int tagErr, int attempts) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("index", job.index);
+    m.put("op", job.op);
+    m.put("target", job.target.describe());
+    m.put("success", rc == 0);
+    m.put("code", rc);
+    m.put("attempts", attempts);
+    if (rc != 0) {
+      m.put("tagError", tagErr);
+      m.put("message", rc == RC_NO_TAG ? "no tag"
+              : rc == RC_TAG_ERROR ? (tagErr == TAG_ERR_LOCKED ? "memory locked"
+                      : tagErr == TAG_ERR_OVERRUN ? "memory overrun" : "tag error")
+              : rc == RC_COMM_ERROR ? "communication error" : "failed");
+    }
+    if (job.newEpc != null) m.put("epc", job.newEpc);
+    return m;
+  }
+
+  /** progressEvery nəticə yığılıb və ya PROGRESS_INTERVAL_MS keçib — event göndərilməlidir. */
+  boolean progressDue(long now) {
+    return pending.size() >= progressEvery || (!pending.isEmpty() && now - lastProgressAt >= PROGRESS_INTERVAL_MS);
+  }
+
+  /**
+   * {batch, total, done, ok, failed, retries, elapsedMs, finished, cancelled, error?, results: [...]} —
+   * results yalnız son event-dən bəri bitən işlərdir.
+   */
+  Map<String, Object> drainProgress(long now) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("batch", id);
+    m.put("total", jobs.size());
+    m.put("done", ok + failed);
+    m.put("ok", ok);
+    m.put("failed", failed);
+    m.put("retries", retries);
+    m.put("elapsedMs", now - startedAt);
+    m.put("finished", isFinished());
+    m.put("cancelled", cancelled);
+    if (abortReason != null) m.put("error", abortReason);
+    m.put("results", pending);
+    pending = new ArrayList<>();
+    lastProgressAt = now;
+    return m;
+  }
+}
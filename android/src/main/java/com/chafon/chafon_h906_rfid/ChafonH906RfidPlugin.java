@@ -3,22 +3,22 @@ package com.chafon.chafon_h906_rfid;
 import androidx.annotation.NonNull;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
 
-import com.rfid.trans.BaseReader;
-import com.rfid.trans.OtgUtils;
 import com.rfid.trans.ReadTag;
 import com.rfid.trans.TagCallback;
 
+import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.flutter.Log;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
@@ -31,91 +31,260 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
 
   private MethodChannel channel;
   private EventChannel eventChannel;
-  private EventChannel.EventSink tagSink;
+  private volatile EventChannel.EventSink tagSink;
 
   private Context context;
   private boolean connected = false;
-  private int currentBaud = 115200;
 
-  private final BaseReader reader = new BaseReader();
+  private final RfidReader reader;
   private static final String DEV_PORT = "/dev/ttyHSL0";
   private static final int BAUD_PRIMARY = 115200;
   private static final int BAUD_FALLBACK = 57600;
 
+  // Son uğurlu port/baud (SharedPreferences) + arxa fon reconnect-i (backoff ilə)
+  private final ConnectionManager connection;
+  private volatile boolean autoReconnect = false; // connect uğurlu olub, disconnect çağırılmayıb
+  private boolean reconnectScheduled = false;      // reader thread
+  private int commErrorStreak = 0;                 // reader thread
+  private static final int LINK_LOST_AFTER = 3;    // ardıcıl rabitə xətası → bağlantı itib
+
   private static final byte COM_ADDR = (byte) 0xFF;
+  private static final int RC_COMM_ERROR = 0x30; // SDK: serial cavab yoxdur / rabitə xətası
+  private static final byte[] ZERO_PASSWORD = new byte[4];
+
+  // Canlılıq cache-i + son parametr bloku (GetReadParameter hər komandadan əvvəl çağırılmasın)
+  private final LinkHealth linkHealth = new LinkHealth();
 
   // ===== Region seçimi =====
   // EU band — 865 ~ 868 MHz
-  private static final int REGION_BAND = 4; // EU:4, FCC:2
-  private static final int REGION_MIN  = 0;
-  private static final int REGION_MAX  = 14; // EU üçün 0..14; FCC üçün 0..62 istifadə etməlisən
 
   // Inventory idarəetməsi
   private final AtomicBoolean ivtRunning = new AtomicBoolean(false);
-  private ExecutorService ivtExec;
+  private volatile boolean ivtActive = false; // sessiya başlayıb, stopInventoryLoop hələ çağırılmayıb
+  private volatile int loopGen = 0;           // köhnə sessiyanın növbədə qalmış round-larını ayırmaq üçün
+  private volatile InventorySession session = null; // pause/resume arasında round və vəziyyət saxlanılır
+  private volatile byte loopSession;
+
+  // Round-lar arası fasilə / duty-cycle və round/s ölçmə
+  private volatile DutyCycle dutyCycle = new DutyCycle(DutyCycle.MODE_CONTINUOUS, 0, 0);
+  private long lastLoopStatsAt = 0;
+  private static final long LOOP_STATS_INTERVAL_MS = 1000;
+
+  // Canlı metriklər (getMetrics) və istəyə görə periodik {"metrics": {...}} event-i
+  private final InventoryMetrics metrics = new InventoryMetrics();
+  private volatile long metricsIntervalMs = 0; // 0 — event yoxdur
+  private long lastMetricsAt = 0;
+
+  // Hot loop üçün əvvəlcədən ayrılmış buferlər (round-lar yalnız reader thread-də işləyir)
+  private final int[] cardNumBuf = new int[1];
+  private static final byte[] MASK_ADR_EPC = new byte[]{0x00, 0x20}; // PC-dən sonra
+  private static final byte[] NO_MASK = new byte[0];
+
+  // 0 — log yoxdur, 1 — round log-ları (Log.d)
+  private volatile int debugLevel = 0;
+
+  // Round parametrləri — adaptiv rejimdə round-lar arasında dəyişir
+  private volatile byte loopQ;
+  private volatile byte loopScanTime;
+  private volatile QTuner qTuner;      // null — sabit Q
+  private volatile boolean autoScanTime;
+  private final AtomicInteger roundReads = new AtomicInteger();
+  private final AtomicInteger roundNewTags = new AtomicInteger();
+  private volatile MaskScheduler maskScheduler = new MaskScheduler(new ArrayList<>(), MaskScheduler.STRATEGY_CYCLE);
+  // Inventory_G2 Target: A (default), B və ya A/B növbələnməsi (targetMode: 'dual')
+  private volatile TargetToggler targetToggler = new TargetToggler(TargetToggler.MODE_A, 0, 0);
+
+  // Bütün BaseReader komandaları bu tək thread-dən keçir
+  private final ReaderScheduler scheduler = new ReaderScheduler("h906-reader");
 
   // Loop parametrləri (default)
   private byte defaultQ       = 4;
   private byte defaultSession = 0;
-  private byte defaultTarget  = 0;
   private byte defaultAntenna = (byte)0x80; // -128 == 0x80 auto
   private byte defaultScanTime= 10;         // SDK demo-da 10 idi
 
-  // Main thread handler — EventChannel üçün
-  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Main thread — EventChannel və MethodChannel cavabları üçün
+  private final MainExecutor mainHandler;
+
+  // Tag-lar EventSink-ə batch ilə gedir: {"tags": [ {epc, rssi, ...}, ... ]} və ya packed byte[]
+  private final TagBatcher tagBatcher;
+
+  // "map" — {"tags": [...]}; "binary" — TagEventCodec byte[] (bir batch — bir chunk)
+  private static final String ENCODING_BINARY = "binary";
+  private volatile boolean binaryEncoding = false;
 
   // TID oxu üçün flag-lar (callback içində istifadə ediləcək)
   private volatile boolean includeTidFlag = false;
   private volatile byte tidWordPtrB = 0;
   private volatile byte tidLenB     = 6;
-  private volatile String activeEpcFilter = null; // Inventory_G2 maskası kimi
+  private volatile byte[] tidPassword = ZERO_PASSWORD;
+  // EPC→TID cache; TID oxuları callback-dən yox, round-lar arasında icra olunur
+  private final TidResolver tidResolver = new TidResolver();
+
+  // EPC dedup / aggregation (EPC byte-ları üzrə)
+  private final ThreadLocal<EpcKey> callbackProbe = new ThreadLocal<EpcKey>() {
+    @Override protected EpcKey initialValue() { return EpcKey.probe(); }
+  };
+  // callback-in scratch oxusu — TagBatcher onu öz slot-una kopyalayır
+  private final ThreadLocal<TagRead> callbackRead = new ThreadLocal<TagRead>() {
+    @Override protected TagRead initialValue() { return new TagRead(); }
+  };
+  private final EpcAggregator aggregator = new EpcAggregator();
+  private volatile boolean dedupFlag = false;
+  private volatile long summaryIntervalMs = 1000;
+  private long lastSummaryAt = 0;
+  private long lastSweepAt = 0;
+  private static final long SWEEP_INTERVAL_MS = 1000;
+
+  // Cihazda append-only sessiya jurnalı (startInventory(journal: true))
+  private final InventoryJournal journal = new InventoryJournal();
+  private long lastJournalFlushAt = 0;
+  private static final long JOURNAL_FLUSH_MS = 500;
+
+  // Gözlənilən EPC indeksi (loadKnownTags) — callback-də expected yoxlaması / filtr
+  private volatile KnownTagIndex knownTags = null;
+  private volatile int knownTagMode = KnownTagIndex.MODE_OFF;
+
+  // Toplu yazı/lock (startBulkWrite) — eyni anda bir iş siyahısı
+  private volatile BulkTagWriter bulkWriter = null;
+  private int bulkSeq = 0;
+
+  // Hərəkət analitikası (startInventory(motion: true)) — yalnız vəziyyət keçidləri {"motion": [...]}
+  private volatile MotionTracker motion = null;
+  private volatile ReadFilter readFilter = null; // startInventory({filter}) — callback-də predikat zənciri
+  private long lastMotionSweepAt = 0;
+  private static final long MOTION_SWEEP_MS = 100;
+
+  // Güc kalibrasiyası (calibratePower) — səviyyə başına bir reader komandası
+  private volatile PowerCalibrator calibrator = null;
+  private int calibrationSeq = 0;
+  // Reader-ə son yazılan güc (-1 — naməlum): eyni dəyər təkrar SetRfPower ilə yazılmır
+  private volatile int rfPower = -1;
+
+  // Tezlik regionu: null — bu bağlantıda yazılmayıb (modulun öz dəyəri); site — region cache açarı
+  private volatile RegionConfig region = null;
+  private volatile String site = null;
+  private volatile RegionConfig.Store regionStore = null;
+  private int regionVariant = 0; // SetRegion arqument sırası — işləyən variant yadda qalır
+  private volatile ChannelSurvey survey = null;
+  private int surveySeq = 0;
+
+  // Tək tag axtarışı (startLocate): null — söndürülüb; dəyişəndə köhnə round/tick-lər dayanır
+  private volatile LocateTracker locator = null;
+
+  // SDK callback: hər tag gələndə EventChannel-a ötür
+  private final TagCallback sdkCallback = new TagCallback() {
+    @Override public void tagCallback(ReadTag t) {
+      // locate rejimi: yalnız RSSI filtrinə — map/batch/event yoxdur
+      final LocateTracker lt = locator;
+      if (lt != null) {
+        lt.onRead(callbackProbe.get().set(t.epcId), t.rssi, System.nanoTime());
+        return;
+      }
+      final PowerCalibrator cal = calibrator;
+      if (cal != null) {
+        cal.onRead(t.epcId);
+        return;
+      }
+      final ChannelSurvey sv = survey;
+      if (sv != null) {
+        sv.onRead(t.epcId);
+        return;
+      }
+      roundReads.incrementAndGet();
+      final long now = System.currentTimeMillis();
+      // EPC byte kimi qalır: probe ilə axtarış, yeni açar yalnız yeni tag üçün yaranır
+      final EpcKey probe = callbackProbe.get().set(t.epcId);
+      // native filtr: rədd olunan oxu aggregator / jurnal / sink-ə çatmır
+      final ReadFilter rf = readFilter;
+      if (rf != null && !rf.accept(probe, t.rssi, now)) return;
+      final EpcAggregator.Stats st = aggregator.observe(probe, t.rssi, now);
+      final EpcKey key = st.key;
+      if (st.isNew()) roundNewTags.incrementAndGet();
+      final MotionTracker mt = motion;
+      if (mt != null) mt.onRead(key, t.rssi, now);
+
+      // Gözlənilən stok siyahısı: mark — expected bayrağı, drop — naməlum tag göndərilmir
+      final int knownMode = knownTagMode;
+      final KnownTagIndex known = knownMode != KnownTagIndex.MODE_OFF ? knownTags : null;
+      byte expected = TagRead.EXPECTED_NA;
+      if (known != null) expected = known.match(key) ? TagRead.EXPECTED_YES : TagRead.EXPECTED_NO;
+
+      // dedup rejimində yalnız yeni tag-lar; təkrarlar summary ilə gedir
+      final boolean suppressed = (dedupFlag && !st.isNew())
+              || (knownMode == KnownTagIndex.MODE_DROP && expected == TagRead.EXPECTED_NO);
+
+      // jurnal bütün oxuları yazır (dedup-dan və Dart dinləyicisindən asılı olmadan)
+      final boolean journaling = journal.isRecording();
+      if (!journaling && (tagSink == null || suppressed)) return;
+
+      final TagRead r = callbackRead.get().set(key, t.rssi, now, t.antId);
+      if (t.memId != null && !t.memId.isEmpty()) r.mem = HexCodec.upper(t.memId);
+
+      // TID istənibsə: cache-də varsa əlavə et, yoxdursa növbəyə (round-lar arası oxunacaq)
+      if (includeTidFlag && key.length() >= 2 && (rf == null || rf.wantsTid(key))) {
+        r.tid = tidResolver.lookup(key);
+      }
+
+      if (dedupFlag) r.firstSeen = st.firstSeen;
+      r.expected = expected;
+
+      if (journaling) {
+        journal.append(r);
+        if (tagSink == null || suppressed) return;
+      }
+      emitTag(r);
+    }
+
+    @Override public void StopReadCallBack() {
+      ivtRunning.set(false);
+      Map<String, Object> stopped = new HashMap<>();
+      stopped.put("stopped", true);
+      emitOnMain(stopped);
+    }
+  };
+
+  public ChafonH906RfidPlugin() {
+    this(new SdkReader(), MainExecutor.of(new Handler(Looper.getMainLooper())));
+  }
+
+  /** Reader (məs. aparatsız simulyator) və main executor kənardan — testlər və benchmark üçün. */
+  ChafonH906RfidPlugin(RfidReader reader, MainExecutor mainHandler) {
+    this.reader = reader;
+    this.mainHandler = mainHandler;
+    this.connection = new ConnectionManager(reader, DEV_PORT, BAUD_PRIMARY, BAUD_FALLBACK);
+    this.tagBatcher = new TagBatcher(mainHandler, this::deliverTags);
+    try {
+      reader.SetCallBack(sdkCallback);
+    } catch (Throwable ignore) {}
+  }
 
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding binding) {
     context = binding.getApplicationContext();
+    journal.setDirectory(new File(context.getFilesDir(), "h906_journal"));
+    SharedPreferences prefs = context.getSharedPreferences("chafon_h906_rfid", Context.MODE_PRIVATE);
+    connection.setStore(ConnectionManager.prefs(prefs));
+    setRegionStore(RegionConfig.prefs(prefs));
 
     channel = new MethodChannel(binding.getBinaryMessenger(), "chafon_h906_rfid");
     channel.setMethodCallHandler(this);
 
     eventChannel = new EventChannel(binding.getBinaryMessenger(), "chafon_h906_rfid/tags");
     eventChannel.setStreamHandler(new EventChannel.StreamHandler() {
-      @Override public void onListen(Object args, EventChannel.EventSink sink) { tagSink = sink; }
-      @Override public void onCancel(Object args) { tagSink = null; }
+      @Override public void onListen(Object args, EventChannel.EventSink sink) { setTagSink(sink); }
+      @Override public void onCancel(Object args) { setTagSink(null); }
     });
+  }
 
-    // SDK callback: hər tag gələndə EventChannel-a ötür
-    try {
-      reader.SetCallBack(new TagCallback() {
-        @Override public void tagCallback(ReadTag t) {
-          if (tagSink == null) return;
-
-          Map<String, Object> m = new HashMap<>();
-          final String epc = t.epcId != null ? t.epcId.toUpperCase() : "";
-          m.put("epc", epc);
-          if (t.memId != null && !t.memId.isEmpty()) m.put("mem", t.memId.toUpperCase());
-          m.put("rssi", t.rssi);
-
-          // TID istənibsə, həmən tag üçün əlavə oxu et (Mem=2)
-          if (includeTidFlag && epc.length() >= 4) {
-            try {
-              String tidHex = readTidForEpc(epc, tidWordPtrB, tidLenB);
-              if (tidHex != null && !tidHex.isEmpty()) {
-                m.put("tid", tidHex);
-              }
-            } catch (Throwable ignore) {}
-          }
-
-          emitOnMain(m);
-        }
+  /** EventChannel dinləyicisi (testlərdə birbaşa verilir). */
+  void setTagSink(EventChannel.EventSink sink) {
+    tagSink = sink;
+  }
 
-        @Override public void StopReadCallBack() {
-          ivtRunning.set(false);
-          Map<String, Object> stopped = new HashMap<>();
-          stopped.put("stopped", true);
-          emitOnMain(stopped);
-        }
-      });
-    } catch (Throwable ignore) {}
+  /** Site üzrə region cache-i (testlərdə yaddaşda). */
+  void setRegionStore(RegionConfig.Store store) {
+    regionStore = store;
   }
 
   @Override
@@ -126,35 +295,174 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
         break;
 
       case "connect":
-        Executors.newSingleThreadExecutor().execute(() -> {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> {
+          // linkFreshMs — son uğurlu komandadan bu qədər müddət probe atlanır (0 — həmişə probe)
+          Number freshArg = call.argument("linkFreshMs");
+          if (freshArg != null) linkHealth.setFreshMs(freshArg.longValue());
+          String siteArg = call.argument("site");
+          if (siteArg != null && !siteArg.equals(site)) {
+            site = siteArg;
+            if (connected) applySiteRegion(); // artıq qoşulub — yeni site-ın regionu
+          }
           int rc = connectAuto();
           Map<String, Object> resp = new HashMap<>();
           resp.put("success", rc == 0);
           resp.put("code", rc);
-          resp.put("baud", currentBaud);
-          mainHandler.post(() -> result.success(resp));
+          resp.put("baud", connection.baud());
+          resp.put("connectMs", connection.toMap().get("lastConnectMs"));
+          if (region != null) resp.put("region", region.toMap());
+          reply.success(resp);
         });
         break;
 
       case "isConnected":
-        Executors.newSingleThreadExecutor().execute(() -> {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> {
           boolean ok = connected && isActuallyConnected();
           if (!ok) {
-            connected = false;
-            try { OtgUtils.set53GPIOEnabled(true); } catch (Throwable ignore) {}
-            int rc = connectAuto(); // auto-reconnect
-            ok = (rc == 0);
+            // yalnız yadda qalan baud ilə bir handshake; alınmasa reconnect arxa fonda davam edir
+            if (connected) onLinkLost();
+            ok = finishConnect(connection.connectFast()) == 0;
+            if (!ok) scheduleReconnect();
+          }
+          reply.success(ok);
+        });
+        break;
+
+      case "getConnectionStats":
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> {
+          Map<String, Object> resp = linkHealth.toMap();
+          resp.putAll(connection.toMap());
+          resp.put("connected", connected);
+          resp.put("autoReconnect", autoReconnect);
+          reply.success(resp);
+        });
+        break;
+
+      case "getMetrics":
+        // yalnız sayğaclar — reader-ə müraciət yoxdur, növbəni gözləmir
+        result.success(metricsMap());
+        break;
+
+      case "listJournalSessions": {
+        final PendingReply reply = new PendingReply(result);
+        journal.list((value, error) -> replyJournal(reply, value, error));
+        break;
+      }
+
+      case "readJournal": {
+        String session = call.argument("session");
+        Number offset = call.argument("offset");
+        Integer maxBytes = call.argument("maxBytes");
+        final PendingReply reply = new PendingReply(result);
+        journal.read(session, offset != null ? offset.longValue() : 0,
+                maxBytes != null ? maxBytes : InventoryJournal.DEFAULT_READ_BYTES,
+                (value, error) -> replyJournal(reply, value, error));
+        break;
+      }
+
+      case "deleteJournal": {
+        final PendingReply reply = new PendingReply(result);
+        journal.delete(call.argument("session"), (value, error) -> replyJournal(reply, value, error));
+        break;
+      }
+
+      case "loadKnownTags": {
+        final List<String> epcs = call.argument("epcs");
+        final byte[] blob = call.argument("blob");
+        final String path = call.argument("path");
+        final String format = call.argument("format");
+        final Boolean bloomArg = call.argument("bloom");
+        final String modeArg = call.argument("mode");
+        final PendingReply reply = new PendingReply(result);
+        // 200k EPC-nin qurulması reader round-larını saxlamasın — ayrıca thread
+        Thread loader = new Thread(() -> {
+          try {
+            long t0 = System.nanoTime();
+            boolean withBloom = bloomArg == null || bloomArg;
+            KnownTagIndex idx;
+            if (blob != null) idx = KnownTagIndex.fromBlob(blob, withBloom);
+            else if (path != null) idx = KnownTagIndex.fromFile(new File(path),
+                    "binary".equals(format) || (format == null && path.endsWith(".bin")), withBloom);
+            else if (epcs != null) idx = KnownTagIndex.fromHex(epcs, withBloom);
+            else {
+              reply.error("ARG", "epcs, blob or path is required", null);
+              return;
+            }
+            knownTags = idx;
+            knownTagMode = KnownTagIndex.parseMode(modeArg, KnownTagIndex.MODE_MARK);
+            Map<String, Object> resp = idx.stats();
+            resp.put("success", true);
+            resp.put("mode", KnownTagIndex.modeName(knownTagMode));
+            resp.put("loadMs", (System.nanoTime() - t0) / 1_000_000L);
+            reply.success(resp);
+          } catch (Throwable t) {
+            reply.error("KNOWN_TAGS", "load failed: " + t.getMessage(), null);
           }
-          boolean finalOk = ok;
-          mainHandler.post(() -> result.success(finalOk));
+        }, "h906-known-tags");
+        loader.setDaemon(true);
+        loader.start();
+        break;
+      }
+
+      case "setKnownTagMode":
+        knownTagMode = KnownTagIndex.parseMode(call.argument("mode"), knownTagMode);
+        result.success(KnownTagIndex.modeName(knownTagMode));
+        break;
+
+      case "clearKnownTags":
+        knownTagMode = KnownTagIndex.MODE_OFF;
+        knownTags = null;
+        result.success(true);
+        break;
+
+      case "getKnownTagStats": {
+        KnownTagIndex idx = knownTags;
+        Map<String, Object> resp = idx != null ? idx.stats() : new HashMap<>();
+        resp.put("loaded", idx != null);
+        resp.put("mode", KnownTagIndex.modeName(knownTagMode));
+        result.success(resp);
+        break;
+      }
+
+      case "getMissingKnownTags": {
+        KnownTagIndex idx = knownTags;
+        if (idx == null) {
+          result.error("KNOWN_TAGS", "no known-tag index loaded", null);
+          break;
+        }
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("total", (Integer) idx.stats().get("missing"));
+        resp.put("epcs", idx.missing(safeInt(call.argument("offset"), 0), safeInt(call.argument("limit"), 1000)));
+        result.success(resp);
+        break;
+      }
+
+      case "resetKnownTagsSeen":
+        // seen bitset-i callback (reader thread) yazır — sıfırlama da orada
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> {
+          KnownTagIndex idx = knownTags;
+          if (idx != null) idx.resetSeen();
+          reply.success(idx != null);
         });
         break;
 
+      case "setDebugLevel":
+        debugLevel = safeInt(call.argument("level"), 0);
+        result.success(true);
+        break;
+
       case "disconnect":
-        Executors.newSingleThreadExecutor().execute(() -> {
+        ivtRunning.set(false); // loop növbəti round-u planlaşdırmasın
+        cancelBulkWriter();
+        cancelCalibration();
+        cancelSurvey();
+        locator = null;
+        autoReconnect = false; // növbədəki reconnect cəhdi heç nə etməsin
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> {
           stopInventoryLoop(); // ehtiyat
           disconnectReader();
-          mainHandler.post(() -> result.success(true));
+          connection.markDisconnected();
+          reply.success(true);
         });
         break;
 
@@ -165,48 +473,106 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
           return;
         }
         final int power = Math.max(0, Math.min(33, powerArg)); // 0..33 clamp
-        Executors.newSingleThreadExecutor().execute(() -> {
-          Map<String, Object> resp = setPowerOnly(power);
-          mainHandler.post(() -> {
-            if ((boolean) resp.get("success")) result.success(resp);
-            else result.error(String.valueOf(resp.get("code")), (String) resp.get("message"), resp);
-          });
-        });
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> reply.respond(setPowerOnly(power)));
+        break;
+      }
+
+      case "calibratePower": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(startPowerCalibration(call)));
+        break;
+      }
+      case "cancelCalibration": {
+        // cari səviyyə bitəndən sonra yekun {"powerCalibration": {finished: true, cancelled: true}}
+        PowerCalibrator c = calibrator;
+        if (c != null) c.cancel();
+        result.success(c != null);
+        break;
+      }
+
+      case "setRegion": {
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> reply.respond(setRegionFromCall(call)));
+        break;
+      }
+      case "getRegion":
+        result.success(regionInfo());
+        break;
+      case "surveyChannels": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(startChannelSurvey(call)));
+        break;
+      }
+      case "cancelSurvey": {
+        ChannelSurvey sv = survey;
+        if (sv != null) sv.cancel();
+        result.success(sv != null);
         break;
       }
 
       case "readSingleTag": {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> {
           int wordPtr = safeInt(call.argument("wordPtr"), 2);
           int len     = safeInt(call.argument("len"), 6);
           String pwd  = safeStr(call.argument("password"), "00000000");
           String epc  = safeStr(call.argument("epc"), "");
+          int mem     = BankReadBatch.parseMem(call.argument("mem"), BankReadBatch.MEM_EPC);
+          if (mem < 0) {
+            reply.error("ARG", "mem must be 0..3 or reserved/epc/tid/user", null);
+            return;
+          }
 
-          Map<String, Object> resp = readSingleEpc(wordPtr, len, pwd, epc);
-          mainHandler.post(() -> {
-            if ((boolean) resp.get("success")) result.success(resp);
-            else result.error(String.valueOf(resp.get("code")), (String) resp.get("message"), resp);
-          });
+          reply.respond(readSingleBank(mem, wordPtr, len, pwd, epc));
         });
         break;
       }
 
+      case "readBanks": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(readBanks(call)));
+        break;
+      }
+
+      case "startBulkWrite": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(startBulkWrite(call)));
+        break;
+      }
+      case "cancelBulkWrite": {
+        // flag dərhal; cari iş bitəndən sonra yekun {"writeProgress": {finished: true}} gəlir
+        BulkTagWriter w = bulkWriter;
+        if (w != null) w.cancel();
+        result.success(w != null);
+        break;
+      }
+
+      // Tək tag axtarışı
+      case "startLocate": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(startLocate(call)));
+        break;
+      }
+      case "stopLocate": {
+        // round-lar dərhal dayanır; yekun cari round bitəndən sonra
+        final LocateTracker lt = locator;
+        locator = null;
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> reply.success(stopLocate(lt)));
+        break;
+      }
+
       // INVENTORY_G2 loop
       case "startInventory": {
-        Executors.newSingleThreadExecutor().execute(() -> {
-          Map<String, Object> resp = startInventoryLoopG2(call);
-          mainHandler.post(() -> {
-            if ((boolean) resp.get("success")) result.success(resp);
-            else result.error(String.valueOf(resp.get("code")), (String) resp.get("message"), resp);
-          });
-        });
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(startInventoryLoopG2(call)));
+        break;
+      }
+      case "pauseInventory": {
+        // növbəti round planlaşdırılmır; cavab cari round bitəndən sonra
+        ivtRunning.set(false);
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> reply.respond(pauseInventoryLoop()));
+        break;
+      }
+      case "resumeInventory": {
+        runOnReader(ReaderScheduler.PRIORITY_NORMAL, call, result, reply -> reply.respond(resumeInventoryLoop()));
         break;
       }
       case "stopInventory": {
-        Executors.newSingleThreadExecutor().execute(() -> {
-          Map<String, Object> resp = stopInventoryLoop();
-          mainHandler.post(() -> result.success(resp));
-        });
+        // Flag dərhal; cavab isə cari round bitəndən sonra (reader thread-də) gəlir
+        ivtRunning.set(false);
+        runOnReader(ReaderScheduler.PRIORITY_CONTROL, call, result, reply -> reply.success(stopInventoryLoop()));
         break;
       }
 
@@ -218,55 +584,143 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
 
   // ---------------- Connection helpers ----------------
 
+  /**
+   * Yadda qalan port/baud birinci (adətən bir handshake), sonra fallback-lər. Arxa fon
+   * reconnect-i artıq gedirsə çağıran tam siyahını gözləmir — yalnız bir cəhd.
+   */
   private int connectAuto() {
-    try { OtgUtils.set53GPIOEnabled(true); } catch (Throwable ignore) {}
-
-    int rc = reader.Connect(DEV_PORT, BAUD_PRIMARY, 1);
-    if (rc != 0) {
-      rc = reader.Connect(DEV_PORT, BAUD_FALLBACK, 1);
-      if (rc == 0) currentBaud = BAUD_FALLBACK;
-    } else {
-      currentBaud = BAUD_PRIMARY;
-    }
+    int rc = finishConnect(reconnectScheduled ? connection.connectFast() : connection.connect());
+    if (rc != 0) scheduleReconnect();
+    return rc;
+  }
 
+  private int finishConnect(int rc) {
     if (rc == 0) {
       connected = true;
-      //setRegion();
+      autoReconnect = true;
+      commErrorStreak = 0;
+      linkHealth.invalidate();
+      linkHealth.markOk();
+      rfPower = -1; // modul yenidən qidalanmış ola bilər
+      region = null;
+      applySiteRegion();      // site üçün survey nəticəsi varsa
       initDefaultSession();   // Q=4, Session=0
-    } else {
-      try { OtgUtils.set53GPIOEnabled(true); } catch (Throwable ignore) {}
     }
     return rc;
   }
 
+  /** Ardıcıl rabitə xətaları və ya uğursuz probe: bağlantı itib — arxa fonda bərpa et. */
+  private void onLinkLost() {
+    if (!connected) return;
+    connected = false;
+    linkHealth.invalidate();
+    connection.markLost();
+    Log.e("H906", "link lost, reconnecting");
+    emitConnection();
+    scheduleReconnect();
+  }
+
+  /** Reader scheduler-də backoff ilə (250 ms → 8 s) reconnect; uğurda {"connection": {...}} event-i. */
+  private void scheduleReconnect() {
+    if (!autoReconnect || reconnectScheduled) return;
+    reconnectScheduled = true;
+    final long delay = connection.nextBackoffMs();
+    scheduler.submitDelayed(ReaderScheduler.PRIORITY_NORMAL, delay, () -> {
+      reconnectScheduled = false;
+      if (!autoReconnect || (connected && isActuallyConnected())) return;
+      connected = false;
+      connection.markLost();
+      if (finishConnect(connection.connect()) == 0) {
+        Log.i("H906", "reconnected at " + connection.baud() + " in " + connection.toMap().get("lastReconnectMs") + " ms");
+        emitConnection();
+      } else {
+        scheduleReconnect();
+      }
+    });
+  }
+
+  private void emitConnection() {
+    Map<String, Object> state = connection.toMap();
+    state.put("connected", connected);
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("connection", state);
+    emitOnMain(ev);
+  }
+
+  /** Bağlantı yoxdursa connectAuto; alınmasa resp-ə {success: false, code, "connect failed"} yazılır. */
+  private boolean ensureConnected(Map<String, Object> resp) {
+    if (connected && isActuallyConnected()) return true;
+    int rc = connectAuto();
+    if (rc == 0) return true;
+    resp.put("success", false);
+    resp.put("code", rc);
+    resp.put("message", "connect failed");
+    return false;
+  }
+
+  /** Son uğurlu komanda təzədirsə probe atlanır; əks halda GetReadParameter ilə yoxla. */
   private boolean isActuallyConnected() {
+    if (linkHealth.isFresh()) {
+      linkHealth.skipped();
+      return true;
+    }
+    return probeLink();
+  }
+
+  /** GetReadParameter probe-u — nəticə bloku cache-ə yazılır, gecikmə qeyd olunur. */
+  private boolean probeLink() {
+    long t0 = System.nanoTime();
+    boolean ok;
     try {
       byte[] param = new byte[6];
-      int rc = reader.GetReadParameter(COM_ADDR, param);
-      return rc == 0;
+      ok = reader.GetReadParameter(COM_ADDR, param) == 0;
+      if (ok) linkHealth.updateParams(param);
     } catch (Throwable t) {
-      return false;
+      ok = false;
+    }
+    linkHealth.recordProbe(System.nanoTime() - t0, ok);
+    return ok;
+  }
+
+  /** Parametr bloku (6 bayt): cache-dən, yoxdursa reader-dən. null — oxunmadı. */
+  private byte[] readParams() {
+    byte[] p = linkHealth.params();
+    if (p != null) return p;
+    return probeLink() ? linkHealth.params() : null;
+  }
+
+  /** SetReadParameter (ilk 5 bayt) — uğurlu olsa cache yenilənir. */
+  private int writeParams(byte[] block) {
+    int rc = reader.SetReadParameter(COM_ADDR, Arrays.copyOf(block, 5));
+    noteResult(rc);
+    if (rc == 0) linkHealth.updateParams(block);
+    return rc;
+  }
+
+  /** Reader cavab verdisə (rc rabitə xətası deyilsə) link canlı sayılır. */
+  private void noteResult(int rc) {
+    if (rc == RC_COMM_ERROR || rc < 0) {
+      linkHealth.invalidate();
+      if (++commErrorStreak >= LINK_LOST_AFTER) onLinkLost();
+    } else {
+      commErrorStreak = 0;
+      linkHealth.markOk();
     }
   }
 
   private void disconnectReader() {
     try { reader.DisConnect(); } catch (Throwable ignore) {}
     connected = false;
-    try { OtgUtils.set53GPIOEnabled(true); } catch (Throwable ignore) {}
+    linkHealth.invalidate();
+    try { reader.setGpioEnabled(true); } catch (Throwable ignore) {}
   }
 
   private void initDefaultSession() {
     try {
-      byte[] param = new byte[6];
-      int res = reader.GetReadParameter(COM_ADDR, param);
-      if (res == 0) {
-        param[0] = defaultQ;
-        param[1] = defaultSession;
-        byte[] newParam = Arrays.copyOf(param, 5);
-        reader.SetReadParameter(COM_ADDR, newParam);
+      if (readParams() == null) {
+        Log.e("H906", "GetReadParameter alınmadı");
+      } else if (applyLoopParams(defaultQ, defaultSession)) {
         Log.i("H906", "Default Q=" + defaultQ + ", Session=" + defaultSession + " yazıldı.");
-      } else {
-        Log.e("H906", "GetReadParameter alınmadı, kod=" + res);
       }
     } catch (Exception e) {
       Log.e("H906", "initDefaultSession xətası: " + e.getMessage());
@@ -278,47 +732,31 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
   private Map<String, Object> setPowerOnly(int power) {
     HashMap<String, Object> resp = new HashMap<>();
     try {
-      if (!(connected && isActuallyConnected())) {
-        int rc = connectAuto();
-        if (rc != 0) {
-          resp.put("success", false);
-          resp.put("code", rc);
-          resp.put("message", "connect failed");
-          return resp;
-        }
-      }
+      if (!ensureConnected(resp)) return resp;
 
-//      int rcRegion = setRegion();
-//      if (rcRegion != 0) {
-//        resp.put("success", false);
-//        resp.put("code", rcRegion);
-//        resp.put("message", "SetRegion failed");
-//        return resp;
-//      }
-
-      byte[] ivt = new byte[6];
-      int rcGet = reader.GetReadParameter(COM_ADDR, ivt);
-      if (rcGet == 0) {
-        ivt[0] = defaultQ;
-        ivt[1] = defaultSession;
-        byte[] toSet = Arrays.copyOf(ivt, 5);
-        reader.SetReadParameter(COM_ADDR, toSet);
-      }
+      // Q/Session yalnız loop işləmirsə və fərqlidirsə; işləyən loop-un Q-su (adaptiv) pozulmur
+      boolean paramsWritten = !ivtActive && applyLoopParams(defaultQ, defaultSession);
 
       int clamped = Math.max(0, Math.min(33, power));
-      int rcPower = reader.SetRfPower(COM_ADDR, (byte) clamped);
-      if (rcPower != 0) {
-        resp.put("success", false);
-        resp.put("code", rcPower);
-        resp.put("message", "SetRfPower failed");
-        return resp;
+      boolean powerWritten = clamped != rfPower;
+      if (powerWritten) {
+        int rcPower = writePower(clamped);
+        if (rcPower != 0) {
+          resp.put("success", false);
+          resp.put("code", rcPower);
+          resp.put("message", "SetRfPower failed");
+          return resp;
+        }
       }
 
+      byte[] cur = linkHealth.params();
       HashMap<String, Object> data = new HashMap<>();
       data.put("power", clamped);
-      data.put("region", (REGION_BAND == 4) ? "EU" : "FCC/Other");
-      data.put("session", (int)defaultSession);
-      data.put("qValue",  (int)defaultQ);
+      data.put("region", region != null ? region.bandName() : "default");
+      data.put("session", cur != null ? (int) cur[1] : (int) defaultSession);
+      data.put("qValue",  cur != null ? (int) cur[0] : (int) defaultQ);
+      data.put("powerWritten", powerWritten);
+      data.put("paramsWritten", paramsWritten);
       resp.put("success", true);
       resp.put("code", 0);
       resp.put("data", data);
@@ -332,78 +770,430 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
     }
   }
 
-  /** Region yaz — lazım olsa FCC üçün band=2, min=0, max=62 ver. */
-  private int setRegion() {
-    int rc = reader.SetRegion(COM_ADDR, REGION_BAND, REGION_MAX, REGION_MIN);
-    if (rc == 0) return 0;
+  /** SetRfPower — uğurlu olsa cache (rfPower) yenilənir. */
+  private int writePower(int power) {
+    int rc = reader.SetRfPower(COM_ADDR, (byte) power);
+    noteResult(rc);
+    rfPower = rc == 0 ? power : -1;
+    return rc;
+  }
 
-    rc = reader.SetRegion(COM_ADDR, REGION_BAND, REGION_MIN, REGION_MAX);
-    if (rc == 0) return 0;
+  /**
+   * Flutter: calibratePower({int from=5, int to=30, int step=5, int burstRounds=5, int scanTime=10,
+   *   double targetCoverage=0.98, int expectedCount=0, bool knownTags=false, bool apply=false})
+   * Cavab dərhal ({id, levels}); hər səviyyə {"powerCalibration": {id, level: {...}}},
+   * yekun {"powerCalibration": {id, finished, levels, suggestedPower, applied?, power, error?}}.
+   * apply=false — sonda əvvəlki güc (məlumdursa) bərpa olunur. Reader thread.
+   */
+  private Map<String, Object> startPowerCalibration(MethodCall call) {
+    HashMap<String, Object> resp = new HashMap<>();
+    if (rejectIfBusy(resp, true)) return resp;
+    if (!ensureConnected(resp)) return resp;
+    final Number coverageArg = call.argument("targetCoverage");
+    final Boolean knownArg = call.argument("knownTags");
+    final Boolean applyArg = call.argument("apply");
+    final PowerCalibrator cal = new PowerCalibrator(++calibrationSeq,
+            safeInt(call.argument("from"), PowerCalibrator.DEFAULT_FROM),
+            safeInt(call.argument("to"), PowerCalibrator.DEFAULT_TO),
+            safeInt(call.argument("step"), PowerCalibrator.DEFAULT_STEP),
+            safeInt(call.argument("burstRounds"), PowerCalibrator.DEFAULT_BURST_ROUNDS),
+            coverageArg != null ? coverageArg.doubleValue() : PowerCalibrator.DEFAULT_TARGET_COVERAGE,
+            safeInt(call.argument("expectedCount"), 0),
+            knownArg != null && knownArg ? knownTags : null);
+    final byte scanTime = (byte) Math.max(1, Math.min(255, safeInt(call.argument("scanTime"), defaultScanTime)));
+    final boolean apply = applyArg != null && applyArg;
+    final int restore = rfPower;
+
+    byte[] cur = readParams();
+    final byte q = cur != null ? cur[0] : defaultQ;
+    applyLoopParams(q, (byte) 0); // S0 — hər round bütün tag-lar cavab verir
+    calibrator = cal;
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runCalibrationLevel(cal, q, scanTime, apply, restore));
+    Log.i("H906", "power calibration " + cal.id + " started: " + cal.levels() + " levels");
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("id", cal.id);
+    resp.put("levels", cal.levels());
+    return resp;
+  }
 
+  /**
+   * Reader thread: bir güc səviyyəsi — SetRfPower + burstRounds round; sonra növbəti səviyyə növbəyə.
+   * SDK exception atsa sweep dayanır, əvvəlki güc bərpa olunur və yekun event (error ilə) göndərilir.
+   */
+  private void runCalibrationLevel(final PowerCalibrator cal, final byte q, final byte scanTime,
+                                   final boolean apply, final int restore) {
+    if (cal != calibrator) return;
+    String error = null;
     try {
-      rc = reader.SetRegion(COM_ADDR, 0, REGION_BAND, REGION_MAX, REGION_MIN);
-      if (rc == 0) return 0;
-      rc = reader.SetRegion(COM_ADDR, 0, REGION_BAND, REGION_MIN, REGION_MAX);
-    } catch (Throwable ignore) {}
+      if (measureCalibrationLevel(cal, q, scanTime)) {
+        scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runCalibrationLevel(cal, q, scanTime, apply, restore));
+        return;
+      }
+    } catch (Throwable t) {
+      Log.e("H906", "power calibration " + cal.id + " failed: " + t.getMessage());
+      cal.cancel();
+      error = String.valueOf(t.getMessage());
+    }
+    finishCalibration(cal, apply, restore, error);
+  }
+
+  /** Növbəti səviyyəni ölç və progress göndər; false — səviyyə qalmayıb. */
+  private boolean measureCalibrationLevel(PowerCalibrator cal, byte q, byte scanTime) {
+    int power = cal.begin();
+    if (power < 0) return false;
+    final long t0 = elapsedMs();
+    int rc = writePower(power);
+    boolean failed = rc != 0;
+    for (int i = 0; !failed && i < cal.burstRounds() && !cal.isCancelled(); i++) {
+      rc = runRawRound(q, defaultAntenna, scanTime, (byte) 0, NO_MASK);
+      cal.onRound();
+      failed = rc == RC_COMM_ERROR || rc < 0; // "tag yoxdur" və s. round statusları xəta deyil
+    }
+    Map<String, Object> level = cal.end(elapsedMs() - t0);
+    Map<String, Object> progress = new HashMap<>();
+    progress.put("id", cal.id);
+    progress.put("level", level);
+    if (failed) {
+      cal.cancel(); // sweep yarımçıq — yekun event cancelled: true
+      progress.put("code", rc);
+    }
+    emitCalibration(progress);
+    return true;
+  }
+
+  /** Yekun: tövsiyə (apply) və ya əvvəlki güc yazılır, calibrator boşalır, {"powerCalibration": finished}. */
+  private void finishCalibration(PowerCalibrator cal, boolean apply, int restore, String error) {
+    Map<String, Object> res = cal.result();
+    int suggested = cal.suggestedPower();
+    boolean useSuggested = apply && suggested >= 0 && error == null;
+    int finalPower = useSuggested ? suggested : restore;
+    if (finalPower >= 0 && connected) {
+      try {
+        int rc = writePower(finalPower);
+        res.put("applied", useSuggested && rc == 0);
+      } catch (Throwable t) {
+        rfPower = -1;
+        res.put("applied", false);
+      }
+    }
+    if (error != null) res.put("error", error);
+    res.put("power", rfPower);
+    calibrator = null;
+    Log.i("H906", "power calibration " + cal.id + " finished: suggested=" + suggested);
+    emitCalibration(res);
+  }
+
+  private void emitCalibration(Map<String, Object> m) {
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("powerCalibration", m);
+    emitOnMain(ev);
+  }
 
+  /**
+   * SetRegion: modul versiyasından asılı olaraq arqument sırası (max/min) və 5 arqumentli
+   * variant fərqlənir — işləyən variant yadda saxlanılır, növbəti dəfə birinci sınanır.
+   */
+  private int writeRegion(RegionConfig r) {
+    int rc = -1;
+    for (int i = 0; i < 4; i++) {
+      int v = (regionVariant + i) % 4;
+      try {
+        rc = setRegionVariant(v, r);
+      } catch (Throwable ignore) {
+        rc = -1;
+      }
+      if (rc == 0) {
+        regionVariant = v;
+        break;
+      }
+      if (rc == RC_COMM_ERROR) break; // reader cavab vermir — digər variantlar da verməyəcək
+    }
+    noteResult(rc);
+    region = rc == 0 ? r : null;
     return rc;
   }
 
-  // ---------------- SINGLE READ (EPC) ----------------
+  private int setRegionVariant(int v, RegionConfig r) {
+    switch (v) {
+      case 0: return reader.SetRegion(COM_ADDR, r.band, r.maxChannel, r.minChannel);
+      case 1: return reader.SetRegion(COM_ADDR, r.band, r.minChannel, r.maxChannel);
+      case 2: return reader.SetRegion(COM_ADDR, 0, r.band, r.maxChannel, r.minChannel);
+      default: return reader.SetRegion(COM_ADDR, 0, r.band, r.minChannel, r.maxChannel);
+    }
+  }
+
+  private RegionConfig cachedRegion(String forSite) {
+    RegionConfig.Store st = regionStore;
+    return st != null && forSite != null ? RegionConfig.decode(st.get(forSite)) : null;
+  }
+
+  /** Connect-də: site üçün yadda qalan region (artıq yazılıbsa təkrar yox). */
+  private void applySiteRegion() {
+    RegionConfig cached = cachedRegion(site);
+    if (cached == null || cached.equals(region)) return;
+    int rc = writeRegion(cached);
+    if (rc == 0) Log.i("H906", "site " + site + " region: " + cached.encode());
+    else Log.e("H906", "site region SetRegion rc=" + rc);
+  }
+
+  /**
+   * Flutter: setRegion({String|int band, int minChannel=0, int maxChannel=son, String? site, bool save=false})
+   * band verilməyibsə site-ın yadda qalan regionu yazılır. save — site üçün cache-ə.
+   */
+  private Map<String, Object> setRegionFromCall(MethodCall call) {
+    HashMap<String, Object> resp = new HashMap<>();
+    String siteArg = call.argument("site");
+    if (siteArg != null) site = siteArg;
+    RegionConfig r;
+    Object bandArg = call.argument("band");
+    if (bandArg == null) {
+      r = cachedRegion(site);
+      if (r == null) {
+        resp.put("success", false);
+        resp.put("code", -3);
+        resp.put("message", "band is required (no cached region for site " + site + ")");
+        return resp;
+      }
+    } else {
+      int band = RegionConfig.parseBand(bandArg);
+      try {
+        r = RegionConfig.of(band,
+                safeInt(call.argument("minChannel"), 0),
+                safeInt(call.argument("maxChannel"), RegionConfig.MAX_CHANNEL));
+      } catch (IllegalArgumentException e) {
+        resp.put("success", false);
+        resp.put("code", -3);
+        resp.put("message", e.getMessage());
+        return resp;
+      }
+    }
+    if (!ensureConnected(resp)) return resp;
+    int rc = writeRegion(r);
+    if (rc != 0) {
+      resp.put("success", false);
+      resp.put("code", rc);
+      resp.put("message", "SetRegion failed");
+      return resp;
+    }
+    Boolean save = call.argument("save");
+    RegionConfig.Store st = regionStore;
+    if (save != null && save && st != null && site != null) st.put(site, r.encode());
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("region", r.toMap());
+    return resp;
+  }
+
+  /** {region?, site, cached?} — reader-ə getmir. */
+  private Map<String, Object> regionInfo() {
+    Map<String, Object> m = new HashMap<>();
+    RegionConfig r = region;
+    if (r != null) m.put("region", r.toMap());
+    m.put("site", site);
+    RegionConfig cached = cachedRegion(site);
+    if (cached != null) m.put("cached", cached.toMap());
+    return m;
+  }
+
+  /** Kalibrasiya / survey reader-i tutur: null — boşdur, əks halda səbəb. */
+  private String sweepBusy() {
+    if (calibrator != null) return "calibration running";
+    if (survey != null) return "channel survey running";
+    return null;
+  }
+
+  /**
+   * Reader-i inventory, kalibrasiya / survey (locateBlocks — həm də locate) tutursa resp-ə
+   * {success: false, code: -2, message: səbəb} yazılır və true qaytarılır.
+   */
+  private boolean rejectIfBusy(Map<String, Object> resp, boolean locateBlocks) {
+    String busy = ivtActive ? "inventory running" : locateBlocks && locator != null ? "locate running" : sweepBusy();
+    if (busy == null) return false;
+    resp.put("success", false);
+    resp.put("code", -2);
+    resp.put("message", busy);
+    return true;
+  }
 
-  private Map<String, Object> readSingleEpc(int wordPtr, int len, String password, String epcFilter) {
+  /**
+   * Reader thread: tək xam Inventory_G2 round-u (session 0, target A) — locate, kalibrasiya və
+   * survey üçün ortaq; maskLen=0 — maskasız. rc noteResult-dan keçir.
+   */
+  private int runRawRound(byte q, byte ant, byte scanTime, byte maskLen, byte[] maskData) {
+    final int[] cardNum = cardNumBuf;
+    cardNum[0] = 0;
+    int rc = reader.Inventory_G2(COM_ADDR, q, (byte) 0, (byte) 0, (byte) 0, TargetToggler.TARGET_A, ant,
+            scanTime, MaskScheduler.MEM_EPC, MASK_ADR_EPC, maskLen, maskData, null, cardNum, false);
+    noteResult(rc);
+    return rc;
+  }
+
+  /**
+   * Flutter: surveyChannels({String|int band='EU', int? minChannel, int? maxChannel, int window=1,
+   *   int roundsPerWindow=4, int scanTime=10, double goodRatio=0.7, String? site, bool apply=true})
+   * Cavab dərhal ({id, windows}); hər pəncərə {"channelSurvey": {id, window: {...}}},
+   * yekun {"channelSurvey": {id, finished, windows, best?, applied?, saved?, region?, error?}}.
+   * apply — ən yaxşı bitişik aralıq yazılır və site üçün saxlanılır; əks halda əvvəlki region.
+   */
+  private Map<String, Object> startChannelSurvey(MethodCall call) {
     HashMap<String, Object> resp = new HashMap<>();
+    if (rejectIfBusy(resp, true)) return resp;
+    Object bandArg = call.argument("band");
+    int band = bandArg != null ? RegionConfig.parseBand(bandArg)
+            : region != null ? region.band : RegionConfig.BAND_EU;
+    RegionConfig span;
     try {
-      if (!(connected && isActuallyConnected())) {
-        int rcConn = connectAuto();
-        if (rcConn != 0) {
-          resp.put("success", false);
-          resp.put("code", rcConn);
-          resp.put("message", "connect failed");
-          return resp;
-        }
+      span = RegionConfig.of(band,
+              safeInt(call.argument("minChannel"), 0),
+              safeInt(call.argument("maxChannel"), RegionConfig.MAX_CHANNEL));
+    } catch (IllegalArgumentException e) {
+      resp.put("success", false);
+      resp.put("code", -3);
+      resp.put("message", e.getMessage());
+      return resp;
+    }
+    if (!ensureConnected(resp)) return resp;
+    String siteArg = call.argument("site");
+    if (siteArg != null) site = siteArg;
+    final Number ratioArg = call.argument("goodRatio");
+    final Boolean applyArg = call.argument("apply");
+    final ChannelSurvey sv = new ChannelSurvey(++surveySeq, site != null ? site : "default", span,
+            safeInt(call.argument("window"), ChannelSurvey.DEFAULT_WINDOW),
+            safeInt(call.argument("roundsPerWindow"), ChannelSurvey.DEFAULT_ROUNDS),
+            ratioArg != null ? ratioArg.doubleValue() : ChannelSurvey.DEFAULT_GOOD_RATIO);
+    final byte scanTime = (byte) Math.max(1, Math.min(255, safeInt(call.argument("scanTime"), defaultScanTime)));
+    final boolean apply = applyArg == null || applyArg;
+    final RegionConfig restore = region != null ? region : span;
+
+    byte[] cur = readParams();
+    final byte q = cur != null ? cur[0] : defaultQ;
+    applyLoopParams(q, (byte) 0); // S0 — hər round bütün tag-lar cavab verir
+    survey = sv;
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runSurveyWindow(sv, q, scanTime, apply, restore));
+    Log.i("H906", "channel survey " + sv.id + " started: " + sv.windows() + " windows");
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("id", sv.id);
+    resp.put("windows", sv.windows());
+    resp.put("site", sv.site);
+    return resp;
+  }
+
+  /**
+   * Reader thread: bir pəncərə — SetRegion + roundsPerWindow round; sonra növbəti pəncərə növbəyə.
+   * SDK exception atsa survey dayanır, əvvəlki region bərpa olunur və yekun event (error ilə) göndərilir.
+   */
+  private void runSurveyWindow(final ChannelSurvey sv, final byte q, final byte scanTime,
+                               final boolean apply, final RegionConfig restore) {
+    if (sv != survey) return;
+    String error = null;
+    try {
+      if (measureSurveyWindow(sv, q, scanTime)) {
+        scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runSurveyWindow(sv, q, scanTime, apply, restore));
+        return;
       }
-      final byte MEM_EPC = 1;
+    } catch (Throwable t) {
+      Log.e("H906", "channel survey " + sv.id + " failed: " + t.getMessage());
+      sv.cancel();
+      error = String.valueOf(t.getMessage());
+    }
+    finishSurvey(sv, apply, restore, error);
+  }
+
+  /** Növbəti pəncərəni ölç və progress göndər; false — pəncərə qalmayıb. */
+  private boolean measureSurveyWindow(ChannelSurvey sv, byte q, byte scanTime) {
+    RegionConfig w = sv.begin();
+    if (w == null) return false;
+    final long t0 = elapsedMs();
+    int rc = writeRegion(w);
+    boolean failed = rc != 0;
+    for (int i = 0; !failed && i < sv.roundsPerWindow() && !sv.isCancelled(); i++) {
+      sv.beginRound();
+      rc = runRawRound(q, defaultAntenna, scanTime, (byte) 0, NO_MASK);
+      failed = rc == RC_COMM_ERROR || rc < 0;
+      sv.endRound(!failed);
+    }
+    Map<String, Object> window = sv.end(elapsedMs() - t0);
+    Map<String, Object> progress = new HashMap<>();
+    progress.put("id", sv.id);
+    progress.put("window", window);
+    if (failed) {
+      sv.cancel(); // survey yarımçıq — yekunda cancelled: true, region bərpa olunur
+      progress.put("code", rc);
+    }
+    emitSurvey(progress);
+    return true;
+  }
 
+  /** Yekun: best (apply) və ya əvvəlki region yazılır, survey boşalır, {"channelSurvey": finished}. */
+  private void finishSurvey(ChannelSurvey sv, boolean apply, RegionConfig restore, String error) {
+    Map<String, Object> res = sv.result();
+    RegionConfig best = sv.best();
+    boolean useBest = apply && best != null && !sv.isCancelled();
+    if (connected) {
+      int rc = writeRegion(useBest ? best : restore); // SDK exception-ları writeRegion özü tutur
+      res.put("applied", useBest && rc == 0);
+      RegionConfig.Store st = regionStore;
+      if (useBest && rc == 0 && st != null) {
+        st.put(sv.site, best.encode());
+        res.put("saved", true);
+      }
+    }
+    if (error != null) res.put("error", error);
+    RegionConfig now = region;
+    if (now != null) res.put("region", now.toMap());
+    survey = null;
+    Log.i("H906", "channel survey " + sv.id + " finished: best=" + (best != null ? best.encode() : "none"));
+    emitSurvey(res);
+  }
+
+  private void emitSurvey(Map<String, Object> m) {
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("channelSurvey", m);
+    emitOnMain(ev);
+  }
+
+  private void cancelSurvey() {
+    ChannelSurvey sv = survey;
+    if (sv != null) sv.cancel();
+  }
+
+  // ---------------- SINGLE READ (Reserved / EPC / TID / User) ----------------
+
+  private Map<String, Object> readSingleBank(int mem, int wordPtr, int len, String password, String epcFilter) {
+    HashMap<String, Object> resp = new HashMap<>();
+    try {
+      if (!ensureConnected(resp)) return resp;
       byte wordPtrB = (byte) Math.max(0, Math.min(255, wordPtr));
       byte numB     = (byte) Math.max(1, Math.min(64,  len));
 
       byte[] passBytes = hexToPassword4(password);
 
-      byte[] epcBytes = new byte[0];
-      byte eNum = 0;
-      if (epcFilter != null && !epcFilter.isEmpty()) {
-        epcBytes = hexToBytes(epcFilter);
-        eNum = (byte) Math.min(15, (epcBytes.length));
-        if (epcBytes.length != (eNum & 0xFF) * 2) {
-          eNum = (byte) Math.min(15, epcBytes.length / 2);
-          epcBytes = Arrays.copyOf(epcBytes, (eNum & 0xFF) * 2);
-        }
-      }
-
-      byte maskMem = 0;
-      byte[] maskAdr = new byte[]{0x00, 0x00};
-      byte maskLen = 0x00;
-      byte[] maskData = new byte[0];
+      // tam EPC ilə ENum seçimi (bulk yazı ilə eyni TagSelector)
+      TagSelector target = TagSelector.byEpc(epcFilter);
 
       byte[] dataBuf = new byte[(numB & 0xFF) * 2];
       byte[] err = new byte[1];
 
       int rc = reader.ReadData_G2(
               COM_ADDR,
-              eNum,
-              epcBytes,
-              MEM_EPC,
+              target.eNum,
+              target.epc,
+              (byte) mem,
               wordPtrB,
               numB,
               passBytes,
-              maskMem,
-              maskAdr,
-              maskLen,
-              maskData,
+              target.maskMem,
+              target.maskAdr,
+              target.maskLen,
+              target.maskData,
               dataBuf,
               err
       );
+      noteResult(rc);
 
       if (rc != 0) {
         resp.put("success", false);
@@ -415,7 +1205,7 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
       String hex = bytesToHex(dataBuf, 0, dataBuf.length);
       HashMap<String, Object> dataMap = new HashMap<>();
       dataMap.put("hex", hex);
-      dataMap.put("mem", 1);
+      dataMap.put("mem", mem);
       dataMap.put("wordPtr", (int)(wordPtrB & 0xFF));
       dataMap.put("len", (int)(numB & 0xFF));
       dataMap.put("epcFilter", epcFilter);
@@ -433,33 +1223,297 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
     }
   }
 
+  /**
+   * Flutter: readBanks({
+   *   List<Map>? requests [{epc?|tid?|mask?, mem=1, wordPtr, len=6, password?}],
+   *   List<String>? epcs, List<Map>? banks [{mem, wordPtr, len, password?}],  // epcs × banks
+   *   String password='00000000', int retries=1
+   * }) — bütün oxular bir reader komandasında: {success, code, ok, failed, elapsedMs, results: [...]}.
+   */
+  private Map<String, Object> readBanks(MethodCall call) {
+    HashMap<String, Object> resp = new HashMap<>();
+    List<BankReadBatch.Request> requests;
+    try {
+      requests = BankReadBatch.parse(call.argument("requests"), call.argument("epcs"), call.argument("banks"),
+              hexToPassword4(call.argument("password")));
+    } catch (IllegalArgumentException e) {
+      resp.put("success", false);
+      resp.put("code", -3);
+      resp.put("message", e.getMessage());
+      return resp;
+    }
+    if (requests.isEmpty()) {
+      resp.put("success", false);
+      resp.put("code", -3);
+      resp.put("message", "requests or epcs + banks is required");
+      return resp;
+    }
+
+    // bağlantı bir dəfə yoxlanır — sorğu başına yox
+    if (!ensureConnected(resp)) return resp;
+
+    long t0 = elapsedMs();
+    BankReadBatch batch = new BankReadBatch();
+    List<Map<String, Object>> results = batch.run(reader, COM_ADDR, requests,
+            safeInt(call.argument("retries"), BankReadBatch.DEFAULT_RETRIES), this::noteResult);
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("ok", batch.ok());
+    resp.put("failed", batch.failed());
+    resp.put("elapsedMs", elapsedMs() - t0);
+    resp.put("results", results);
+    return resp;
+  }
+
+  // ---------------- BULK WRITE / LOCK ----------------
+
+  /**
+   * Flutter: startBulkWrite({
+   *   List<Map> jobs [{op='write'|'writeEpc'|'lock', epc?|tid?|mask?, mem=3, wordPtr=0,
+   *                    data (hex), password='00000000', select, protect, verify}],
+   *   int retries=2, bool verify=false, int progressEvery=32
+   * }) — cavab dərhal {batch, total}; nəticələr {"writeProgress": {...}} event-ləri ilə gəlir.
+   */
+  private Map<String, Object> startBulkWrite(MethodCall call) {
+    HashMap<String, Object> resp = new HashMap<>();
+    BulkTagWriter running = bulkWriter;
+    if (running != null && !running.isFinished()) {
+      resp.put("success", false);
+      resp.put("code", -2);
+      resp.put("message", "bulk write " + running.id() + " is running");
+      return resp;
+    }
+    List<Map<String, Object>> specs = call.argument("jobs");
+    if (specs == null || specs.isEmpty()) {
+      resp.put("success", false);
+      resp.put("code", -3);
+      resp.put("message", "jobs is required");
+      return resp;
+    }
+    Boolean verifyArg = call.argument("verify");
+    List<BulkTagWriter.Job> jobs = new ArrayList<>(specs.size());
+    try {
+      for (int i = 0; i < specs.size(); i++) {
+        jobs.add(BulkTagWriter.parseJob(i, specs.get(i), verifyArg != null && verifyArg));
+      }
+    } catch (IllegalArgumentException e) {
+      resp.put("success", false);
+      resp.put("code", -3);
+      resp.put("message", e.getMessage());
+      return resp;
+    }
+
+    // bağlantı bir dəfə yoxlanır — tag başına yox
+    if (!ensureConnected(resp)) return resp;
+
+    final BulkTagWriter w = new BulkTagWriter(++bulkSeq, jobs,
+            safeInt(call.argument("retries"), BulkTagWriter.DEFAULT_RETRIES),
+            safeInt(call.argument("progressEvery"), BulkTagWriter.DEFAULT_PROGRESS_EVERY));
+    w.start(elapsedMs());
+    bulkWriter = w;
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runBulkSlice(w));
+    Log.i("H906", "bulk write " + w.id() + " started: " + jobs.size() + " jobs");
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("batch", w.id());
+    resp.put("total", w.total());
+    return resp;
+  }
+
+  /**
+   * Reader thread: işləri SLICE_MS boyunca ardıcıl icra et, sonra növbəti slice-ı növbəyə qoy —
+   * control komandaları (stop, setPower) aralarda keçə bilsin.
+   */
+  private void runBulkSlice(final BulkTagWriter w) {
+    if (w != bulkWriter) return;
+    try {
+      w.runSlice(reader, COM_ADDR, BulkTagWriter.SLICE_MS, this::noteResult);
+    } catch (Throwable t) {
+      Log.e("H906", "bulk write " + w.id() + " failed: " + t.getMessage());
+      w.cancel();
+    }
+    final long now = elapsedMs();
+    if (w.isFinished()) {
+      Map<String, Object> progress = w.drainProgress(now);
+      Log.i("H906", "bulk write " + w.id() + " finished: ok=" + progress.get("ok") + " failed=" + progress.get("failed"));
+      bulkWriter = null;
+      emitWriteProgress(progress);
+      return;
+    }
+    if (w.progressDue(now)) emitWriteProgress(w.drainProgress(now));
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> runBulkSlice(w));
+  }
+
+  private void emitWriteProgress(Map<String, Object> progress) {
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("writeProgress", progress);
+    emitOnMain(ev);
+  }
+
+  private void cancelCalibration() {
+    PowerCalibrator c = calibrator;
+    if (c != null) c.cancel();
+  }
+
+  private void cancelBulkWriter() {
+    BulkTagWriter w = bulkWriter;
+    if (w != null) w.cancel();
+  }
+
+  // ---------------- LOCATE (tək tag, "Geiger") ----------------
+
+  /**
+   * Flutter: startLocate({String epc, int scanTime=1, int uiHz=30, String filter='kalman'|'ema',
+   *   double alpha=0.35, int rssiMin=30, int rssiMax=80, int? antenna})
+   * Hədəf EPC maskası ilə Q=0 round-lar arasız təkrarlanır (duty/idle yoxdur); oxular yalnız
+   * LocateTracker-ə gedir. {"locate": {proximity, rssi, smoothed, ...}} uiHz tezliyi ilə main
+   * thread-dən göndərilir. Inventory ilə eyni anda işləmir. Reader thread-də çağırılır.
+   */
+  private Map<String, Object> startLocate(MethodCall call) {
+    HashMap<String, Object> resp = new HashMap<>();
+    String epc = call.argument("epc");
+    int digits = epc != null ? HexCodec.digitCount(epc) : 0;
+    if (digits < 2 || digits % 2 != 0 || digits > 62) {
+      resp.put("success", false);
+      resp.put("code", -1);
+      resp.put("message", "epc must be 1..31 bytes of hex");
+      return resp;
+    }
+    if (rejectIfBusy(resp, false)) return resp; // locate-in özü yeni hədəfə keçir
+    if (!ensureConnected(resp)) return resp;
+
+    final byte[] data = HexCodec.decode(epc);
+    final Number alphaArg = call.argument("alpha");
+    final LocateTracker lt = new LocateTracker(
+            new EpcKey(data),
+            call.argument("filter"),
+            alphaArg != null ? alphaArg.doubleValue() : LocateTracker.DEFAULT_ALPHA,
+            safeInt(call.argument("rssiMin"), LocateTracker.DEFAULT_RSSI_MIN),
+            safeInt(call.argument("rssiMax"), LocateTracker.DEFAULT_RSSI_MAX));
+    final byte scanTime = (byte) Math.max(1, Math.min(255, safeInt(call.argument("scanTime"), 1)));
+    final Integer antennaArg = call.argument("antenna");
+    final byte ant = antennaArg != null ? (byte) Math.max(0, Math.min(127, antennaArg)) : defaultAntenna;
+    final int uiHz = Math.max(1, Math.min(60, safeInt(call.argument("uiHz"), 30)));
+
+    // tək tag — bir slot kifayətdir; S0 — tag hər round cavab verir
+    final boolean paramsWritten = applyLoopParams((byte) 0, (byte) 0);
+    final byte bitLen = (byte) (data.length * 8);
+    final Runnable round = () -> {
+      runRawRound((byte) 0, ant, scanTime, bitLen, data);
+      lt.onRound();
+    };
+
+    LocateTracker prev = locator;
+    if (prev != null) stopLocate(prev); // yeni hədəf — köhnə axtarış yekunlaşır
+    locator = lt;
+    scheduleLocateRound(lt, round);
+    scheduleLocateTick(lt, 1000L / uiHz);
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("message", "locating");
+    resp.put("epc", lt.target.toHex());
+    resp.put("filter", lt.filter());
+    resp.put("uiHz", uiHz);
+    resp.put("scanTime", scanTime & 0xFF);
+    resp.put("paramsWritten", paramsWritten);
+    return resp;
+  }
+
+  /** Round-lar arası gözləmə yoxdur; digər komandalar (CONTROL/NORMAL) aralarda keçir. */
+  private void scheduleLocateRound(final LocateTracker lt, final Runnable round) {
+    scheduler.submit(ReaderScheduler.PRIORITY_INVENTORY, () -> {
+      if (locator != lt) return;
+      try {
+        round.run();
+      } catch (Throwable e) {
+        Log.e("H906", "locate loop error: " + e.getMessage());
+        locator = null;
+        Map<String, Object> ev = new HashMap<>();
+        ev.put("locate", stopLocate(lt));
+        emitOnMain(ev);
+        return;
+      }
+      scheduleLocateRound(lt, round);
+    });
+  }
+
+  /** Main thread: sabit UI tezliyi ilə snapshot — oxu sayından asılı deyil. */
+  private void scheduleLocateTick(final LocateTracker lt, final long periodMs) {
+    mainHandler.postDelayed(new Runnable() {
+      @Override public void run() {
+        if (locator != lt) return;
+        EventChannel.EventSink sink = tagSink;
+        if (sink != null) {
+          Map<String, Object> ev = new HashMap<>();
+          ev.put("locate", lt.snapshot(System.nanoTime()));
+          sink.success(ev);
+        }
+        mainHandler.postDelayed(this, periodMs);
+      }
+    }, periodMs);
+  }
+
+  /** Yekun: son snapshot + stopped: true (sürət sayğacı main thread-in son tick-indən). */
+  private Map<String, Object> stopLocate(LocateTracker lt) {
+    Map<String, Object> m;
+    if (lt == null) {
+      m = new HashMap<>();
+      m.put("success", false);
+      m.put("message", "not locating");
+    } else {
+      m = lt.snapshot(System.nanoTime());
+      m.put("success", true);
+      m.put("message", "stopped");
+    }
+    m.put("stopped", true);
+    return m;
+  }
+
   // ---------------- INVENTORY (Inventory_G2 loop) ----------------
 
   /**
    * Flutter: startInventory({
    *   int? scanTime, int? qValue, int? session,
-   *   int? antenna, bool includeTid=false, int tidWordPtr=0, int tidLen=6,
-   *   String? epcFilter, List<String>? masksHex
+   *   int? antenna, bool includeTid=false, int tidWordPtr=0, int tidLen=6, int tidPerRound=8,
+   *   String tidPassword='00000000',
+   *   String? epcFilter, List<String>? masksHex,
+   *   List<Map>? masks [{hex, mem=1, bitPtr=0x20, bitLen=len*8, weight=1}], String maskStrategy='weighted'|'cycle',
+   *   int batchSize=256, int batchIntervalMs=50,
+   *   int queueCapacity=4096, String overflowPolicy='dropOldest'|'dropDuplicate'|'coalesce'|'block',
+   *   bool dedup=false, int dedupTtlMs=300000, int dedupCapacity=50000, int summaryIntervalMs=1000,
+   *   bool adaptiveQ=false, int minQ=0, int maxQ=15,
+   *   String dutyMode='continuous'|'duty', int dutyOnMs=1000, int dutyOffMs=0, int? debugLevel,
+   *   String encoding='map'|'binary', int metricsIntervalMs=0, bool journal=false,
+   *   String targetMode='A'|'B'|'dual', int toggleRounds=0, int toggleEmptyRounds=1,
+   *   bool motion=false, int motionWindow=16, int motionDepartMs=1500, int motionStaticMs=3000,
+   *   double motionTrend=4.0, int motionCapacity=2048,
+   *   Map? filter {rssiMin, epcPrefixes, epcBits, minReads, readWindowMs, tidEpcPrefixes} (bax ReadFilter)
    * })
+   * targetMode 'dual' və session verilməyibsə S2 istifadə olunur (S0-da bayraq dərhal sıfırlanır).
    */
   private Map<String, Object> startInventoryLoopG2(MethodCall call) {
     HashMap<String, Object> resp = new HashMap<>();
     try {
-      if (ivtRunning.get()) {
+      if (ivtActive && ivtRunning.get()) {
         resp.put("success", true);
         resp.put("code", 0);
         resp.put("message", "already running");
         return resp;
       }
-      if (!(connected && isActuallyConnected())) {
-        int rc = connectAuto();
-        if (rc != 0) {
-          resp.put("success", false);
-          resp.put("code", rc);
-          resp.put("message", "connect failed");
-          return resp;
-        }
+      // pauzada olan sessiya — yenisi başlamazdan əvvəl yekunlaşdırılır (sessionSummary)
+      if (ivtActive) stopInventoryLoop();
+      locator = null; // locate round-ları dayanır, callback yenidən inventory-yə
+      String busy = sweepBusy();
+      if (busy != null) {
+        resp.put("success", false);
+        resp.put("code", -2);
+        resp.put("message", busy);
+        return resp;
       }
+      if (!ensureConnected(resp)) return resp;
 
       Integer scanTimeArg     = call.argument("scanTime");
       Integer qValueArg       = call.argument("qValue");
@@ -467,95 +1521,226 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
       Integer antennaArg      = call.argument("antenna");
       final String epcFilter  = call.argument("epcFilter");
       final List<String> masks= call.argument("masksHex");
+      final List<Map<String, Object>> maskSpecs = call.argument("masks");
+      final String maskStrategyArg = call.argument("maskStrategy");
       final Boolean includeTidArg = call.argument("includeTid");
       final Integer tidWordPtrArg = call.argument("tidWordPtr");
       final Integer tidLenArg     = call.argument("tidLen");
+      final String tidPasswordArg = call.argument("tidPassword");
+      final Integer tidPerRoundArg = call.argument("tidPerRound");
+      final Integer batchSizeArg  = call.argument("batchSize");
+      final Integer batchIntervalArg = call.argument("batchIntervalMs");
+      final Boolean dedupArg         = call.argument("dedup");
+      final Number  dedupTtlArg      = call.argument("dedupTtlMs");
+      final Integer dedupCapacityArg = call.argument("dedupCapacity");
+      final Number  summaryArg       = call.argument("summaryIntervalMs");
+      final Boolean adaptiveQArg     = call.argument("adaptiveQ");
+      final Integer minQArg          = call.argument("minQ");
+      final Integer maxQArg          = call.argument("maxQ");
+      final String  dutyModeArg      = call.argument("dutyMode");
+      final Number  dutyOnArg        = call.argument("dutyOnMs");
+      final Number  dutyOffArg       = call.argument("dutyOffMs");
+      final Integer debugLevelArg    = call.argument("debugLevel");
+      final String  encodingArg      = call.argument("encoding");
+      final Integer queueCapacityArg = call.argument("queueCapacity");
+      final String  overflowArg      = call.argument("overflowPolicy");
+      final Number  metricsArg       = call.argument("metricsIntervalMs");
+      final Boolean journalArg       = call.argument("journal");
+      final String  targetModeArg    = call.argument("targetMode");
+      final Integer toggleRoundsArg  = call.argument("toggleRounds");
+      final Integer toggleEmptyArg   = call.argument("toggleEmptyRounds");
+      final Boolean motionArg        = call.argument("motion");
+      final Number  motionTrendArg   = call.argument("motionTrend");
+
+      // Filtr qaydaları bir dəfə kompilyasiya olunur; səhv spesifikasiya — loop başlamır
+      final ReadFilter filter;
+      try {
+        filter = ReadFilter.compile(call.argument("filter"));
+      } catch (IllegalArgumentException | ClassCastException e) {
+        resp.put("success", false);
+        resp.put("code", -3);
+        resp.put("message", "invalid filter: " + e.getMessage());
+        return resp;
+      }
 
-      // Q/Session hazırla
-      byte[] cur = new byte[6];
-      int rcGet = reader.GetReadParameter(COM_ADDR, cur);
-      byte qVal = (rcGet == 0) ? cur[0] : defaultQ;
-      byte ses  = (rcGet == 0) ? cur[1] : defaultSession;
+      // Q/Session hazırla (parametr bloku cache-dən — əlavə GetReadParameter yoxdur)
+      byte[] cur = readParams();
+      byte qVal = (cur != null) ? cur[0] : defaultQ;
+      byte ses  = (cur != null) ? cur[1] : defaultSession;
 
       if (qValueArg != null)  qVal = (byte) Math.max(0, Math.min(15, qValueArg));
       if (sessionArg != null) ses  = (byte) Math.max(0, Math.min(3,  sessionArg));
 
-      byte[] toSet = Arrays.copyOf(cur, 5);
-      toSet[0] = qVal;
-      toSet[1] = ses;
-      reader.SetReadParameter(COM_ADDR, toSet);
-
-      final byte scanTime = (byte) (scanTimeArg != null ? Math.max(0, Math.min(255, scanTimeArg)) : defaultScanTime);
-      final byte ant      = (antennaArg != null) ? (byte)Math.max(0, Math.min(127, antennaArg)) : defaultAntenna;
-
-      // EPC maskası (Inventory_G2 üçün: MaskMem=1, MaskAdr=0x00 0x20, MaskLen=bit)
-      byte[] maskData = new byte[0];
-      byte   maskLenBits = 0;
-      if (epcFilter != null && !epcFilter.isEmpty()) {
-        maskData = hexToBytes(epcFilter);
-        maskLenBits = (byte)(maskData.length * 8);
-        activeEpcFilter = epcFilter;
-      } else if (masks != null && !masks.isEmpty()) {
-        byte[] epcBytes = hexToBytes(masks.get(0));
-        maskData = epcBytes;
-        maskLenBits = (byte)(epcBytes.length * 8);
-        activeEpcFilter = masks.get(0);
+      // A/B Target: dual rejimində round-lar arası hədəf çevrilir; S0-da mənası yoxdur
+      final TargetToggler toggler = new TargetToggler(
+              targetModeArg,
+              toggleRoundsArg != null ? toggleRoundsArg : TargetToggler.DEFAULT_TOGGLE_ROUNDS,
+              toggleEmptyArg  != null ? toggleEmptyArg  : TargetToggler.DEFAULT_EMPTY_ROUNDS);
+      targetToggler = toggler;
+      if (toggler.isDual() && sessionArg == null && ses == 0) ses = 2;
+
+      final boolean paramsWritten = applyLoopParams(qVal, ses);
+
+      byte scanTime = (byte) (scanTimeArg != null ? Math.max(0, Math.min(255, scanTimeArg)) : defaultScanTime);
+
+      // Adaptiv Q: başlanğıc Q-dan başlayır, round nəticələrinə görə minQ..maxQ arasında dəyişir
+      final boolean adaptive = adaptiveQArg != null && adaptiveQArg;
+      if (adaptive) {
+        QTuner tuner = new QTuner(qVal, minQArg != null ? minQArg : 0, maxQArg != null ? maxQArg : 15);
+        qTuner = tuner;
+        autoScanTime = scanTimeArg == null;
+        if (autoScanTime) scanTime = (byte) tuner.scanTime();
       } else {
-        activeEpcFilter = null;
+        qTuner = null;
+        autoScanTime = false;
       }
+      loopQ = qVal;
+      loopScanTime = scanTime;
+      final byte ant      = (antennaArg != null) ? (byte)Math.max(0, Math.min(127, antennaArg)) : defaultAntenna;
+
+      // Maskalar (Inventory_G2): epcFilter — tək EPC maskası; masksHex — hamısı EPC@0x20;
+      // masks — [{hex, mem, bitPtr, bitLen, weight}]. Round-lar bütün maskalar üzrə növbələnir.
+      final MaskScheduler maskSched = new MaskScheduler(
+              buildMasks(epcFilter, masks, maskSpecs),
+              maskStrategyArg != null ? maskStrategyArg : MaskScheduler.STRATEGY_WEIGHTED);
+      maskScheduler = maskSched;
 
       // TID flag-lar
       includeTidFlag = (includeTidArg != null) ? includeTidArg : false;
       tidWordPtrB = (byte)((tidWordPtrArg != null) ? Math.max(0, Math.min(255, tidWordPtrArg)) : 0);
       tidLenB     = (byte)((tidLenArg     != null) ? Math.max(1, Math.min(64,  tidLenArg))     : 6);
-
-      // Loop: Inventory_G2 — SDK callback vasitəsi ilə tag-lar gələcək
-      ivtRunning.set(true);
-      ivtExec = Executors.newSingleThreadExecutor();
-      final byte fQ = qVal;
+      tidPassword = hexToPassword4(tidPasswordArg);
+      tidResolver.configure(tidPerRoundArg != null ? tidPerRoundArg : TidResolver.DEFAULT_PER_ROUND);
+      tidResolver.reset();
+
+      // Batch: ölçü və ya zaman pəncərəsi dolanda flush (batchSize<=1 — hər tag ayrıca)
+      tagBatcher.configure(
+              batchSizeArg     != null ? batchSizeArg     : TagBatcher.DEFAULT_BATCH_SIZE,
+              batchIntervalArg != null ? batchIntervalArg : TagBatcher.DEFAULT_INTERVAL_MS);
+      binaryEncoding = ENCODING_BINARY.equals(encodingArg);
+      // Callback → main thread arası məhdud növbə; dolanda overflowPolicy
+      tagBatcher.configureQueue(
+              queueCapacityArg != null ? queueCapacityArg : TagBatcher.DEFAULT_CAPACITY,
+              overflowArg != null ? overflowArg : TagBatcher.POLICY_DROP_OLDEST);
+
+      // Dedup: sessiya üçün sıfırdan; yalnız yeni tag-lar + periodik summary delta
+      aggregator.configure(
+              dedupTtlArg      != null ? dedupTtlArg.longValue() : EpcAggregator.DEFAULT_TTL_MS,
+              dedupCapacityArg != null ? dedupCapacityArg        : EpcAggregator.DEFAULT_CAPACITY);
+      aggregator.reset();
+      dedupFlag = dedupArg != null && dedupArg;
+      summaryIntervalMs = summaryArg != null ? Math.max(0, summaryArg.longValue()) : 1000;
+      lastSummaryAt = lastSweepAt = lastMotionSweepAt = System.currentTimeMillis();
+
+      // Hərəkət: EPC başına (vaxt, RSSI) halqa buferi; Dart-a yalnız vəziyyət keçidləri
+      motion = (motionArg != null && motionArg) ? new MotionTracker(
+              safeInt(call.argument("motionWindow"), MotionTracker.DEFAULT_WINDOW),
+              safeInt(call.argument("motionCapacity"), MotionTracker.DEFAULT_CAPACITY),
+              safeInt(call.argument("motionDepartMs"), (int) MotionTracker.DEFAULT_DEPART_MS),
+              safeInt(call.argument("motionStaticMs"), (int) MotionTracker.DEFAULT_STATIC_MS),
+              motionTrendArg != null ? motionTrendArg.doubleValue() : MotionTracker.DEFAULT_TREND) : null;
+
+      readFilter = filter;
+
+      // Loop: Inventory_G2 — SDK callback vasitəsi ilə tag-lar gələcək.
+      // Hər round reader scheduler-də ayrıca komandadır; arada digər komandalar icra oluna bilər.
       final byte fS = ses;
-      final byte[] fMaskData = maskData;       // effectively final
-      final byte   fMaskLen  = maskLenBits;
-
-      ivtExec.execute(() -> {
-        try {
-          while (ivtRunning.get()) {
-            int[] cardNum = new int[1];
-            // Inventory_G2(comAddr, Q, Session, WordPtr=0, Num=0, Target, Ant, ScanTime, MaskMem, MaskAdr[2], MaskLen, MaskData, List?=null, CardNum, Beep=false)
-            int rc = reader.Inventory_G2(
-                    COM_ADDR,
-                    fQ,
-                    fS,
-                    (byte)0,
-                    (byte)0,
-                    defaultTarget,
-                    ant,
-                    scanTime,
-                    (byte)1,                  // MaskMem = EPC
-                    new byte[]{0x00, 0x20},   // MaskAdr (PC-dən sonra)
-                    fMaskLen,
-                    fMaskData,
-                    null,                      // list — null veririk; callback işləyir
-                    cardNum,
-                    false
-            );
-            // Debug üçün:
-            Log.d("H906", "Inventory_G2 rc=" + rc + " cardNum=" + cardNum[0]);
-
-            try { Thread.sleep(20); } catch (InterruptedException ignored) {}
-          }
-        } catch (Throwable loopErr) {
-          Log.e("H906", "inventory loop error: " + loopErr.getMessage());
-          ivtRunning.set(false);
-          Map<String, Object> stopped = new HashMap<>();
-          stopped.put("stopped", true);
-          emitOnMain(stopped);
+      final byte[] noMask = new byte[0];
+
+      // Duty-cycle: continuous — fasiləsiz; duty — dutyOnMs işlə, dutyOffMs sus
+      dutyCycle = new DutyCycle(
+              dutyModeArg != null ? dutyModeArg : DutyCycle.MODE_CONTINUOUS,
+              dutyOnArg  != null ? dutyOnArg.longValue()  : 1000,
+              dutyOffArg != null ? dutyOffArg.longValue() : 0);
+      if (debugLevelArg != null) debugLevel = debugLevelArg;
+      metricsIntervalMs = metricsArg != null ? Math.max(0, metricsArg.longValue()) : 0;
+      metrics.reset(elapsedMs());
+
+      final Runnable round = () -> {
+        final int[] cardNum = cardNumBuf;
+        cardNum[0] = 0;
+        roundReads.set(0);
+        roundNewTags.set(0);
+        final MaskScheduler.Mask mask = maskSched.next();
+        // Inventory_G2(comAddr, Q, Session, WordPtr=0, Num=0, Target, Ant, ScanTime, MaskMem, MaskAdr[2], MaskLen, MaskData, List?=null, CardNum, Beep=false)
+        final long t0 = System.nanoTime();
+        int rc = reader.Inventory_G2(
+                COM_ADDR,
+                loopQ,
+                fS,
+                (byte)0,
+                (byte)0,
+                toggler.target(),
+                ant,
+                loopScanTime,
+                mask != null ? mask.mem    : MaskScheduler.MEM_EPC,
+                mask != null ? mask.adr    : MASK_ADR_EPC,   // MaskAdr (bit ünvanı)
+                mask != null ? mask.bitLen : (byte)0,
+                mask != null ? mask.data   : noMask,
+                null,                      // list — null veririk; callback işləyir
+                cardNum,
+                false
+        );
+        noteResult(rc);
+        metrics.onRound((System.nanoTime() - t0) / 1e6, cardNum[0], roundReads.get(), roundNewTags.get(),
+                rc, rc == RC_COMM_ERROR || rc < 0);
+        if (debugLevel >= 1) Log.d("H906", "Inventory_G2 rc=" + rc + " cardNum=" + cardNum[0]);
+        QTuner tuner = qTuner;
+        if (tuner != null) adaptQ(tuner, Math.max(cardNum[0], roundReads.get()));
+        maskSched.onRound(mask, roundReads.get(), roundNewTags.get());
+        if (toggler.onRound(roundReads.get(), roundNewTags.get()) && debugLevel >= 1) {
+          Log.d("H906", "target -> " + toggler.stats().get("target"));
         }
-      });
+        afterRound();
+      };
+
+      // Jurnal: sessiya faylı journal thread-də açılır; oxular round-lar arası yazılır
+      if (journalArg != null && journalArg) {
+        String journalId = journal.open(System.currentTimeMillis());
+        if (journalId != null) resp.put("journalSession", journalId);
+        else resp.put("journalError", "journal directory unavailable");
+        lastJournalFlushAt = System.currentTimeMillis();
+      }
+
+      Map<String, Object> settings = new HashMap<>();
+      settings.put("qValue", (int) qVal);
+      settings.put("session", (int) ses);
+      settings.put("scanTime", scanTime & 0xFF);
+      settings.put("antenna", ant & 0xFF);
+      settings.put("adaptiveQ", adaptive);
+      settings.put("targetMode", toggler.mode());
+      settings.put("masks", maskSched.size());
+      settings.put("includeTid", includeTidFlag);
+      settings.put("dedup", dedupFlag);
+      settings.put("motion", motion != null);
+      if (filter != null) settings.put("filter", filter.stats().get("rules"));
+      settings.put("dutyMode", dutyCycle.mode());
+      settings.put("encoding", binaryEncoding ? ENCODING_BINARY : "map");
+      settings.put("journal", journal.isRecording());
+      Object journalId = resp.get("journalSession");
+      final long nowWall = System.currentTimeMillis();
+      final InventorySession s = new InventorySession(
+              journalId != null ? (String) journalId : String.valueOf(nowWall), round, settings, nowWall, elapsedMs());
+      s.onParams(paramsWritten);
+      session = s;
+      loopSession = ses;
+
+      final int gen = ++loopGen;
+      lastLoopStatsAt = lastMetricsAt = elapsedMs();
+      ivtActive = true;
+      ivtRunning.set(true);
+      scheduleRound(gen, round, 0);
 
       resp.put("success", true);
       resp.put("code", 0);
       resp.put("message", "started");
+      resp.put("session", s.id);
+      resp.put("paramsWritten", paramsWritten);
+      resp.put("qValue", (int) qVal);
+      resp.put("scanTime", scanTime & 0xFF);
+      resp.put("adaptiveQ", adaptive);
+      resp.put("targetMode", toggler.mode());
+      resp.put("dutyMode", dutyCycle.mode());
       return resp;
 
     } catch (Throwable t) {
@@ -566,20 +1751,363 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
     }
   }
 
+  /** Q/Session-u reader-ə yaz; cache-dəki blok artıq eynidirsə SetReadParameter atlanır. Qaytarır: yazıldımı. */
+  private boolean applyLoopParams(byte q, byte ses) {
+    byte[] cur = readParams();
+    if (cur != null && cur[0] == q && cur[1] == ses) return false;
+    if (cur == null) cur = new byte[6];
+    cur[0] = q;
+    cur[1] = ses;
+    writeParams(cur);
+    return true;
+  }
+
+  /**
+   * Reader thread (cari round bitib): loop dayanır, amma sessiya qalır — dedup cədvəli,
+   * TID cache, metriklər, maska statistikası, jurnal faylı və parametrlər resume üçün saxlanılır.
+   */
+  private Map<String, Object> pauseInventoryLoop() {
+    HashMap<String, Object> resp = new HashMap<>();
+    final InventorySession s = session;
+    if (!ivtActive || s == null) {
+      resp.put("success", false);
+      resp.put("code", 0);
+      resp.put("message", "not running");
+      return resp;
+    }
+    final long now = elapsedMs();
+    if (!s.isPaused()) {
+      ivtRunning.set(false);
+      loopGen++; // növbədə qalmış round ləğv olunur
+      s.pause(now);
+      if (dedupFlag) emitSummary();
+      if (journal.isRecording()) journal.flush();
+    }
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("message", "paused");
+    resp.put("uniqueTags", aggregator.size());
+    resp.put("session", s.toMap(now));
+    return resp;
+  }
+
+  /** Pauzadan davam: eyni round, eyni vəziyyət; parametrlər dəyişməyibsə yazılmır. */
+  private Map<String, Object> resumeInventoryLoop() {
+    HashMap<String, Object> resp = new HashMap<>();
+    final InventorySession s = session;
+    if (!ivtActive || s == null) {
+      resp.put("success", false);
+      resp.put("code", 0);
+      resp.put("message", "no session to resume");
+      return resp;
+    }
+    if (!s.isPaused()) {
+      resp.put("success", true);
+      resp.put("code", 0);
+      resp.put("message", "already running");
+      return resp;
+    }
+    if (!ensureConnected(resp)) return resp;
+    final boolean paramsWritten = applyLoopParams(loopQ, loopSession);
+    s.onParams(paramsWritten);
+
+    final long now = elapsedMs();
+    s.resume(now);
+    final int gen = ++loopGen;
+    lastLoopStatsAt = lastMetricsAt = now;
+    ivtRunning.set(true);
+    scheduleRound(gen, s.round, 0);
+
+    resp.put("success", true);
+    resp.put("code", 0);
+    resp.put("message", "resumed");
+    resp.put("paramsWritten", paramsWritten);
+    resp.put("session", s.toMap(now));
+    return resp;
+  }
+
+  /** {"sessionSummary"}: sessiya vaxtları + oxu/round sayğacları, unikal tag-lar, parametrlər. */
+  private Map<String, Object> sessionSummary(InventorySession s, long now) {
+    Map<String, Object> m = s.toMap(now);
+    Map<String, Object> mt = metrics.toMap(now);
+    m.put("uniqueTags", aggregator.size());
+    m.put("reads", mt.get("reads"));
+    m.put("rounds", mt.get("rounds"));
+    m.put("roundErrors", mt.get("roundErrors"));
+    long active = s.activeMs(now);
+    m.put("readsPerSecond", active > 0 ? ((Number) mt.get("reads")).longValue() * 1000.0 / active : 0d);
+    m.put("dropped", tagBatcher.dropped());
+    TargetToggler tt = targetToggler;
+    if (tt.isDual()) m.put("target", tt.stats());
+    ReadFilter rf = readFilter;
+    if (rf != null) m.put("filter", rf.stats());
+    return m;
+  }
+
+  /** startInventory maska arqumentlərindən MaskScheduler siyahısı. */
+  private List<MaskScheduler.Mask> buildMasks(String epcFilter, List<String> masksHex,
+                                              List<Map<String, Object>> specs) {
+    List<MaskScheduler.Mask> out = new ArrayList<>();
+    if (epcFilter != null && !epcFilter.isEmpty()) {
+      byte[] data = hexToBytes(epcFilter);
+      out.add(new MaskScheduler.Mask(epcFilter, data, MaskScheduler.MEM_EPC, MaskScheduler.EPC_BIT_PTR, data.length * 8, 1));
+      return out;
+    }
+    if (masksHex != null) {
+      for (String hex : masksHex) {
+        if (hex == null || hex.isEmpty()) continue;
+        byte[] data = hexToBytes(hex);
+        out.add(new MaskScheduler.Mask(hex, data, MaskScheduler.MEM_EPC, MaskScheduler.EPC_BIT_PTR, data.length * 8, 1));
+      }
+    }
+    if (specs != null) {
+      for (Map<String, Object> spec : specs) {
+        String hex = (String) spec.get("hex");
+        if (hex == null || hex.isEmpty()) continue;
+        byte[] data = hexToBytes(hex);
+        int mem = spec.get("mem") instanceof Number ? ((Number) spec.get("mem")).intValue() : MaskScheduler.MEM_EPC;
+        int defPtr = (mem == MaskScheduler.MEM_EPC) ? MaskScheduler.EPC_BIT_PTR : 0;
+        int bitPtr = spec.get("bitPtr") instanceof Number ? ((Number) spec.get("bitPtr")).intValue() : defPtr;
+        int bitLen = spec.get("bitLen") instanceof Number ? ((Number) spec.get("bitLen")).intValue() : data.length * 8;
+        double weight = spec.get("weight") instanceof Number ? ((Number) spec.get("weight")).doubleValue() : 1;
+        out.add(new MaskScheduler.Mask(hex, data, mem, bitPtr, bitLen, weight));
+      }
+    }
+    return out;
+  }
+
+  /** Növbəti round-u reader scheduler-ə ən aşağı prioritetlə göndər. */
+  private void scheduleRound(final int gen, final Runnable round, long delayMs) {
+    scheduler.submitDelayed(ReaderScheduler.PRIORITY_INVENTORY, delayMs, () -> {
+      if (gen != loopGen || !ivtRunning.get()) return;
+      final long t0 = elapsedMs();
+      try {
+        round.run();
+      } catch (Throwable loopErr) {
+        Log.e("H906", "inventory loop error: " + loopErr.getMessage());
+        ivtRunning.set(false);
+        ivtActive = false;
+        Map<String, Object> stopped = new HashMap<>();
+        stopped.put("stopped", true);
+        emitOnMain(stopped);
+        return;
+      }
+      final long now = elapsedMs();
+      final DutyCycle duty = dutyCycle;
+      final long idle = duty.onRound(now - t0, now);
+      if (now - lastLoopStatsAt >= LOOP_STATS_INTERVAL_MS) {
+        lastLoopStatsAt = now;
+        metrics.tick(now);
+        probePostLag();
+        emitLoopStats(duty);
+      }
+      final long mi = metricsIntervalMs;
+      if (mi > 0 && now - lastMetricsAt >= mi) {
+        lastMetricsAt = now;
+        Map<String, Object> ev = new HashMap<>();
+        ev.put("metrics", metricsMap());
+        emitOnMain(ev);
+      }
+      if (ivtRunning.get()) scheduleRound(gen, round, idle);
+    });
+  }
+
+  /** Main thread Looper gecikməsi: post anından icraya qədər. */
+  private void probePostLag() {
+    final long posted = System.nanoTime();
+    mainHandler.post(() -> metrics.onPostLag((System.nanoTime() - posted) / 1e6));
+  }
+
+  /**
+   * getMetrics / {"metrics"} event-i: InventoryMetrics + növbə dərinliyi, reader növbəsi,
+   * cari Q/scanTime.
+   */
+  private Map<String, Object> metricsMap() {
+    Map<String, Object> m = metrics.toMap(elapsedMs());
+    m.put("running", ivtActive);
+    InventorySession s = session;
+    m.put("paused", s != null && s.isPaused());
+    m.put("qValue", (int) loopQ);
+    m.put("scanTime", loopScanTime & 0xFF);
+    m.put("target", targetToggler.target() == TargetToggler.TARGET_A ? TargetToggler.MODE_A : TargetToggler.MODE_B);
+    m.put("queue", tagBatcher.stats());
+    m.put("readerQueue", scheduler.queued());
+    return m;
+  }
+
+  /** {"loopStats": {roundsPerSecond, rounds, dutyMode, dutyOnMs, dutyOffMs, masks?, target?, queue}} */
+  private void emitLoopStats(DutyCycle duty) {
+    Map<String, Object> stats = loopStatsMap(duty);
+    MaskScheduler ms = maskScheduler;
+    if (!ms.isEmpty()) stats.put("masks", ms.stats()); // maska başına round/oxu/yeni tag
+    TargetToggler tt = targetToggler;
+    if (tt.isDual()) stats.put("target", tt.stats());   // A/B faza başına yeni tag
+    stats.put("queue", tagBatcher.stats());             // dropped / coalesced / highWater
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("loopStats", stats);
+    emitOnMain(ev);
+  }
+
+  private static Map<String, Object> loopStatsMap(DutyCycle duty) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("roundsPerSecond", duty.roundsPerSecond());
+    m.put("rounds", duty.rounds());
+    m.put("dutyMode", duty.mode());
+    m.put("dutyOnMs", duty.onMs());
+    m.put("dutyOffMs", duty.offMs());
+    return m;
+  }
+
+  /**
+   * Adaptiv Q: round-un tag sayına görə Q-nu dəyiş, SetReadParameter ilə reader-ə yaz.
+   * Dəyişiklik {"adaptiveQ": {q, scanTime, population}} kimi Dart-a gedir.
+   */
+  private void adaptQ(QTuner tuner, int tags) {
+    if (!tuner.onRound(tags)) return;
+    byte q = (byte) tuner.q();
+    byte[] block = readParams();
+    if (block != null) {
+      block[0] = q;
+      writeParams(block);
+    }
+    loopQ = q;
+    if (autoScanTime) loopScanTime = (byte) tuner.scanTime();
+
+    Map<String, Object> info = new HashMap<>();
+    info.put("q", tuner.q());
+    info.put("scanTime", loopScanTime & 0xFF);
+    info.put("population", tuner.population());
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("adaptiveQ", info);
+    emitOnMain(ev);
+  }
+
+  /** Round-lar arası: TID oxuları, TTL eviction və dedup summary. Loop thread-də çağırılır. */
+  private void afterRound() {
+    if (includeTidFlag) resolvePendingTids();
+
+    long now = System.currentTimeMillis();
+    if (now - lastSweepAt >= SWEEP_INTERVAL_MS) {
+      lastSweepAt = now;
+      aggregator.evictExpired(now);
+    }
+    if (journal.isRecording() && now - lastJournalFlushAt >= JOURNAL_FLUSH_MS) {
+      lastJournalFlushAt = now;
+      journal.flush();
+    }
+    if (dedupFlag && summaryIntervalMs > 0 && now - lastSummaryAt >= summaryIntervalMs) {
+      lastSummaryAt = now;
+      emitSummary();
+    }
+    MotionTracker mt = motion;
+    if (mt != null) {
+      if (now - lastMotionSweepAt >= MOTION_SWEEP_MS) {
+        lastMotionSweepAt = now;
+        mt.sweep(now);
+      }
+      emitMotion(mt);
+    }
+  }
+
+  /** {"motion": [{epc, state, from?, at, dwellMs, peakRssi, peakAt, rssi, trend, reads}, ...]} */
+  private void emitMotion(MotionTracker mt) {
+    List<Map<String, Object>> changes = mt.drain();
+    if (changes == null) return;
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("motion", changes);
+    emitOnMain(ev);
+  }
+
+  /**
+   * Növbədəki EPC-lər üçün TID oxu (round başına ən çox tidPerRound) — nəticə
+   * follow-up event kimi gedir: {"tidResolved": [{epc, tid}, ...]}
+   */
+  private void resolvePendingTids() {
+    List<Map<String, Object>> done = null;
+    for (int i = 0, n = tidResolver.perRound(); i < n && ivtRunning.get(); i++) {
+      EpcKey key = tidResolver.poll();
+      if (key == null) break;
+      final long t0 = System.nanoTime();
+      String tid = readTidForEpc(key.bytes, tidWordPtrB, tidLenB);
+      metrics.onTidRead((System.nanoTime() - t0) / 1e6, tid != null);
+      if (tid == null) {
+        tidResolver.failed(key);
+        continue;
+      }
+      tidResolver.resolved(key, tid);
+      if (done == null) done = new ArrayList<>();
+      Map<String, Object> m = new HashMap<>();
+      m.put("epc", key.toHex());
+      m.put("tid", tid);
+      done.add(m);
+    }
+    if (done != null) {
+      Map<String, Object> ev = new HashMap<>();
+      ev.put("tidResolved", done);
+      emitOnMain(ev);
+    }
+  }
+
+  private void emitSummary() {
+    List<Map<String, Object>> delta = aggregator.drainSummary();
+    if (delta == null) return;
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("summary", delta);
+    emitOnMain(ev);
+  }
+
   private Map<String, Object> stopInventoryLoop() {
     HashMap<String, Object> resp = new HashMap<>();
     try {
-      if (!ivtRunning.get()) {
+      if (!ivtActive) {
         resp.put("success", false);
         resp.put("code", 0);
         resp.put("message", "not running");
         return resp;
       }
+      // Reader thread-də çağırılır — cari round artıq bitib, növbədəkilər gen ilə ləğv olunur
       ivtRunning.set(false);
-      if (ivtExec != null) {
-        ivtExec.shutdownNow();
-        ivtExec = null;
+      ivtActive = false;
+      loopGen++;
+      if (dedupFlag) emitSummary(); // son delta
+      MotionTracker mt = motion;
+      if (mt != null) {
+        mt.closeAll(); // qalan tag-lar departed
+        emitMotion(mt);
+        resp.put("motion", mt.stats());
+        motion = null;
+      }
+      ReadFilter rf = readFilter;
+      if (rf != null) resp.put("filter", rf.stats());
+      resp.put("uniqueTags", aggregator.size());
+      resp.put("qValue", (int) loopQ);
+      resp.put("loopStats", loopStatsMap(dutyCycle));
+      if (!maskScheduler.isEmpty()) resp.put("masks", maskScheduler.stats());
+      resp.put("target", targetToggler.stats());
+      if (includeTidFlag) {
+        resp.put("tidsCached", tidResolver.cachedCount());
+        resp.put("tidsPending", tidResolver.pendingCount()); // stop anında oxunmamış qalanlar
       }
+      resp.put("queue", tagBatcher.stats());
+      KnownTagIndex known = knownTags;
+      if (known != null && knownTagMode != KnownTagIndex.MODE_OFF) resp.put("knownTags", known.stats());
+      if (journal.isRecording()) {
+        journal.close();
+        resp.put("journal", journal.stats());
+      }
+      final InventorySession s = session;
+      if (s != null) {
+        final long now = elapsedMs();
+        s.stop(now);
+        Map<String, Object> summary = sessionSummary(s, now);
+        if (resp.containsKey("journal")) summary.put("journal", resp.get("journal"));
+        resp.put("session", summary);
+        Map<String, Object> ev = new HashMap<>();
+        ev.put("sessionSummary", summary);
+        emitOnMain(ev);
+        session = null;
+      }
+      readFilter = null;
       resp.put("success", true);
       resp.put("code", 0);
       resp.put("message", "stopped");
@@ -594,34 +2122,33 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
   }
 
   // --------- TID oxu helper (EPC-ə maska ilə) ---------
-  private String readTidForEpc(String epcHex, byte wordPtr, byte len) {
+  private String readTidForEpc(byte[] epc, byte wordPtr, byte len) {
     try {
       // EPC maskasını ENum kimi də verə bilərik, amma bu SDK imzasında
       // mask sahələrindən istifadə edəcəyik
-      final byte MEM_TID = 2;
 
       byte[] dataBuf = new byte[(len & 0xFF) * 2];
       byte[] err = new byte[1];
 
       // EPC maskası
-      byte[] maskData = hexToBytes(epcHex);
-      byte maskLenBits = (byte)(maskData.length * 8);
+      TagSelector target = TagSelector.byEpcMask(epc);
 
       int rc = reader.ReadData_G2(
               COM_ADDR,
-              (byte)0,               // ENum=0
-              new byte[0],           // EPC[] boş
-              MEM_TID,
+              target.eNum,           // ENum=0
+              target.epc,            // EPC[] boş
+              TagSelector.MEM_TID,
               wordPtr,
               len,
-              hexToPassword4("00000000"), // lazım olarsa param edərsən
-              (byte)1,               // MaskMem = EPC
-              new byte[]{0x00, 0x20},// MaskAdr
-              maskLenBits,
-              maskData,
+              tidPassword,           // startInventory(tidPassword)
+              target.maskMem,        // MaskMem = EPC
+              target.maskAdr,        // 0x0020
+              target.maskLen,
+              target.maskData,
               dataBuf,
               err
       );
+      noteResult(rc);
       if (rc == 0) {
         return bytesToHex(dataBuf, 0, dataBuf.length);
       }
@@ -631,53 +2158,142 @@ public class ChafonH906RfidPlugin implements FlutterPlugin, MethodChannel.Method
 
   // ---------------- utils ----------------
 
+  private interface ReaderTask {
+    void run(PendingReply reply);
+  }
+
+  /**
+   * Komandanı reader scheduler-ə göndər. Arqumentlərdə timeoutMs varsa, vaxt bitəndə
+   * Flutter-ə TIMEOUT qaytarılır və komanda hələ başlamayıbsa növbədən çıxarılır.
+   */
+  private void runOnReader(int priority, MethodCall call, MethodChannel.Result result, ReaderTask task) {
+    final PendingReply reply = new PendingReply(result);
+    final ReaderScheduler.Command cmd = scheduler.submit(priority, () -> {
+      if (reply.isDone()) return; // timeout olub
+      try {
+        task.run(reply);
+      } catch (Throwable t) {
+        reply.error("-1", "exception: " + t.getMessage(), null);
+      }
+    });
+
+    Number timeoutMs = (call.arguments instanceof Map) ? call.argument("timeoutMs") : null;
+    if (timeoutMs != null && timeoutMs.longValue() > 0) {
+      mainHandler.postDelayed(() -> {
+        if (reply.claim()) {
+          boolean cancelled = scheduler.cancel(cmd);
+          result.error("TIMEOUT", cancelled ? "reader busy, command cancelled" : "reader command timed out", null);
+        }
+      }, timeoutMs.longValue());
+    }
+  }
+
+  private static void replyJournal(PendingReply reply, Object value, String error) {
+    if (error != null) reply.error("JOURNAL", error, null);
+    else reply.success(value);
+  }
+
+  /** MethodChannel.Result üçün bir dəfəlik, main thread-ə yönləndirilən cavab. */
+  private final class PendingReply {
+    private final MethodChannel.Result result;
+    private final AtomicBoolean done = new AtomicBoolean(false);
+
+    PendingReply(MethodChannel.Result result) { this.result = result; }
+
+    boolean claim() { return done.compareAndSet(false, true); }
+    boolean isDone() { return done.get(); }
+
+    void success(final Object value) {
+      if (claim()) mainHandler.post(() -> result.success(value));
+    }
+
+    void error(final String code, final String message, final Object details) {
+      if (claim()) mainHandler.post(() -> result.error(code, message, details));
+    }
+
+    /** {success, code, message} formatlı cavab — success=false olanda error kimi. */
+    void respond(final Map<String, Object> resp) {
+      if (Boolean.TRUE.equals(resp.get("success"))) success(resp);
+      else error(String.valueOf(resp.get("code")), (String) resp.get("message"), resp);
+    }
+  }
+
+  /**
+   * Tag event-i məhdud növbəyə (TagBatcher) — batch söndürülübsə də main thread-ə hər tag üçün
+   * ayrıca post edilmir, Looper növbəsi böyümür.
+   */
+  private void emitTag(final TagRead tag) {
+    tagBatcher.add(tag);
+  }
+
+  /** TagBatcher sink-i (main thread): batch — bir event, batch söndürülübsə hər tag ayrıca. */
+  private void deliverTags(List<TagRead> batch) {
+    if (tagSink == null) return;
+    if (tagBatcher.isEnabled()) {
+      tagSink.success(encodeTags(batch));
+    } else {
+      for (int i = 0; i < batch.size(); i++) tagSink.success(encodeTag(batch.get(i)));
+    }
+  }
+
+  /** Tək tag → event (batch söndürülüb): binary rejimdə bir record-luq byte[], əks halda map. */
+  private Object encodeTag(TagRead tag) {
+    if (binaryEncoding) return TagEventCodec.encode(Collections.singletonList(tag));
+    return tag.toMap();
+  }
+
+  /** Batch → event: binary rejimdə byte[], əks halda {"tags": [map, ...]}. */
+  private Object encodeTags(List<TagRead> batch) {
+    if (binaryEncoding) return TagEventCodec.encode(batch);
+    List<Map<String, Object>> maps = new ArrayList<>(batch.size());
+    for (TagRead r : batch) maps.add(r.toMap());
+    Map<String, Object> ev = new HashMap<>();
+    ev.put("tags", maps);
+    return ev;
+  }
+
   private void emitOnMain(final Map<String, Object> event) {
     if (tagSink == null) return;
     mainHandler.post(() -> {
+      tagBatcher.flush(); // sıra pozulmasın: əvvəl yığılmış tag-lar
       if (tagSink != null) tagSink.success(event);
     });
   }
 
+  /** Monoton ms (round/duty ölçmələri üçün). */
+  private static long elapsedMs() {
+    return System.nanoTime() / 1_000_000L;
+  }
+
   private static int safeInt(Integer v, int def) { return v == null ? def : v; }
   private static String safeStr(String v, String def) { return v == null ? def : v; }
 
   private byte[] hexToBytes(String s) {
-    if (s == null) return new byte[0];
-    s = s.replaceAll("\\s+", "");
-    if (s.length() % 2 != 0) s = "0" + s;
-    byte[] out = new byte[s.length() / 2];
-    for (int i = 0; i < s.length(); i += 2) {
-      out[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
-              + Character.digit(s.charAt(i + 1), 16));
-    }
-    return out;
+    return HexCodec.decode(s);
   }
 
+  /** 8 hex rəqəm (boşluqlar nəzərə alınmır) — əks halda 00000000. */
   private byte[] hexToPassword4(String pwd) {
-    String p = (pwd == null || pwd.isEmpty()) ? "00000000" : pwd.replaceAll("\\s+","");
-    if (p.length() != 8) p = "00000000";
-    byte[] full = hexToBytes(p);
-    if (full.length < 4) {
-      byte[] fix = new byte[4];
-      System.arraycopy(full, 0, fix, 4 - full.length, full.length);
-      return fix;
-    } else if (full.length > 4) {
-      return Arrays.copyOfRange(full, 0, 4);
-    }
-    return full;
+    if (pwd == null || HexCodec.digitCount(pwd) != 8) return new byte[4];
+    return HexCodec.decode(pwd);
   }
 
   private String bytesToHex(byte[] bytes, int offset, int length) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = offset; i < offset + length && i < bytes.length; i++) {
-      sb.append(String.format("%02X", bytes[i]));
-    }
-    return sb.toString();
+    return HexCodec.encode(bytes, offset, length);
   }
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
-    stopInventoryLoop();
+    ivtRunning.set(false);
+    cancelBulkWriter();
+    cancelCalibration();
+    cancelSurvey();
+    locator = null;
+    scheduler.submit(ReaderScheduler.PRIORITY_CONTROL, () -> {
+      stopInventoryLoop();
+      scheduler.shutdown();
+    });
+    tagBatcher.clear();
     channel.setMethodCallHandler(null);
   }
 }
@@ -0,0 +1,179 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kanal survey-i: reader növbə ilə hər kanala (və ya window qədər kanallıq pəncərəyə)
+ * məhdudlaşdırılır, hər pəncərədə qısa Inventory_G2 seriyası. Pəncərə balı = unikal tag ×
+ * uğurlu round payı (round xətasız bitib və ən azı bir oxu verib). SetRegion yalnız
+ * bitişik min..max aralığı qəbul edir — ona görə tövsiyə "yaxşı" pəncərələrin (bal ≥
+ * goodRatio × ən yaxşı bal) ən uzun bitişik ardıcıllığıdır.
+ * Bir pəncərə — bir reader komandası (plugin növbətini ayrıca planlaşdırır).
+ */
+final class ChannelSurvey {
+
+  static final int DEFAULT_WINDOW = 1;
+  static final int DEFAULT_ROUNDS = 4;
+  static final double DEFAULT_GOOD_RATIO = 0.7;
+
+  private static final class Window {
+    final RegionConfig region;
+    final Set<EpcKey> seen = new HashSet<>();
+    long reads;
+    int rounds;
+    int okRounds;
+    long ms;
+
+    Window(RegionConfig region) {
+      this.region = region;
+    }
+
+    double successRate() {
+      return rounds > 0 ? (double) okRounds / rounds : 0;
+    }
+
+    double score() {
+      return seen.size() * successRate();
+    }
+  }
+
+  final int id;
+  final String site;
+  private final RegionConfig span;
+  private final int windowSize;
+  private final int roundsPerWindow;
+  private final double goodRatio;
+  private final List<Window> done = new ArrayList<>();
+  private final EpcKey probe = EpcKey.probe();
+  private Window current;
+  private long roundReads;
+  private int nextChannel;
+  private volatile boolean cancelled = false;
+
+  ChannelSurvey(int id, String site, RegionConfig span, int windowSize, int roundsPerWindow, double goodRatio) {
+    this.id = id;
+    this.site = site;
+    this.span = span;
+    this.windowSize = Math.max(1, windowSize);
+    this.roundsPerWindow = Math.max(1, roundsPerWindow);
+    this.goodRatio = goodRatio > 0 && goodRatio <= 1 ? goodRatio : DEFAULT_GOOD_RATIO;
+    this.nextChannel = span.minChannel;
+  }
+
+  int windows() {
+    int n = span.maxChannel - span.minChannel + 1;
+    return (n + windowSize - 1) / windowSize;
+  }
+
+  int roundsPerWindow() {
+    return roundsPerWindow;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /** Növbəti pəncərə; bitibsə null. */
+  RegionConfig begin() {
+    if (cancelled || nextChannel > span.maxChannel) return null;
+    int hi = Math.min(span.maxChannel, nextChannel + windowSize - 1);
+    current = new Window(span.window(nextChannel, hi));
+    nextChannel = hi + 1;
+    return current.region;
+  }
+
+  /** Reader thread (callback). */
+  void onRead(String epcHex) {
+    Window w = current;
+    if (w == null) return;
+    w.reads++;
+    roundReads++;
+    EpcKey k = probe.set(epcHex);
+    if (!w.seen.contains(k)) w.seen.add(k.copy());
+  }
+
+  void beginRound() {
+    roundReads = 0;
+  }
+
+  /** ok — round rabitə xətası olmadan bitdi. */
+  void endRound(boolean ok) {
+    Window w = current;
+    if (w == null) return;
+    w.rounds++;
+    if (ok && roundReads > 0) w.okRounds++;
+  }
+
+  Map<String, Object> end(long ms) {
+    Window w = current;
+    current = null;
+    if (w == null) return null;
+    w.ms = ms;
+    done.add(w);
+    return windowMap(w);
+  }
+
+  private static Map<String, Object> windowMap(Window w) {
+    Map<String, Object> m = w.region.toMap();
+    m.put("uniqueTags", w.seen.size());
+    m.put("reads", w.reads);
+    m.put("rounds", w.rounds);
+    m.put("successRate", w.successRate());
+    m.put("score", w.score());
+    m.put("ms", w.ms);
+    return m;
+  }
+
+  /** Yaxşı pəncərələrin ən uzun bitişik ardıcıllığı (bərabərlikdə bal cəmi); ölçü yoxdursa null. */
+  RegionConfig best() {
+    double max = 0;
+    for (Window w : done) max = Math.max(max, w.score());
+    if (max <= 0) return null;
+    double good = goodRatio * max;
+    int bestFrom = -1, bestTo = -1;
+    double bestSum = 0;
+    for (int i = 0; i < done.size(); i++) {
+      if (done.get(i).score() < good) continue;
+      int j = i;
+      double sum = 0;
+      while (j < done.size() && done.get(j).score() >= good
+              && (j == i || done.get(j).region.minChannel == done.get(j - 1).region.maxChannel + 1)) {
+        sum += done.get(j).score();
+        j++;
+      }
+      int len = done.get(j - 1).region.maxChannel - done.get(i).region.minChannel;
+      int bestLen = bestFrom < 0 ? -1 : done.get(bestTo).region.maxChannel - done.get(bestFrom).region.minChannel;
+      if (len > bestLen || (len == bestLen && sum > bestSum)) {
+        bestFrom = i;
+        bestTo = j - 1;
+        bestSum = sum;
+      }
+      i = j - 1;
+    }
+    return span.window(done.get(bestFrom).region.minChannel, done.get(bestTo).region.maxChannel);
+  }
+
+  /** {id, site, finished, cancelled, windows: [...], best?} */
+  Map<String, Object> result() {
+    List<Map<String, Object>> windows = new ArrayList<>(done.size());
+    for (Window w : done) windows.add(windowMap(w));
+    Map<String, Object> m = new HashMap<>();
+    m.put("id", id);
+    m.put("site", site);
+    m.put("finished", true);
+    m.put("cancelled", cancelled);
+    m.put("windows", windows);
+    RegionConfig b = best();
+    if (b != null) m.put("best", b.toMap());
+    return m;
+  }
+}
@@ -0,0 +1,190 @@
+package com.chafon.chafon_h906_rfid;
+
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serial bağlantının qurulması: son uğurlu port/baud yadda saxlanılır (SharedPreferences —
+ * tətbiq yenidən açılanda da) və birinci sınanır, qalanlar fallback kimi. GPIO qidası
+ * proses ərzində bir dəfə açılır (tam uğursuzluqdan sonra yenidən). Arxa fon reconnect-i
+ * üçün eksponensial backoff burada hesablanır; planlaşdırma plugin-in reader scheduler-indədir.
+ * Yalnız reader thread-dən çağırılır (toMap istisna).
+ */
+final class ConnectionManager {
+
+  static final long BACKOFF_MIN_MS = 250;
+  static final long BACKOFF_MAX_MS = 8000;
+
+  /** Son uğurlu port/baud-un saxlandığı yer. */
+  interface Store {
+    String port();
+
+    int baud();
+
+    void save(String port, int baud);
+  }
+
+  private static final String KEY_PORT = "h906.port";
+  private static final String KEY_BAUD = "h906.baud";
+
+  static Store prefs(final SharedPreferences p) {
+    return new Store() {
+      @Override public String port() { return p.getString(KEY_PORT, null); }
+      @Override public int baud() { return p.getInt(KEY_BAUD, 0); }
+      @Override public void save(String port, int baud) {
+        p.edit().putString(KEY_PORT, port).putInt(KEY_BAUD, baud).apply();
+      }
+    };
+  }
+
+  private final RfidReader reader;
+  private final String defaultPort;
+  private final int[] bauds;
+  private volatile Store store;
+
+  private boolean gpioOn = false;
+  private String port;
+  private int baud;
+  private int backoffStep = 0;
+
+  // statistika
+  private long connects = 0;
+  private long handshakes = 0;
+  private long failures = 0;
+  private long reconnects = 0;
+  private long lastConnectMs = 0;
+  private long lastReconnectMs = 0;
+  private long lostAt = 0; // bağlantının itdiyi an (0 — itməyib)
+
+  ConnectionManager(RfidReader reader, String defaultPort, int... bauds) {
+    this.reader = reader;
+    this.defaultPort = defaultPort;
+    this.bauds = bauds;
+    this.port = defaultPort;
+    this.baud = bauds[0];
+  }
+
+  void setStore(Store store) {
+    this.store = store;
+  }
+
+  int baud() {
+    return baud;
+  }
+
+  String port() {
+    return port;
+  }
+
+  /**
+   * Bütün namizədlər: əvvəl yadda qalan port/baud, sonra default port üzrə baud-lar.
+   * Qaytarır: son Connect rc-si (0 — qoşuldu).
+   */
+  int connect() {
+    return connect(false);
+  }
+
+  /** Yalnız birinci namizəd (yadda qalan) — isConnected kimi tez cavab gözləyən yollar üçün. */
+  int connectFast() {
+    return connect(true);
+  }
+
+  private int connect(boolean firstOnly) {
+    final long t0 = System.nanoTime();
+    powerOn();
+    int rc = -1;
+    for (Candidate c : candidates()) {
+      handshakes++;
+      rc = reader.Connect(c.port, c.baud, 1);
+      if (rc == 0) {
+        onConnected(c, (System.nanoTime() - t0) / 1_000_000L);
+        return 0;
+      }
+      if (firstOnly) break;
+    }
+    failures++;
+    if (!firstOnly) gpioOn = false; // növbəti cəhddə qidanı yenidən aç
+    return rc;
+  }
+
+  private void onConnected(Candidate c, long ms) {
+    connects++;
+    lastConnectMs = ms;
+    backoffStep = 0;
+    if (lostAt != 0) {
+      reconnects++;
+      lastReconnectMs = System.nanoTime() / 1_000_000L - lostAt;
+      lostAt = 0;
+    }
+    port = c.port;
+    baud = c.baud;
+    Store s = store;
+    if (s != null && (!c.port.equals(s.port()) || c.baud != s.baud())) s.save(c.port, c.baud);
+  }
+
+  private void powerOn() {
+    if (gpioOn) return;
+    try { reader.setGpioEnabled(true); } catch (Throwable ignore) {}
+    gpioOn = true;
+  }
+
+  /** Bağlantı itdi (reconnect vaxtı bu andan ölçülür). */
+  void markLost() {
+    if (lostAt == 0) lostAt = System.nanoTime() / 1_000_000L;
+  }
+
+  /** İstifadəçi disconnect etdi — itki sayılmır, qida yenidən açılmalıdır. */
+  void markDisconnected() {
+    lostAt = 0;
+    backoffStep = 0;
+    gpioOn = false;
+  }
+
+  /** Növbəti reconnect cəhdinə qədər gözləmə: 250 ms, 500 ms, ... 8 s. */
+  long nextBackoffMs() {
+    long d = Math.min(BACKOFF_MAX_MS, BACKOFF_MIN_MS << Math.min(backoffStep, 16));
+    backoffStep++;
+    return d;
+  }
+
+  private static final class Candidate {
+    final String port;
+    final int baud;
+
+    Candidate(String port, int baud) {
+      this.port = port;
+      this.baud = baud;
+    }
+  }
+
+  private List<Candidate> candidates() {
+    List<Candidate> out = new ArrayList<>(bauds.length + 1);
+    Store s = store;
+    String p = s != null && s.port() != null ? s.port() : port;
+    int b = s != null && s.baud() > 0 ? s.baud() : baud;
+    out.add(new Candidate(p, b));
+    for (int v : bauds) {
+      if (!(defaultPort.equals(p) && v == b)) out.add(new Candidate(defaultPort, v));
+    }
+    return out;
+  }
+
+  /** {port, baud, connects, handshakes, failures, reconnects, lastConnectMs, lastReconnectMs, reconnecting} */
+  Map<String, Object> toMap() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("port", port);
+    m.put("baud", baud);
+    m.put("connects", connects);
+    m.put("handshakes", handshakes);
+    m.put("failures", failures);
+    m.put("reconnects", reconnects);
+    m.put("lastConnectMs", lastConnectMs);
+    m.put("lastReconnectMs", lastReconnectMs);
+    m.put("reconnecting", lostAt != 0);
+    return m;
+  }
+}
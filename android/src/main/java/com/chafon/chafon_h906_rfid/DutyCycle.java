@@ -0,0 +1,74 @@
+package com.chafon.chafon_h906_rfid;
+
+/**
+ * Inventory loop üçün duty-cycle: continuous rejimdə round-lar arasında fasilə yoxdur;
+ * duty rejimində onMs radio işlədikdən sonra offMs susur (istilik / batareya limitləri).
+ * Eyni zamanda saniyədə round sayını ölçür.
+ */
+final class DutyCycle {
+
+  static final String MODE_CONTINUOUS = "continuous";
+  static final String MODE_DUTY = "duty";
+
+  private final boolean duty;
+  private final long onMs;
+  private final long offMs;
+
+  private long windowOnMs = 0;
+
+  // round/s ölçmə (1 s pəncərə)
+  private long rounds = 0;
+  private long rateWindowStart = 0;
+  private long rateWindowRounds = 0;
+  private double roundsPerSecond = 0;
+
+  DutyCycle(String mode, long onMs, long offMs) {
+    this.duty = MODE_DUTY.equals(mode) && offMs > 0;
+    this.onMs = Math.max(1, onMs);
+    this.offMs = Math.max(0, offMs);
+  }
+
+  String mode() {
+    return duty ? MODE_DUTY : MODE_CONTINUOUS;
+  }
+
+  /**
+   * Round bitdi: roundMs — round-un müddəti, now — monotonik ms.
+   * Qaytarır: növbəti round-dan əvvəl gözləmə (ms).
+   */
+  long onRound(long roundMs, long now) {
+    rounds++;
+    if (rateWindowStart == 0) rateWindowStart = now;
+    rateWindowRounds++;
+    long span = now - rateWindowStart;
+    if (span >= 1000) {
+      roundsPerSecond = rateWindowRounds * 1000.0 / span;
+      rateWindowStart = now;
+      rateWindowRounds = 0;
+    }
+
+    if (!duty) return 0;
+    windowOnMs += Math.max(0, roundMs);
+    if (windowOnMs >= onMs) {
+      windowOnMs = 0;
+      return offMs;
+    }
+    return 0;
+  }
+
+  long rounds() {
+    return rounds;
+  }
+
+  double roundsPerSecond() {
+    return roundsPerSecond;
+  }
+
+  long onMs() {
+    return duty ? onMs : 0;
+  }
+
+  long offMs() {
+    return duty ? offMs : 0;
+  }
+}
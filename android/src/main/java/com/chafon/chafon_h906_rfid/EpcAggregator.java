@@ -0,0 +1,138 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory sessiyası üçün EPC dedup / aggregation.
+ * Hər tag üçün firstSeen/lastSeen, oxu sayı və RSSI min/max/avg saxlanılır.
+ * Yaddaş TTL (son görülmədən keçən vaxt) və tutum (LRU) ilə məhduddur.
+ */
+final class EpcAggregator {
+
+  static final long DEFAULT_TTL_MS = 5 * 60_000L;
+  static final int DEFAULT_CAPACITY = 50_000;
+
+  static final class Stats {
+    final EpcKey key;
+    long firstSeen;
+    long lastSeen;
+    int count;
+    int countAtSummary;
+    int rssiMin = Integer.MAX_VALUE;
+    int rssiMax = Integer.MIN_VALUE;
+    long rssiSum;
+    boolean dirty;
+
+    Stats(EpcKey key, long now) {
+      this.key = key;
+      this.firstSeen = now;
+    }
+
+    boolean isNew() {
+      return count == 1;
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("epc", key.toHex());
+      m.put("count", count);
+      m.put("delta", count - countAtSummary);
+      m.put("firstSeen", firstSeen);
+      m.put("lastSeen", lastSeen);
+      m.put("rssiMin", rssiMin);
+      m.put("rssiMax", rssiMax);
+      m.put("rssiAvg", count > 0 ? (double) rssiSum / count : 0d);
+      return m;
+    }
+  }
+
+  private volatile long ttlMs = DEFAULT_TTL_MS;
+  private volatile int capacity = DEFAULT_CAPACITY;
+
+  // access-order: ən köhnə istifadə olunan birinci çıxır
+  private final LinkedHashMap<EpcKey, Stats> tags = new LinkedHashMap<EpcKey, Stats>(1024, 0.75f, true) {
+    @Override protected boolean removeEldestEntry(Map.Entry<EpcKey, Stats> eldest) {
+      if (size() > capacity) {
+        evicted++;
+        return true;
+      }
+      return false;
+    }
+  };
+  private final ArrayList<Stats> dirty = new ArrayList<>();
+  private long evicted = 0;
+
+  void configure(long ttlMs, int capacity) {
+    this.ttlMs = Math.max(1, ttlMs);
+    this.capacity = Math.max(1, capacity);
+  }
+
+  synchronized void reset() {
+    tags.clear();
+    dirty.clear();
+    evicted = 0;
+  }
+
+  /**
+   * Oxunu qeyd et; qaytarılan Stats.isNew() — sessiyada ilk dəfə görünür.
+   * key probe ola bilər — saxlanılan açar Stats.key-dir.
+   */
+  synchronized Stats observe(EpcKey key, int rssi, long now) {
+    Stats s = tags.get(key);
+    if (s == null) {
+      s = new Stats(key.copy(), now); // probe açarı saxlanılmır
+      tags.put(s.key, s);
+    }
+    s.lastSeen = now;
+    s.count++;
+    s.rssiSum += rssi;
+    if (rssi < s.rssiMin) s.rssiMin = rssi;
+    if (rssi > s.rssiMax) s.rssiMax = rssi;
+    if (!s.dirty) {
+      s.dirty = true;
+      dirty.add(s);
+    }
+    return s;
+  }
+
+  /** Son summary-dən bəri dəyişən tag-lar (delta) — sonra sayğaclar sıfırlanır. */
+  synchronized List<Map<String, Object>> drainSummary() {
+    if (dirty.isEmpty()) return null;
+    List<Map<String, Object>> out = new ArrayList<>(dirty.size());
+    for (Stats s : dirty) {
+      out.add(s.toMap());
+      s.countAtSummary = s.count;
+      s.dirty = false;
+    }
+    dirty.clear();
+    return out;
+  }
+
+  /** TTL keçmiş tag-ları sil. */
+  synchronized int evictExpired(long now) {
+    int removed = 0;
+    long cutoff = now - ttlMs;
+    Iterator<Stats> it = tags.values().iterator();
+    while (it.hasNext()) {
+      // access-order olduğu üçün ən köhnələr əvvəldədir
+      if (it.next().lastSeen >= cutoff) break;
+      it.remove();
+      removed++;
+    }
+    evicted += removed;
+    return removed;
+  }
+
+  synchronized int size() {
+    return tags.size();
+  }
+
+  synchronized long evictedCount() {
+    return evicted;
+  }
+}
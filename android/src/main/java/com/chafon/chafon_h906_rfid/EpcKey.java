@@ -0,0 +1,108 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.Arrays;
+
+/**
+ * EPC açarı — byte-lar üzərində (String/upper-case deyil). HashMap açarı kimi istifadə olunur.
+ * SDK-dan sink-ə qədər EPC byte kimi qalır; hex yalnız event üçün bir dəfə hesablanır.
+ */
+final class EpcKey {
+
+  /** Probe buferinin tutumu — EPC bankı ən çox 62 bayt (31 söz). */
+  private static final int PROBE_CAPACITY = 64;
+
+  final byte[] bytes;   // immutable açarda dəqiq uzunluq; probe-da bufer
+  private int len;
+  private int hash;
+  private String hex;   // lazy, event üçün
+  private final boolean probe;
+
+  EpcKey(byte[] bytes) {
+    this.bytes = bytes;
+    this.len = bytes.length;
+    this.hash = hashOf(bytes, 0, len);
+    this.probe = false;
+  }
+
+  private EpcKey() {
+    this.bytes = new byte[PROBE_CAPACITY];
+    this.probe = true;
+  }
+
+  /**
+   * Təkrar istifadə olunan axtarış açarı: set() ilə doldurulur, map.get() üçün istifadə olunur,
+   * saxlamaq lazım olanda copy(). Thread-lər arasında paylaşılmamalıdır.
+   */
+  static EpcKey probe() {
+    return new EpcKey();
+  }
+
+  /** SDK-nın verdiyi hex string-dən (böyük/kiçik hərf fərq etmir). */
+  static EpcKey fromHex(String hex) {
+    return new EpcKey(HexCodec.decode(hex));
+  }
+
+  /** Probe-u hex-dən doldur — yeni obyekt yaratmır. */
+  EpcKey set(String hexStr) {
+    if (!probe) throw new IllegalStateException("immutable EpcKey");
+    int n = 0;
+    if (hexStr != null) {
+      n = HexCodec.decodedLength(hexStr);
+      if (n > bytes.length) n = 0; // gözlənilməz uzun EPC — boş açar
+      else HexCodec.decode(hexStr, bytes, 0);
+    }
+    len = n;
+    hash = hashOf(bytes, 0, n);
+    hex = null;
+    return this;
+  }
+
+  /** Saxlanıla bilən (immutable) surət. */
+  EpcKey copy() {
+    if (!probe) return this;
+    return new EpcKey(Arrays.copyOf(bytes, len));
+  }
+
+  int length() {
+    return len;
+  }
+
+  /** i-ci bayt (0..length-1). */
+  byte byteAt(int i) {
+    return bytes[i];
+  }
+
+  String toHex() {
+    String h = hex;
+    if (h == null) {
+      h = HexCodec.encode(bytes, 0, len);
+      hex = h;
+    }
+    return h;
+  }
+
+  static int hashOf(byte[] b, int off, int n) {
+    int h = 1;
+    for (int i = off; i < off + n; i++) h = 31 * h + b[i];
+    return h;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof EpcKey)) return false;
+    EpcKey k = (EpcKey) o;
+    if (hash != k.hash || len != k.len) return false;
+    for (int i = 0; i < len; i++) {
+      if (bytes[i] != k.bytes[i]) return false;
+    }
+    return true;
+  }
+
+  @Override public int hashCode() {
+    return hash;
+  }
+
+  @Override public String toString() {
+    return toHex();
+  }
+}
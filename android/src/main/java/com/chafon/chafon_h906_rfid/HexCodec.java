@@ -0,0 +1,105 @@
+package com.chafon.chafon_h906_rfid;
+
+/**
+ * Cədvəl əsaslı hex kodlaşdırma — String.format / regex / toUpperCase olmadan.
+ * Tag yolunda (EPC/TID) hər oxuda çağırıldığı üçün əlavə obyekt yaratmır
+ * (yalnız nəticə String-i və ya çağıranın verdiyi bufer).
+ */
+final class HexCodec {
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+  private static final byte[] DEC = new byte[128];
+
+  static {
+    for (int i = 0; i < DEC.length; i++) DEC[i] = -1;
+    for (int i = 0; i < 10; i++) DEC['0' + i] = (byte) i;
+    for (int i = 0; i < 6; i++) {
+      DEC['A' + i] = (byte) (10 + i);
+      DEC['a' + i] = (byte) (10 + i);
+    }
+  }
+
+  private HexCodec() {}
+
+  /** Böyük hərfli hex. */
+  static String encode(byte[] bytes, int offset, int length) {
+    int end = Math.min(bytes.length, offset + length);
+    int n = Math.max(0, end - offset);
+    char[] out = new char[n * 2];
+    encode(bytes, offset, n, out, 0);
+    return new String(out);
+  }
+
+  static String encode(byte[] bytes) {
+    return encode(bytes, 0, bytes.length);
+  }
+
+  /** Çağıranın buferinə yaz; qaytarır: yazılan simvol sayı. */
+  static int encode(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+    int j = outOffset;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      int b = bytes[i] & 0xFF;
+      out[j++] = HEX[b >>> 4];
+      out[j++] = HEX[b & 0x0F];
+    }
+    return j - outOffset;
+  }
+
+  /** Boşluqlar nəzərə alınmadan hex rəqəm sayı. */
+  static int digitCount(CharSequence s) {
+    int n = 0;
+    for (int i = 0, len = s.length(); i < len; i++) {
+      if (!Character.isWhitespace(s.charAt(i))) n++;
+    }
+    return n;
+  }
+
+  /** Decode nəticəsinin bayt uzunluğu (tək sayda rəqəm — əvvəlinə "0"). */
+  static int decodedLength(CharSequence s) {
+    return s == null ? 0 : (digitCount(s) + 1) / 2;
+  }
+
+  static byte[] decode(CharSequence s) {
+    if (s == null) return new byte[0];
+    byte[] out = new byte[decodedLength(s)];
+    decode(s, out, 0);
+    return out;
+  }
+
+  /**
+   * out-a yaz (boşluqlar atlanır, tək uzunluqda əvvəlinə "0" sayılır).
+   * Qaytarır: yazılan bayt sayı. Hex olmayan simvol 0 kimi götürülür.
+   */
+  static int decode(CharSequence s, byte[] out, int outOffset) {
+    int digits = digitCount(s);
+    int n = (digits + 1) / 2;
+    int j = outOffset;
+    boolean high = (digits & 1) == 0; // tək sayda — birinci rəqəm aşağı nibble
+    int cur = 0;
+    for (int i = 0, len = s.length(); i < len; i++) {
+      char c = s.charAt(i);
+      if (Character.isWhitespace(c)) continue;
+      int v = c < 128 ? DEC[c] : -1;
+      if (v < 0) v = 0;
+      if (high) {
+        cur = v << 4;
+        high = false;
+      } else {
+        out[j++] = (byte) (cur | v);
+        cur = 0;
+        high = true;
+      }
+    }
+    return n;
+  }
+
+  /** Kiçik hərf yoxdursa eyni String qaytarılır (yeni obyekt yaranmır). */
+  static String upper(String s) {
+    if (s == null) return null;
+    for (int i = 0, len = s.length(); i < len; i++) {
+      char c = s.charAt(i);
+      if (c >= 'a' && c <= 'z') return s.toUpperCase();
+    }
+    return s;
+  }
+}
@@ -0,0 +1,333 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Inventory sessiyalarının cihazda append-only jurnalı (UI/engine çöksə də oxular itməsin).
+ * Callback oxunu əvvəlcədən ayrılmış chunk-a kopyalayır; dolu chunk (və ya round sonu)
+ * ayrıca "h906-journal" thread-inə verilir, orada TagEventCodec ilə kodlanıb buferli
+ * yazılır. Disk I/O heç vaxt reader thread-də olmur; boş chunk qalmayanda oxu atılır və sayılır.
+ *
+ * <pre>
+ * fayl:   header (16 bayt): "H9JL" | u8 version | 3 bayt boş | i64 startedAt(ms)
+ *         frame-lər:         u32 len | TagEventCodec bytes[len]
+ * </pre>
+ * Yarımçıq son frame (proses ölərkən) oxunarkən nəzərə alınmır.
+ */
+final class InventoryJournal {
+
+  static final String EXT = ".h906j";
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int CHUNK_SIZE = 512;
+  static final int POOL_SIZE = 8;
+  static final long SYNC_INTERVAL_MS = 5000;
+  static final int DEFAULT_READ_BYTES = 256 * 1024;
+  private static final byte[] MAGIC = {'H', '9', 'J', 'L'};
+  private static final Pattern SESSION_ID = Pattern.compile("[0-9A-Za-z_-]{1,64}");
+
+  /** Əvvəlcədən ayrılmış oxu slot-ları; TagEventCodec üçün List görünüşü. */
+  private static final class Chunk extends AbstractList<TagRead> {
+    final TagRead[] reads = new TagRead[CHUNK_SIZE];
+    int n;
+
+    Chunk() {
+      for (int i = 0; i < CHUNK_SIZE; i++) reads[i] = new TagRead();
+    }
+
+    @Override public TagRead get(int i) {
+      return reads[i];
+    }
+
+    @Override public int size() {
+      return n;
+    }
+  }
+
+  private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "h906-journal");
+    t.setDaemon(true);
+    return t;
+  });
+  private final ArrayBlockingQueue<Chunk> free = new ArrayBlockingQueue<>(POOL_SIZE);
+
+  private volatile File dir;
+  private volatile boolean recording = false;
+  private volatile String sessionId; // io thread yazır (fayl açıqdır)
+  private volatile String lastSession; // son open() — stats üçün
+  private Chunk active;          // append lock-u altında
+  private long appended = 0;
+  private long dropped = 0;
+
+  // io thread-ə məxsus (stats üçün volatile)
+  private DataOutputStream out;
+  private FileOutputStream fos;
+  private volatile long written = 0;
+  private volatile long bytes = 0;
+  private long lastSyncAt = 0;
+  private volatile String lastError;
+
+  InventoryJournal() {
+    for (int i = 0; i < POOL_SIZE; i++) free.add(new Chunk());
+  }
+
+  /** Jurnal qovluğu (tətbiqin files qovluğunda). null — jurnal mümkün deyil. */
+  void setDirectory(File dir) {
+    this.dir = dir;
+  }
+
+  boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Yeni sessiya aç (əvvəlki açıqdırsa bağlanır). Fayl io thread-də yaradılır.
+   * Qaytarır: sessiya id-si, qovluq yoxdursa null.
+   */
+  String open(final long startedAt) {
+    final File d = dir;
+    if (d == null) return null;
+    close();
+    final String id = String.valueOf(startedAt);
+    lastSession = id;
+    synchronized (this) {
+      appended = dropped = 0;
+    }
+    recording = true;
+    io.execute(() -> {
+      try {
+        if (!d.exists() && !d.mkdirs()) throw new IOException("cannot create " + d);
+        fos = new FileOutputStream(new File(d, id + EXT), true);
+        out = new DataOutputStream(new BufferedOutputStream(fos, 64 * 1024));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.write(new byte[3]);
+        out.writeLong(startedAt);
+        out.flush();
+        sessionId = id;
+        written = 0;
+        bytes = HEADER_SIZE;
+        lastSyncAt = System.currentTimeMillis();
+        lastError = null;
+      } catch (IOException e) {
+        recording = false;
+        lastError = e.getMessage();
+        closeQuietly();
+      }
+    });
+    return id;
+  }
+
+  /** SDK callback thread-dən: oxunu kopyala; chunk dolanda io thread-ə ver. */
+  void append(TagRead read) {
+    if (!recording) return;
+    Chunk full = null;
+    synchronized (this) {
+      if (active == null) {
+        active = free.poll();
+        if (active == null) {
+          dropped++; // io thread geri qalıb — hot path gözləmir
+          return;
+        }
+      }
+      active.reads[active.n++].copyFrom(read);
+      appended++;
+      if (active.n == CHUNK_SIZE) {
+        full = active;
+        active = null;
+      }
+    }
+    if (full != null) submit(full);
+  }
+
+  /** Yarımçıq chunk-ı da yazmağa ver (round sonu). */
+  void flush() {
+    Chunk c;
+    synchronized (this) {
+      c = active;
+      if (c == null || c.n == 0) return;
+      active = null;
+    }
+    submit(c);
+  }
+
+  /** Sessiyanı bağla: qalan oxular yazılır, fsync, fayl bağlanır. */
+  void close() {
+    if (!recording) return;
+    flush();
+    recording = false;
+    io.execute(() -> {
+      try {
+        if (out != null) {
+          out.flush();
+          fos.getFD().sync();
+        }
+      } catch (IOException e) {
+        lastError = e.getMessage();
+      }
+      closeQuietly();
+      sessionId = null;
+    });
+  }
+
+  private void submit(final Chunk c) {
+    io.execute(() -> {
+      try {
+        if (out != null && c.n > 0) {
+          byte[] frame = TagEventCodec.encode(c);
+          out.writeInt(frame.length);
+          out.write(frame);
+          out.flush(); // OS-ə — proses ölsə də qalır
+          written += c.n;
+          bytes += 4 + frame.length;
+          long now = System.currentTimeMillis();
+          if (now - lastSyncAt >= SYNC_INTERVAL_MS) {
+            lastSyncAt = now;
+            fos.getFD().sync();
+          }
+        }
+      } catch (IOException e) {
+        lastError = e.getMessage();
+      } finally {
+        c.n = 0;
+        free.offer(c);
+      }
+    });
+  }
+
+  private void closeQuietly() {
+    try { if (out != null) out.close(); } catch (IOException ignore) {}
+    out = null;
+    fos = null;
+  }
+
+  /** {session, appended, written, bytes, dropped, error?} — cari sessiya üçün. */
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    synchronized (this) {
+      m.put("appended", appended);
+      m.put("dropped", dropped);
+    }
+    m.put("recording", recording);
+    m.put("session", lastSession);
+    m.put("written", written);
+    m.put("bytes", bytes);
+    if (lastError != null) m.put("error", lastError);
+    return m;
+  }
+
+  // ---------------- sorğular (io thread-də icra olunur) ----------------
+
+  interface Callback {
+    void done(Object value, String error);
+  }
+
+  /** Sessiyalar, ən yenisi əvvəl: [{session, startedAt, bytes, open}] */
+  void list(final Callback cb) {
+    io.execute(() -> {
+      File d = dir;
+      List<Map<String, Object>> out = new ArrayList<>();
+      File[] files = d == null ? null : d.listFiles((f, name) -> name.endsWith(EXT));
+      if (files != null) {
+        for (File f : files) {
+          String id = f.getName().substring(0, f.getName().length() - EXT.length());
+          Map<String, Object> m = new HashMap<>();
+          m.put("session", id);
+          m.put("startedAt", readStartedAt(f));
+          m.put("bytes", f.length());
+          m.put("open", id.equals(sessionId));
+          out.add(m);
+        }
+      }
+      Collections.sort(out, (a, b) -> Long.compare((Long) b.get("startedAt"), (Long) a.get("startedAt")));
+      cb.done(out, null);
+    });
+  }
+
+  /**
+   * offset-dən başlayaraq ən çox maxBytes həcmində tam frame-lər:
+   * {session, offset, nextOffset, eof, chunks: [byte[] (TagEventCodec), ...]}.
+   * offset=0 — faylın əvvəli (header atlanır).
+   */
+  void read(final String id, final long offset, final int maxBytes, final Callback cb) {
+    io.execute(() -> {
+      File f = fileFor(id);
+      if (f == null || !f.exists()) {
+        cb.done(null, "no such session: " + id);
+        return;
+      }
+      try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+        long len = raf.length();
+        long pos = Math.max(HEADER_SIZE, offset);
+        int budget = Math.max(1, maxBytes);
+        int total = 0;
+        List<byte[]> chunks = new ArrayList<>();
+        while (pos + 4 <= len) {
+          raf.seek(pos);
+          int n = raf.readInt();
+          if (n < 0 || pos + 4 + n > len) break;           // yarımçıq frame
+          if (total > 0 && total + n > budget) break;
+          byte[] frame = new byte[n];
+          raf.readFully(frame);
+          chunks.add(frame);
+          total += n;
+          pos += 4 + n;
+        }
+        Map<String, Object> m = new HashMap<>();
+        m.put("session", id);
+        m.put("offset", offset);
+        m.put("nextOffset", pos);
+        m.put("eof", !id.equals(sessionId) && pos + 4 > len);
+        m.put("chunks", chunks);
+        cb.done(m, null);
+      } catch (IOException e) {
+        cb.done(null, e.getMessage());
+      }
+    });
+  }
+
+  /** Bağlı sessiyanı sil. Açıq sessiya silinmir. */
+  void delete(final String id, final Callback cb) {
+    io.execute(() -> {
+      File f = fileFor(id);
+      if (f == null) {
+        cb.done(null, "invalid session: " + id);
+      } else if (id.equals(sessionId)) {
+        cb.done(null, "session is recording: " + id);
+      } else {
+        cb.done(f.exists() && f.delete(), null);
+      }
+    });
+  }
+
+  private File fileFor(String id) {
+    File d = dir;
+    if (d == null || id == null || !SESSION_ID.matcher(id).matches()) return null;
+    return new File(d, id + EXT);
+  }
+
+  private static long readStartedAt(File f) {
+    try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+      if (raf.length() < HEADER_SIZE) return 0;
+      raf.seek(8);
+      return raf.readLong();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+}
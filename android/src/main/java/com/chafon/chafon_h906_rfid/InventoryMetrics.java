@@ -0,0 +1,173 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory sessiyasının canlı metrikləri: round müddəti, round başına cardNum, TID oxu
+ * gecikməsi və main thread post lag-ı histogramları + reads/s, unique/s, rounds/s sürətləri.
+ * Yazılar reader thread-dən (round sonu), post lag main thread-dən gəlir; oxu (toMap)
+ * istənilən thread-dən — bütün metodlar sinxronlaşdırılıb, tag başına çağırış yoxdur.
+ */
+final class InventoryMetrics {
+
+  static final double[] MS_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+  static final double[] COUNT_BOUNDS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+  /** Sabit sərhədli histogram; faizlər bucket-in yuxarı sərhədi ilə təxmin olunur. */
+  static final class Histogram {
+    private final double[] bounds;
+    private final long[] counts;
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+
+    Histogram(double[] bounds) {
+      this.bounds = bounds;
+      this.counts = new long[bounds.length + 1];
+    }
+
+    void record(double v) {
+      int i = 0;
+      while (i < bounds.length && v > bounds[i]) i++;
+      counts[i]++;
+      if (count == 0 || v < min) min = v;
+      if (count == 0 || v > max) max = v;
+      count++;
+      sum += v;
+    }
+
+    long count() {
+      return count;
+    }
+
+    double percentile(double p) {
+      if (count == 0) return 0;
+      long target = (long) Math.ceil(count * p);
+      long acc = 0;
+      for (int i = 0; i < counts.length; i++) {
+        acc += counts[i];
+        if (acc >= target) return i < bounds.length ? Math.min(bounds[i], max) : max;
+      }
+      return max;
+    }
+
+    void reset() {
+      Arrays.fill(counts, 0);
+      count = 0;
+      sum = min = max = 0;
+    }
+
+    /** {count, mean, min, max, p50, p90, p99, bounds: [...], counts: [...]} (son bucket — sonsuz) */
+    Map<String, Object> toMap() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("count", count);
+      m.put("mean", count == 0 ? 0.0 : sum / count);
+      m.put("min", min);
+      m.put("max", max);
+      m.put("p50", percentile(0.50));
+      m.put("p90", percentile(0.90));
+      m.put("p99", percentile(0.99));
+      List<Double> b = new ArrayList<>(bounds.length);
+      for (double v : bounds) b.add(v);
+      List<Long> c = new ArrayList<>(counts.length);
+      for (long v : counts) c.add(v);
+      m.put("bounds", b);
+      m.put("counts", c);
+      return m;
+    }
+  }
+
+  private final Histogram roundMs = new Histogram(MS_BOUNDS);
+  private final Histogram cardNum = new Histogram(COUNT_BOUNDS);
+  private final Histogram tidMs = new Histogram(MS_BOUNDS);
+  private final Histogram postLagMs = new Histogram(MS_BOUNDS);
+
+  private long startedAt = 0;
+  private long rounds = 0;
+  private long roundErrors = 0;
+  private int lastRc = 0;
+  private long reads = 0;
+  private long uniques = 0;
+  private long tidOk = 0;
+  private long tidFailed = 0;
+
+  // sürətlər: son tick pəncərəsi üzrə
+  private long rateAt = 0;
+  private long rateReads = 0;
+  private long rateUniques = 0;
+  private long rateRounds = 0;
+  private double readsPerSecond = 0;
+  private double uniquesPerSecond = 0;
+  private double roundsPerSecond = 0;
+
+  synchronized void reset(long now) {
+    roundMs.reset();
+    cardNum.reset();
+    tidMs.reset();
+    postLagMs.reset();
+    startedAt = rateAt = now;
+    rounds = roundErrors = reads = uniques = tidOk = tidFailed = 0;
+    rateReads = rateUniques = rateRounds = 0;
+    readsPerSecond = uniquesPerSecond = roundsPerSecond = 0;
+    lastRc = 0;
+  }
+
+  /** Inventory_G2 round-u: müddət, cardNum, callback oxuları, yeni EPC-lər, rc (commError — rabitə xətası). */
+  synchronized void onRound(double durationMs, int cards, int roundReads, int newTags, int rc, boolean commError) {
+    rounds++;
+    roundMs.record(durationMs);
+    cardNum.record(cards);
+    reads += roundReads;
+    uniques += newTags;
+    lastRc = rc;
+    if (commError) roundErrors++;
+  }
+
+  synchronized void onTidRead(double ms, boolean ok) {
+    tidMs.record(ms);
+    if (ok) tidOk++;
+    else tidFailed++;
+  }
+
+  synchronized void onPostLag(double ms) {
+    postLagMs.record(ms);
+  }
+
+  /** Sürətləri yenilə (reader thread, ~1 s-dən bir). */
+  synchronized void tick(long now) {
+    long span = now - rateAt;
+    if (span <= 0) return;
+    readsPerSecond = (reads - rateReads) * 1000.0 / span;
+    uniquesPerSecond = (uniques - rateUniques) * 1000.0 / span;
+    roundsPerSecond = (rounds - rateRounds) * 1000.0 / span;
+    rateAt = now;
+    rateReads = reads;
+    rateUniques = uniques;
+    rateRounds = rounds;
+  }
+
+  synchronized Map<String, Object> toMap(long now) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("uptimeMs", startedAt == 0 ? 0 : now - startedAt);
+    m.put("rounds", rounds);
+    m.put("roundErrors", roundErrors);
+    m.put("lastRc", lastRc);
+    m.put("reads", reads);
+    m.put("uniqueTags", uniques);
+    m.put("readsPerSecond", readsPerSecond);
+    m.put("uniquePerSecond", uniquesPerSecond);
+    m.put("roundsPerSecond", roundsPerSecond);
+    m.put("roundMs", roundMs.toMap());
+    m.put("cardNum", cardNum.toMap());
+    m.put("tidMs", tidMs.toMap());
+    m.put("tidOk", tidOk);
+    m.put("tidFailed", tidFailed);
+    m.put("postLagMs", postLagMs.toMap());
+    return m;
+  }
+}
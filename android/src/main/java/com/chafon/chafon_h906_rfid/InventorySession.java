@@ -0,0 +1,93 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bir inventory sessiyası: startInventory-dən stopInventory-yə qədər. Pause/resume arasında
+ * round runnable-ı, parametrlər, dedup/TID/metrik vəziyyəti saxlanılır — resume yalnız
+ * loop-u yenidən planlaşdırır. Aktiv və pauzada keçən vaxt ayrıca sayılır; stop-da
+ * yekun xülasə ({"sessionSummary": {...}}) buradan qurulur. Reader thread-dən dəyişdirilir.
+ */
+final class InventorySession {
+
+  static final String STATE_RUNNING = "running";
+  static final String STATE_PAUSED = "paused";
+  static final String STATE_STOPPED = "stopped";
+
+  final String id;
+  final Runnable round;
+  final Map<String, Object> settings; // cavablarda/xülasədə göstərilən effektiv parametrlər
+
+  private final long startedAtWall;
+  private final long startedAt;
+  private String state = STATE_RUNNING;
+  private long stateSince;
+  private long activeMs = 0;
+  private long pausedMs = 0;
+  private int pauses = 0;
+  private int paramWrites = 0;
+  private int paramWritesSkipped = 0;
+
+  InventorySession(String id, Runnable round, Map<String, Object> settings, long nowWall, long now) {
+    this.id = id;
+    this.round = round;
+    this.settings = settings;
+    this.startedAtWall = nowWall;
+    this.startedAt = now;
+    this.stateSince = now;
+  }
+
+  boolean isPaused() {
+    return STATE_PAUSED.equals(state);
+  }
+
+  void pause(long now) {
+    if (!STATE_RUNNING.equals(state)) return;
+    activeMs += now - stateSince;
+    state = STATE_PAUSED;
+    stateSince = now;
+    pauses++;
+  }
+
+  void resume(long now) {
+    if (!STATE_PAUSED.equals(state)) return;
+    pausedMs += now - stateSince;
+    state = STATE_RUNNING;
+    stateSince = now;
+  }
+
+  void stop(long now) {
+    if (STATE_STOPPED.equals(state)) return;
+    if (STATE_RUNNING.equals(state)) activeMs += now - stateSince;
+    else pausedMs += now - stateSince;
+    state = STATE_STOPPED;
+    stateSince = now;
+  }
+
+  /** Q/Session yazısı: written=false — reader-dəki blok artıq eyni idi. */
+  void onParams(boolean written) {
+    if (written) paramWrites++;
+    else paramWritesSkipped++;
+  }
+
+  long activeMs(long now) {
+    return activeMs + (STATE_RUNNING.equals(state) ? now - stateSince : 0);
+  }
+
+  /** {session, state, startedAt, durationMs, activeMs, pausedMs, pauses, paramWrites, paramWritesSkipped, settings} */
+  Map<String, Object> toMap(long now) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("session", id);
+    m.put("state", state);
+    m.put("startedAt", startedAtWall);
+    m.put("durationMs", (STATE_STOPPED.equals(state) ? stateSince : now) - startedAt);
+    m.put("activeMs", activeMs(now));
+    m.put("pausedMs", pausedMs + (STATE_PAUSED.equals(state) ? now - stateSince : 0));
+    m.put("pauses", pauses);
+    m.put("paramWrites", paramWrites);
+    m.put("paramWritesSkipped", paramWritesSkipped);
+    m.put("settings", settings);
+    return m;
+  }
+}
@@ -0,0 +1,310 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gözlənilən EPC siyahısı (stok, ~200k) üçün sıx indeks: EPC byte-ları bir arena massivində
+ * (u8 len | bytes), open-addressing cədvəli arena offset-lərini saxlayır; qarşısında
+ * istəyə görə Bloom filter (naməlum tag-ların çoxu cədvələ toxunmadan rədd olunur).
+ * Hər oxu üçün obyekt yaranmır. Qurulduqdan sonra dəyişmir; yalnız "seen" bitset-i və
+ * sayğaclar callback thread-dən yazılır.
+ */
+final class KnownTagIndex {
+
+  static final int MODE_OFF = 0;
+  static final int MODE_MARK = 1; // tag-a expected: true/false
+  static final int MODE_DROP = 2; // naməlum tag-lar göndərilmir
+
+  private static final int BLOOM_BITS_PER_ENTRY = 10;
+  private static final int BLOOM_HASHES = 4;
+
+  private final byte[] arena;
+  private final int[] table;   // arena offset + 1, 0 — boş
+  private final int[] hashes;  // slot-un EpcKey hash-i
+  private final int mask;
+  private final int size;
+  private final int duplicates;
+  private final long[] bloom;  // null — Bloom söndürülüb
+  private final int bloomMask;
+
+  private final long[] seen;   // slot üzrə bitset
+  private int seenCount = 0;
+  private long expectedReads = 0;
+  private long unexpectedReads = 0;
+  private long bloomRejects = 0;
+
+  static int parseMode(String mode, int def) {
+    if ("off".equals(mode)) return MODE_OFF;
+    if ("mark".equals(mode)) return MODE_MARK;
+    if ("drop".equals(mode)) return MODE_DROP;
+    return def;
+  }
+
+  static String modeName(int mode) {
+    return mode == MODE_DROP ? "drop" : mode == MODE_MARK ? "mark" : "off";
+  }
+
+  // ---------------- qurma ----------------
+
+  /** EPC-ləri arena-ya yığır, sonra build() ilə indeks qurur. */
+  static final class Builder {
+    private byte[] arena = new byte[1024];
+    private int used = 0;
+    private int count = 0;
+
+    Builder add(byte[] epc, int off, int len) {
+      if (len <= 0 || len > 255) return this;
+      if (used + 1 + len > arena.length) arena = Arrays.copyOf(arena, Math.max(arena.length * 2, used + 1 + len));
+      arena[used++] = (byte) len;
+      System.arraycopy(epc, off, arena, used, len);
+      used += len;
+      count++;
+      return this;
+    }
+
+    Builder addHex(String hex) {
+      if (hex == null) return this;
+      byte[] b = HexCodec.decode(hex);
+      return add(b, 0, b.length);
+    }
+
+    KnownTagIndex build(boolean withBloom) {
+      return new KnownTagIndex(Arrays.copyOf(arena, used), count, withBloom);
+    }
+  }
+
+  static KnownTagIndex fromHex(List<String> epcs, boolean withBloom) {
+    Builder b = new Builder();
+    for (String s : epcs) b.addHex(s);
+    return b.build(withBloom);
+  }
+
+  /** Binary blob: ardıcıl u8 len | epc[len] record-ları. */
+  static KnownTagIndex fromBlob(byte[] blob, boolean withBloom) {
+    Builder b = new Builder();
+    int p = 0;
+    while (p < blob.length) {
+      int n = blob[p++] & 0xFF;
+      if (p + n > blob.length) break;
+      b.add(blob, p, n);
+      p += n;
+    }
+    return b.build(withBloom);
+  }
+
+  /**
+   * Fayldan: binary=true — blob formatı; əks halda mətn (sətir başına bir EPC hex,
+   * CSV-də ilk sütun; boş və # ilə başlayan sətirlər atlanır).
+   */
+  static KnownTagIndex fromFile(File f, boolean binary, boolean withBloom) throws IOException {
+    if (binary) {
+      byte[] blob = new byte[(int) f.length()];
+      try (FileInputStream in = new FileInputStream(f)) {
+        int off = 0;
+        while (off < blob.length) {
+          int r = in.read(blob, off, blob.length - off);
+          if (r < 0) break;
+          off += r;
+        }
+      }
+      return fromBlob(blob, withBloom);
+    }
+    Builder b = new Builder();
+    try (BufferedReader in = new BufferedReader(
+            new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.charAt(0) == '#') continue;
+        int cut = firstSeparator(line);
+        b.addHex(cut < 0 ? line : line.substring(0, cut).trim());
+      }
+    }
+    return b.build(withBloom);
+  }
+
+  private static int firstSeparator(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == ',' || c == ';' || c == '\t') return i;
+    }
+    return -1;
+  }
+
+  private KnownTagIndex(byte[] arena, int count, boolean withBloom) {
+    this.arena = arena;
+    int cap = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1; // doluluq <= 0.5
+    this.table = new int[cap];
+    this.hashes = new int[cap];
+    this.mask = cap - 1;
+
+    if (withBloom) {
+      int bits = Integer.highestOneBit(Math.max(64, count * BLOOM_BITS_PER_ENTRY - 1)) << 1;
+      this.bloom = new long[bits >>> 6];
+      this.bloomMask = bits - 1;
+    } else {
+      this.bloom = null;
+      this.bloomMask = 0;
+    }
+
+    int n = 0;
+    int dup = 0;
+    for (int p = 0; p < arena.length; ) {
+      int len = arena[p] & 0xFF;
+      int h = EpcKey.hashOf(arena, p + 1, len);
+      int slot = find(arena, p + 1, len, h);
+      if (slot >= 0) {
+        dup++;
+      } else {
+        slot = -slot - 1;
+        table[slot] = p + 1;
+        hashes[slot] = h;
+        if (bloom != null) bloomAdd(h, fnv(arena, p + 1, len));
+        n++;
+      }
+      p += 1 + len;
+    }
+    this.size = n;
+    this.duplicates = dup;
+    this.seen = new long[(cap + 63) >>> 6];
+  }
+
+  // ---------------- axtarış ----------------
+
+  /** ≥0 — tapılan slot; <0 — -(boş slot)-1. */
+  private int find(byte[] b, int off, int len, int h) {
+    int i = mix(h) & mask;
+    while (true) {
+      int e = table[i];
+      if (e == 0) return -i - 1;
+      if (hashes[i] == h && sameBytes(e - 1, b, off, len)) return i;
+      i = (i + 1) & mask;
+    }
+  }
+
+  private boolean sameBytes(int at, byte[] b, int off, int len) {
+    if ((arena[at] & 0xFF) != len) return false;
+    for (int i = 0; i < len; i++) {
+      if (arena[at + 1 + i] != b[off + i]) return false;
+    }
+    return true;
+  }
+
+  boolean contains(EpcKey key) {
+    return slotOf(key) >= 0;
+  }
+
+  private int slotOf(EpcKey key) {
+    int h = key.hashCode();
+    if (bloom != null && !bloomMightContain(h, fnv(key.bytes, 0, key.length()))) {
+      bloomRejects++;
+      return -1;
+    }
+    int slot = find(key.bytes, 0, key.length(), h);
+    return slot >= 0 ? slot : -1;
+  }
+
+  /** Callback thread: oxunu yoxla, sayğacları və "seen" bitset-ini yenilə. */
+  boolean match(EpcKey key) {
+    int slot = slotOf(key);
+    if (slot < 0) {
+      unexpectedReads++;
+      return false;
+    }
+    expectedReads++;
+    long bit = 1L << (slot & 63);
+    if ((seen[slot >>> 6] & bit) == 0) {
+      seen[slot >>> 6] |= bit;
+      seenCount++;
+    }
+    return true;
+  }
+
+  void resetSeen() {
+    Arrays.fill(seen, 0);
+    seenCount = 0;
+    expectedReads = unexpectedReads = bloomRejects = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int duplicates() {
+    return duplicates;
+  }
+
+  /** Hələ oxunmamış gözlənilən EPC-lər (cədvəl sırası ilə): offset-dən ən çox limit. */
+  List<String> missing(int offset, int limit) {
+    List<String> out = new ArrayList<>();
+    int skipped = 0;
+    for (int i = 0; i < table.length && out.size() < limit; i++) {
+      if (table[i] == 0 || (seen[i >>> 6] & (1L << (i & 63))) != 0) continue;
+      if (skipped++ < offset) continue;
+      int at = table[i] - 1;
+      out.add(HexCodec.encode(arena, at + 1, arena[at] & 0xFF));
+    }
+    return out;
+  }
+
+  /** {size, duplicates, seen, missing, expectedReads, unexpectedReads, bloom, bloomRejects, bytes} */
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("size", size);
+    m.put("duplicates", duplicates);
+    m.put("seen", seenCount);
+    m.put("missing", size - seenCount);
+    m.put("expectedReads", expectedReads);
+    m.put("unexpectedReads", unexpectedReads);
+    m.put("bloom", bloom != null);
+    m.put("bloomRejects", bloomRejects);
+    long bytes = arena.length + table.length * 8L + seen.length * 8L + (bloom != null ? bloom.length * 8L : 0);
+    m.put("bytes", bytes);
+    return m;
+  }
+
+  // ---------------- hash / Bloom ----------------
+
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  private static int fnv(byte[] b, int off, int len) {
+    int h = 0x811C9DC5;
+    for (int i = off; i < off + len; i++) {
+      h ^= b[i] & 0xFF;
+      h *= 0x01000193;
+    }
+    return h | 1;
+  }
+
+  private void bloomAdd(int h1, int h2) {
+    int h = mix(h1);
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      int bit = (h + i * h2) & bloomMask;
+      bloom[bit >>> 6] |= 1L << (bit & 63);
+    }
+  }
+
+  private boolean bloomMightContain(int h1, int h2) {
+    int h = mix(h1);
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      int bit = (h + i * h2) & bloomMask;
+      if ((bloom[bit >>> 6] & (1L << (bit & 63))) == 0) return false;
+    }
+    return true;
+  }
+}
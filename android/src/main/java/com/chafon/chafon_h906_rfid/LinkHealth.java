@@ -0,0 +1,86 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reader bağlantısının canlılıq cache-i.
+ * Son uğurlu SDK çağırışından freshMs keçməyibsə GetReadParameter probe-u atlanır;
+ * son oxunmuş parametr bloku (Q/Session/...) da burada saxlanılır.
+ */
+final class LinkHealth {
+
+  static final long DEFAULT_FRESH_MS = 3000;
+
+  private volatile long freshMs = DEFAULT_FRESH_MS;
+  private volatile long lastOkAt = 0; // 0 — heç vaxt / etibarsız
+  private byte[] params;              // GetReadParameter bloku (6 bayt)
+
+  private long probes;
+  private long probeFailures;
+  private long probesSkipped;
+  private long probeNanosTotal;
+  private long probeNanosMax;
+  private long lastProbeNanos;
+
+  void setFreshMs(long freshMs) {
+    this.freshMs = Math.max(0, freshMs);
+  }
+
+  boolean isFresh() {
+    long t = lastOkAt;
+    return t != 0 && now() - t <= freshMs;
+  }
+
+  /** Reader-dən cavab gəldi (istənilən uğurlu komanda). */
+  void markOk() {
+    lastOkAt = now();
+  }
+
+  /** Komanda uğursuz oldu — növbəti dəfə mütləq probe. */
+  synchronized void invalidate() {
+    lastOkAt = 0;
+    params = null;
+  }
+
+  synchronized void skipped() {
+    probesSkipped++;
+  }
+
+  synchronized void recordProbe(long nanos, boolean ok) {
+    probes++;
+    if (!ok) probeFailures++;
+    probeNanosTotal += nanos;
+    lastProbeNanos = nanos;
+    if (nanos > probeNanosMax) probeNanosMax = nanos;
+    if (ok) markOk();
+    else invalidate();
+  }
+
+  /** Cache-dəki parametr blokunun surəti (yoxdursa null). */
+  synchronized byte[] params() {
+    return params != null ? Arrays.copyOf(params, params.length) : null;
+  }
+
+  synchronized void updateParams(byte[] block) {
+    params = Arrays.copyOf(block, block.length);
+  }
+
+  synchronized Map<String, Object> toMap() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("fresh", isFresh());
+    m.put("freshMs", freshMs);
+    m.put("probes", probes);
+    m.put("probeFailures", probeFailures);
+    m.put("probesSkipped", probesSkipped);
+    m.put("probeAvgMs", probes > 0 ? probeNanosTotal / 1e6 / probes : 0d);
+    m.put("probeMaxMs", probeNanosMax / 1e6);
+    m.put("probeLastMs", lastProbeNanos / 1e6);
+    return m;
+  }
+
+  private static long now() {
+    return System.nanoTime() / 1_000_000L;
+  }
+}
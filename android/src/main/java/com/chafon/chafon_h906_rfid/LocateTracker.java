@@ -0,0 +1,130 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tək tag axtarışı ("Geiger"): hədəf EPC-nin RSSI-si native tərəfdə hamarlanır və 0..1
+ * yaxınlıq dəyərinə çevrilir. Oxular SDK callback-dən (reader thread) allokasiyasız gəlir;
+ * UI sabit tezlikdə (main thread) snapshot() götürür — oxu sayından asılı olmayaraq.
+ * "kalman" — 1D Kalman (fasilə uzandıqca qeyri-müəyyənlik artır, yeni oxu daha çox çəki alır);
+ * "ema" — sabit alpha ilə eksponensial orta.
+ */
+final class LocateTracker {
+
+  static final String FILTER_KALMAN = "kalman";
+  static final String FILTER_EMA = "ema";
+
+  static final int DEFAULT_RSSI_MIN = 30;
+  static final int DEFAULT_RSSI_MAX = 80;
+  static final double DEFAULT_ALPHA = 0.35;
+  static final long HOLD_MS = 300;   // son oxudan sonra yaxınlıq bu qədər saxlanılır
+  static final long FADE_MS = 700;   // sonra xətti sönür
+
+  private static final double PROCESS_NOISE_PER_MS = 0.02; // RSSI² / ms — əl hərəkəti
+  private static final double MEASUREMENT_NOISE = 16;      // RSSI² — tək oxunun səpələnməsi
+
+  final EpcKey target;
+  private final boolean kalman;
+  private final double alpha;
+  private final int rssiMin;
+  private final int rssiMax;
+
+  // reader thread yazır, main thread oxuyur
+  private volatile double estimate = Double.NaN;
+  private volatile int lastRssi = 0;
+  private volatile int peakRssi = 0;
+  private volatile long lastSeenNanos = 0;
+  private volatile long reads = 0;
+  private volatile long rounds = 0;
+  private double variance = MEASUREMENT_NOISE;
+
+  // snapshot (main thread) — oxu sürəti
+  private long rateReads = 0;
+  private long rateAt = 0;
+  private double readsPerSecond = 0;
+
+  LocateTracker(EpcKey target, String filter, double alpha, int rssiMin, int rssiMax) {
+    this.target = target;
+    this.kalman = !FILTER_EMA.equals(filter);
+    this.alpha = alpha > 0 && alpha <= 1 ? alpha : DEFAULT_ALPHA;
+    this.rssiMin = Math.min(rssiMin, rssiMax - 1);
+    this.rssiMax = rssiMax;
+  }
+
+  String filter() {
+    return kalman ? FILTER_KALMAN : FILTER_EMA;
+  }
+
+  /** Reader thread (callback): hədəf deyilsə false. */
+  boolean onRead(EpcKey key, int rssi, long nowNanos) {
+    if (!target.equals(key)) return false;
+    double x = estimate;
+    if (Double.isNaN(x)) {
+      x = rssi;
+      variance = MEASUREMENT_NOISE;
+    } else if (kalman) {
+      double dtMs = (nowNanos - lastSeenNanos) / 1e6;
+      double p = variance + PROCESS_NOISE_PER_MS * Math.max(0, dtMs);
+      double k = p / (p + MEASUREMENT_NOISE);
+      x += k * (rssi - x);
+      variance = (1 - k) * p;
+    } else {
+      x += alpha * (rssi - x);
+    }
+    estimate = x;
+    lastRssi = rssi;
+    if (rssi > peakRssi) peakRssi = rssi;
+    lastSeenNanos = nowNanos;
+    reads++;
+    return true;
+  }
+
+  /** Reader thread: hər Inventory_G2 round-dan sonra. */
+  void onRound() {
+    rounds++;
+  }
+
+  long reads() {
+    return reads;
+  }
+
+  long rounds() {
+    return rounds;
+  }
+
+  /** 0..1: hamarlanmış RSSI [rssiMin, rssiMax]-da; HOLD_MS-dən sonra FADE_MS ərzində 0-a sönür. */
+  double proximity(long nowNanos) {
+    double x = estimate;
+    if (Double.isNaN(x)) return 0;
+    double p = Math.max(0, Math.min(1, (x - rssiMin) / (rssiMax - rssiMin)));
+    long ageMs = (nowNanos - lastSeenNanos) / 1_000_000L;
+    if (ageMs > HOLD_MS) p *= Math.max(0, 1 - (double) (ageMs - HOLD_MS) / FADE_MS);
+    return p;
+  }
+
+  /** Main thread: {epc, found, proximity, rssi, smoothed, peakRssi, ageMs, readsPerSecond, reads, rounds} */
+  Map<String, Object> snapshot(long nowNanos) {
+    long r = reads;
+    if (rateAt != 0 && nowNanos > rateAt) {
+      readsPerSecond = (r - rateReads) * 1e9 / (nowNanos - rateAt);
+    }
+    rateReads = r;
+    rateAt = nowNanos;
+
+    double x = estimate;
+    double prox = proximity(nowNanos);
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", target.toHex());
+    m.put("found", prox > 0);
+    m.put("proximity", prox);
+    m.put("rssi", lastRssi);
+    m.put("smoothed", Double.isNaN(x) ? 0d : x);
+    m.put("peakRssi", peakRssi);
+    m.put("ageMs", lastSeenNanos == 0 ? -1L : (nowNanos - lastSeenNanos) / 1_000_000L);
+    m.put("readsPerSecond", readsPerSecond);
+    m.put("reads", r);
+    m.put("rounds", rounds);
+    return m;
+  }
+}
@@ -0,0 +1,24 @@
+package com.chafon.chafon_h906_rfid;
+
+import android.os.Handler;
+
+/**
+ * EventChannel / MethodChannel cavablarının göndərildiyi thread. Tətbiqdə main Looper
+ * Handler-idir; testlərdə adi executor ilə əvəz olunur (Looper olmadan).
+ */
+interface MainExecutor {
+
+  void post(Runnable r);
+
+  void postDelayed(Runnable r, long delayMs);
+
+  void removeCallbacks(Runnable r);
+
+  static MainExecutor of(final Handler handler) {
+    return new MainExecutor() {
+      @Override public void post(Runnable r) { handler.post(r); }
+      @Override public void postDelayed(Runnable r, long delayMs) { handler.postDelayed(r, delayMs); }
+      @Override public void removeCallbacks(Runnable r) { handler.removeCallbacks(r); }
+    };
+  }
+}
@@ -0,0 +1,110 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventory_G2 maskalarının round-lar üzrə növbələnməsi.
+ * "cycle" — bərabər növbə; "weighted" — hələ də yeni tag tapan prefikslərə daha çox round
+ * (smooth weighted round-robin, çəki = baseWeight × (MIN_SHARE + yeni tag/round EMA)).
+ */
+final class MaskScheduler {
+
+  static final String STRATEGY_CYCLE = "cycle";
+  static final String STRATEGY_WEIGHTED = "weighted";
+
+  static final byte MEM_EPC = 1;
+  static final int EPC_BIT_PTR = 0x20; // PC-dən sonra
+
+  private static final double MIN_SHARE = 0.1;
+  private static final double ALPHA = 0.3;
+
+  static final class Mask {
+    final String hex;
+    final byte mem;
+    final byte[] adr;     // bit ünvanı, 2 bayt big-endian
+    final byte bitLen;
+    final byte[] data;
+    final double baseWeight;
+
+    long rounds;
+    long reads;
+    long newTags;
+    double yield;         // yeni tag / round, EMA
+    double credit;
+
+    Mask(String hex, byte[] data, int mem, int bitPtr, int bitLen, double weight) {
+      this.hex = hex;
+      this.data = data;
+      this.mem = (byte) mem;
+      this.adr = new byte[]{(byte) ((bitPtr >> 8) & 0xFF), (byte) (bitPtr & 0xFF)};
+      this.bitLen = (byte) Math.max(0, Math.min(255, Math.min(bitLen, data.length * 8)));
+      this.baseWeight = weight > 0 ? weight : 1;
+      this.yield = 1; // başlanğıcda hamısı "perspektivli"
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("mask", hex);
+      m.put("mem", (int) mem);
+      m.put("bitPtr", ((adr[0] & 0xFF) << 8) | (adr[1] & 0xFF));
+      m.put("bitLen", bitLen & 0xFF);
+      m.put("rounds", rounds);
+      m.put("reads", reads);
+      m.put("newTags", newTags);
+      m.put("yield", yield);
+      return m;
+    }
+  }
+
+  private final List<Mask> masks;
+  private final boolean weighted;
+
+  MaskScheduler(List<Mask> masks, String strategy) {
+    this.masks = masks;
+    this.weighted = !STRATEGY_CYCLE.equals(strategy);
+  }
+
+  boolean isEmpty() {
+    return masks.isEmpty();
+  }
+
+  int size() {
+    return masks.size();
+  }
+
+  /** Növbəti round üçün maska (maska yoxdursa null). */
+  Mask next() {
+    int n = masks.size();
+    if (n == 0) return null;
+    if (n == 1) return masks.get(0);
+
+    double total = 0;
+    Mask best = null;
+    for (int i = 0; i < n; i++) {
+      Mask m = masks.get(i);
+      double w = weighted ? m.baseWeight * (MIN_SHARE + m.yield) : 1;
+      m.credit += w;
+      total += w;
+      if (best == null || m.credit > best.credit) best = m;
+    }
+    best.credit -= total;
+    return best;
+  }
+
+  void onRound(Mask m, int reads, int newTags) {
+    if (m == null) return;
+    m.rounds++;
+    m.reads += reads;
+    m.newTags += newTags;
+    m.yield += ALPHA * (newTags - m.yield);
+  }
+
+  List<Map<String, Object>> stats() {
+    List<Map<String, Object>> out = new ArrayList<>(masks.size());
+    for (Mask m : masks) out.add(m.toMap());
+    return out;
+  }
+}
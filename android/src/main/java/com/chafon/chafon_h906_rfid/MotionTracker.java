@@ -0,0 +1,242 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tag hərəkəti: hər aktiv EPC üçün sabit ölçülü (vaxt, RSSI) halqa buferi — primitiv
+ * massivlər, track obyektləri pool-dan təkrar istifadə olunur. Buferdən trend (RSSI/s,
+ * xətti reqressiya), dwell və pik anı hesablanır; Dart-a yalnız vəziyyət keçidləri gedir:
+ * appeared → approaching → passedPeak → departed, və ya static (yerində duran tag).
+ * onRead/sweep reader thread-dən (callback / round-lar arası) çağırılır.
+ */
+final class MotionTracker {
+
+  static final String APPEARED = "appeared";
+  static final String APPROACHING = "approaching";
+  static final String PASSED_PEAK = "passedPeak";
+  static final String STATIC = "static";
+  static final String DEPARTED = "departed";
+
+  static final int DEFAULT_WINDOW = 16;
+  static final int DEFAULT_CAPACITY = 2048;
+  static final long DEFAULT_DEPART_MS = 1500;
+  static final long DEFAULT_STATIC_MS = 3000;
+  static final double DEFAULT_TREND = 4.0; // RSSI/s
+
+  private static final int MIN_SAMPLES = 4;
+  private static final int PEAK_DROP = 3;  // pikdən bu qədər aşağı — pik keçilib
+  private static final double MIN_CHANGE = 3; // pəncərə boyu trend × müddət — bundan az dəyişim jitter sayılır
+
+  private static final class Track {
+    EpcKey key;
+    final long[] ts;
+    final short[] rssi;
+    int head;           // növbəti yazı indeksi
+    int count;
+    long firstSeen;
+    long lastSeen;
+    long stateSince;
+    long movingAt;      // trend son dəfə həddən böyük olan an
+    long reads;
+    int peakRssi;
+    long peakAt;
+    double trend;
+    String state;
+
+    Track(int window) {
+      ts = new long[window];
+      rssi = new short[window];
+    }
+
+    void reset(EpcKey key, long now) {
+      this.key = key;
+      head = 0;
+      count = 0;
+      firstSeen = lastSeen = stateSince = movingAt = now;
+      reads = 0;
+      peakRssi = 0;
+      peakAt = now;
+      trend = 0;
+      state = APPEARED;
+    }
+
+    void add(long now, int r) {
+      ts[head] = now;
+      rssi[head] = (short) r;
+      head = (head + 1) % ts.length;
+      if (count < ts.length) count++;
+      lastSeen = now;
+      reads++;
+      if (r >= peakRssi) {
+        peakRssi = r;
+        peakAt = now;
+      }
+    }
+
+    /** Buferdəki nöqtələr üzrə xətti reqressiya mailliyi, RSSI/s. */
+    double slope() {
+      int n = count;
+      if (n < 2) return 0;
+      int w = ts.length;
+      int start = (head - n + w) % w;
+      long t0 = ts[start];
+      double sx = 0, sy = 0, sxx = 0, sxy = 0;
+      for (int i = 0; i < n; i++) {
+        int j = (start + i) % w;
+        double x = (ts[j] - t0) / 1000.0;
+        double y = rssi[j];
+        sx += x;
+        sy += y;
+        sxx += x * x;
+        sxy += x * y;
+      }
+      double den = n * sxx - sx * sx;
+      return den > 1e-9 ? (n * sxy - sx * sy) / den : 0;
+    }
+
+    /** Buferdəki ilk və son nöqtə arası, saniyə. */
+    double span() {
+      int w = ts.length;
+      return (ts[(head - 1 + w) % w] - ts[(head - count + w) % w]) / 1000.0;
+    }
+
+    int last() {
+      return rssi[(head - 1 + ts.length) % ts.length];
+    }
+  }
+
+  private final int window;
+  private final int capacity;
+  private final long departMs;
+  private final long staticMs;
+  private final double trendThreshold;
+  private final Map<EpcKey, Track> active = new HashMap<>();
+  private final ArrayDeque<Track> pool = new ArrayDeque<>();
+  private List<Map<String, Object>> pending = null;
+  private long transitions = 0;
+  private long overflow = 0;
+
+  MotionTracker(int window, int capacity, long departMs, long staticMs, double trendThreshold) {
+    this.window = Math.max(MIN_SAMPLES, Math.min(256, window));
+    this.capacity = Math.max(1, capacity);
+    this.departMs = Math.max(1, departMs);
+    this.staticMs = Math.max(1, staticMs);
+    this.trendThreshold = trendThreshold > 0 ? trendThreshold : DEFAULT_TREND;
+  }
+
+  int activeCount() {
+    return active.size();
+  }
+
+  /** key — immutable açar (aggregator-dan); yeni tag üçün pool-dan track götürülür. */
+  void onRead(EpcKey key, int rssi, long now) {
+    Track t = active.get(key);
+    if (t == null) {
+      if (active.size() >= capacity) {
+        overflow++;
+        return;
+      }
+      t = pool.isEmpty() ? new Track(window) : pool.poll();
+      t.reset(key, now);
+      active.put(key, t);
+      t.add(now, rssi);
+      emit(t, null, now);
+      return;
+    }
+    t.add(now, rssi);
+    if (t.count < MIN_SAMPLES) return;
+    t.trend = t.slope();
+    String next = nextState(t, now);
+    if (next != null) transition(t, next, now);
+  }
+
+  private String nextState(Track t, long now) {
+    double change = t.trend * t.span();
+    boolean rising = t.trend >= trendThreshold && change >= MIN_CHANGE;
+    boolean falling = t.trend <= -trendThreshold && change <= -MIN_CHANGE;
+    if (rising || falling) t.movingAt = now;
+    switch (t.state) {
+      case APPEARED:
+      case STATIC:
+        if (rising) return APPROACHING;
+        break;
+      case APPROACHING:
+        if (falling && t.last() <= t.peakRssi - PEAK_DROP) return PASSED_PEAK;
+        break;
+      case PASSED_PEAK:
+        if (rising) return APPROACHING; // geri qayıdır
+        break;
+      default:
+        break;
+    }
+    // staticMs ərzində trend həddi keçməyib (pik ətrafındakı qısa düzlük sayılmır)
+    if (!STATIC.equals(t.state) && now - t.movingAt >= staticMs) return STATIC;
+    return null;
+  }
+
+  private void transition(Track t, String next, long now) {
+    String prev = t.state;
+    t.state = next;
+    t.stateSince = now;
+    emit(t, prev, now);
+  }
+
+  /** Round-lar arası: departMs ərzində oxunmayan tag-lar departed, track pool-a qayıdır. */
+  void sweep(long now) {
+    Iterator<Track> it = active.values().iterator();
+    while (it.hasNext()) {
+      Track t = it.next();
+      if (now - t.lastSeen < departMs) continue;
+      String prev = t.state;
+      t.state = DEPARTED;
+      emit(t, prev, t.lastSeen);
+      it.remove();
+      t.key = null;
+      pool.push(t);
+    }
+  }
+
+  /** Sessiya sonu: qalan tag-lar departed kimi bağlanır. */
+  void closeAll() {
+    sweep(Long.MAX_VALUE);
+  }
+
+  private void emit(Track t, String prev, long at) {
+    transitions++;
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", t.key.toHex());
+    m.put("state", t.state);
+    if (prev != null) m.put("from", prev);
+    m.put("at", at);
+    m.put("dwellMs", t.lastSeen - t.firstSeen);
+    m.put("peakRssi", t.peakRssi);
+    m.put("peakAt", t.peakAt);
+    m.put("rssi", t.last());
+    m.put("trend", t.trend);
+    m.put("reads", t.reads);
+    if (pending == null) pending = new ArrayList<>();
+    pending.add(m);
+  }
+
+  /** Yığılmış keçidlər (yoxdursa null) — {"motion": [...]} event-i üçün. */
+  List<Map<String, Object>> drain() {
+    List<Map<String, Object>> out = pending;
+    pending = null;
+    return out;
+  }
+
+  /** {active, transitions, overflow, window} */
+  Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("active", active.size());
+    m.put("transitions", transitions);
+    m.put("overflow", overflow);
+    m.put("window", window);
+    return m;
+  }
+}
@@ -0,0 +1,194 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RF gücünün kalibrasiyası: güc səviyyələri artan sıra ilə keçilir, hər səviyyədə qısa
+ * Inventory_G2 seriyası (burstRounds round) — unikal tag sayı və oxu sürəti qeyd olunur.
+ * Tövsiyə — hədəf əhatəyə (coverage) çatan ən aşağı güc: çox güc qonşu rəflərdən
+ * cross-read verir, az güc tag buraxır. Əhatənin məxrəci: expectedCount, KnownTagIndex
+ * yüklüdürsə gözlənilən tag-lar, yoxdursa sweep-də görülən maksimum.
+ * Bir səviyyə — bir reader komandası (plugin növbəti səviyyəni ayrıca planlaşdırır).
+ */
+final class PowerCalibrator {
+
+  static final int MIN_POWER = 0;
+  static final int MAX_POWER = 33;
+  static final int DEFAULT_FROM = 5;
+  static final int DEFAULT_TO = 30;
+  static final int DEFAULT_STEP = 5;
+  static final int DEFAULT_BURST_ROUNDS = 5;
+  static final double DEFAULT_TARGET_COVERAGE = 0.98;
+
+  private static final class Level {
+    final int power;
+    final Set<EpcKey> seen = new HashSet<>();
+    long reads;
+    int expected;   // known index-də olanlar
+    int unexpected; // olmayanlar (cross-read namizədləri)
+    int rounds;
+    long ms;
+
+    Level(int power) {
+      this.power = power;
+    }
+  }
+
+  final int id;
+  private final int[] powers;
+  private final int burstRounds;
+  private final double targetCoverage;
+  private final int expectedCount;
+  private final KnownTagIndex known;
+  private final List<Level> done = new ArrayList<>();
+  private final EpcKey probe = EpcKey.probe();
+  private Level current;
+  private int next = 0;
+  private volatile boolean cancelled = false;
+
+  PowerCalibrator(int id, int from, int to, int step, int burstRounds, double targetCoverage,
+                  int expectedCount, KnownTagIndex known) {
+    this.id = id;
+    int lo = clamp(Math.min(from, to));
+    int hi = clamp(Math.max(from, to));
+    int st = Math.max(1, step);
+    int n = (hi - lo) / st + 1;
+    if ((hi - lo) % st != 0) n++; // son səviyyə həmişə hi
+    powers = new int[n];
+    for (int i = 0; i < n; i++) powers[i] = Math.min(hi, lo + i * st);
+    this.burstRounds = Math.max(1, burstRounds);
+    this.targetCoverage = targetCoverage > 0 && targetCoverage <= 1 ? targetCoverage : DEFAULT_TARGET_COVERAGE;
+    this.expectedCount = Math.max(0, expectedCount);
+    this.known = known;
+  }
+
+  private static int clamp(int p) {
+    return Math.max(MIN_POWER, Math.min(MAX_POWER, p));
+  }
+
+  int levels() {
+    return powers.length;
+  }
+
+  int burstRounds() {
+    return burstRounds;
+  }
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /** Növbəti səviyyəyə keç; qaytarır: onun gücü, bitibsə -1. */
+  int begin() {
+    if (cancelled || next >= powers.length || (next > 0 && reachedWithKnownTotal())) return -1;
+    current = new Level(powers[next++]);
+    return current.power;
+  }
+
+  /** Reader thread (callback): cari səviyyədə oxu. */
+  void onRead(String epcHex) {
+    Level l = current;
+    if (l == null) return;
+    l.reads++;
+    EpcKey k = probe.set(epcHex);
+    if (l.seen.contains(k)) return;
+    k = k.copy();
+    l.seen.add(k);
+    if (known != null) {
+      if (known.contains(k)) l.expected++; // match() "seen" işarələyər — burada yox
+      else l.unexpected++;
+    }
+  }
+
+  void onRound() {
+    Level l = current;
+    if (l != null) l.rounds++;
+  }
+
+  /** Cari səviyyəni bağla; qaytarır: onun nəticəsi ({"powerCalibration"} progress üçün). */
+  Map<String, Object> end(long ms) {
+    Level l = current;
+    current = null;
+    if (l == null) return null;
+    l.ms = ms;
+    done.add(l);
+    return levelMap(l, denominator());
+  }
+
+  /** Gözlənilən say məlumdursa, hədəfə çatan səviyyədən yuxarı getməyə ehtiyac yoxdur. */
+  private boolean reachedWithKnownTotal() {
+    int total = knownTotal();
+    if (total <= 0 || done.isEmpty()) return false;
+    return counted(done.get(done.size() - 1)) >= targetCoverage * total;
+  }
+
+  private int knownTotal() {
+    if (expectedCount > 0) return expectedCount;
+    return known != null ? known.size() : 0;
+  }
+
+  private int counted(Level l) {
+    return known != null ? l.expected : l.seen.size();
+  }
+
+  private int denominator() {
+    int total = knownTotal();
+    if (total > 0) return total;
+    int max = 0;
+    for (Level l : done) max = Math.max(max, l.seen.size());
+    return max;
+  }
+
+  private Map<String, Object> levelMap(Level l, int denom) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("power", l.power);
+    m.put("uniqueTags", l.seen.size());
+    m.put("reads", l.reads);
+    m.put("rounds", l.rounds);
+    m.put("ms", l.ms);
+    m.put("readsPerSecond", l.ms > 0 ? l.reads * 1000.0 / l.ms : 0d);
+    m.put("coverage", denom > 0 ? Math.min(1.0, (double) counted(l) / denom) : 0d);
+    if (known != null) {
+      m.put("expected", l.expected);
+      m.put("unexpected", l.unexpected);
+    }
+    return m;
+  }
+
+  /** Hədəfə çatan ən aşağı güc; heç biri çatmayıbsa ən yaxşı əhatəli (-1 — ölçü yoxdur). */
+  int suggestedPower() {
+    int denom = denominator();
+    if (denom <= 0) return -1;
+    Level best = null;
+    for (Level l : done) {
+      if (counted(l) >= targetCoverage * denom) return l.power;
+      if (best == null || counted(l) > counted(best)) best = l;
+    }
+    return best != null ? best.power : -1;
+  }
+
+  /** {id, finished, cancelled, levels: [...], suggestedPower, targetCoverage, denominator} */
+  Map<String, Object> result() {
+    int denom = denominator();
+    List<Map<String, Object>> levels = new ArrayList<>(done.size());
+    for (Level l : done) levels.add(levelMap(l, denom));
+    Map<String, Object> m = new HashMap<>();
+    m.put("id", id);
+    m.put("finished", true);
+    m.put("cancelled", cancelled);
+    m.put("levels", levels);
+    m.put("suggestedPower", suggestedPower());
+    m.put("targetCoverage", targetCoverage);
+    m.put("denominator", denom);
+    return m;
+  }
+}
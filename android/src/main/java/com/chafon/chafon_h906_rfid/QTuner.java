@@ -0,0 +1,71 @@
+package com.chafon.chafon_h906_rfid;
+
+/**
+ * Adaptiv anti-collision: hər Inventory_G2 round-unun tag sayına görə Q (0..15) seçimi.
+ * Frame ölçüsü (2^Q) tag populyasiyasına yaxın olanda hava vaxtı ən səmərəli istifadə olunur:
+ * sıx palet — yüksək Q, seyrək rəf — aşağı Q. Q hər dəfə ən çox 1 addım, histerezis ilə dəyişir.
+ */
+final class QTuner {
+
+  private static final double ALPHA = 0.3;      // EMA çəkisi
+  private static final double HEADROOM = 1.5;   // frame ölçüsü populyasiyadan bir qədər böyük
+  private static final int STABLE_ROUNDS = 2;   // eyni istiqamətdə neçə round-dan sonra dəyiş
+
+  private final int minQ;
+  private final int maxQ;
+  private int q;
+  private double population = -1;
+  private int pressure = 0; // + yuxarı, - aşağı
+
+  QTuner(int initialQ, int minQ, int maxQ) {
+    this.minQ = Math.max(0, Math.min(15, minQ));
+    this.maxQ = Math.max(this.minQ, Math.min(15, maxQ));
+    this.q = Math.max(this.minQ, Math.min(this.maxQ, initialQ));
+  }
+
+  int q() {
+    return q;
+  }
+
+  /** Populyasiya təxmini (round başına tag, EMA). */
+  double population() {
+    return Math.max(0, population);
+  }
+
+  /** Q üçün uyğun ScanTime (100 ms vahidi ilə): böyük frame — uzun round. */
+  int scanTime() {
+    return Math.max(3, Math.min(20, 2 + q));
+  }
+
+  /**
+   * Round nəticəsini qeyd et. tags — round-da oxunan tag sayı (cardNum və ya callback sayı).
+   * true — Q dəyişdi.
+   */
+  boolean onRound(int tags) {
+    double n = Math.max(0, tags);
+    population = population < 0 ? n : population + ALPHA * (n - population);
+
+    int target = idealQ(population);
+    if (target > q) pressure = Math.max(1, pressure + 1);
+    else if (target < q) pressure = Math.min(-1, pressure - 1);
+    else pressure = 0;
+
+    if (pressure >= STABLE_ROUNDS && q < maxQ) {
+      q++;
+      pressure = 0;
+      return true;
+    }
+    if (pressure <= -STABLE_ROUNDS && q > minQ) {
+      q--;
+      pressure = 0;
+      return true;
+    }
+    return false;
+  }
+
+  private int idealQ(double pop) {
+    double slots = pop * HEADROOM + 1;
+    int iq = (int) Math.ceil(Math.log(slots) / Math.log(2));
+    return Math.max(minQ, Math.min(maxQ, iq));
+  }
+}
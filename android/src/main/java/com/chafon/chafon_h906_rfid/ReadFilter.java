@@ -0,0 +1,227 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native oxu filtri: startInventory({filter: {...}}) spesifikasiyası bir dəfə predikat
+ * zəncirinə kompilyasiya olunur, tagCallback hər oxu üçün accept() çağırır — rədd olunan oxu
+ * aggregator / jurnal / EventSink-ə çatmır. Zəncir sırası sabitdir: ucuz (stateless) qaydalar
+ * əvvəl, read-count qapısı sonda (yalnız digər qaydalardan keçən oxular sayılır).
+ * accept() allokasiya etmir; yalnız qapı yeni tag üçün bir dəfə halqa buferi yaradır.
+ *
+ * Spesifikasiya: {int rssiMin, List<String> epcPrefixes (hex, nibble dəqiqliyi),
+ *   List<int> epcBits (məs. [96, 128]), int minReads, int readWindowMs=1000,
+ *   List<String> tidEpcPrefixes (includeTid yalnız bu EPC-lər üçün), int gateCapacity=50000}
+ */
+final class ReadFilter {
+
+  static final long DEFAULT_READ_WINDOW_MS = 1000;
+  static final int DEFAULT_GATE_CAPACITY = 50_000;
+  static final int MAX_MIN_READS = 64;
+  private static final int MAX_EPC_BITS = 64 * 8; // EpcKey probe tutumu
+
+  /** Zəncir halqası: oxu keçirsə true. */
+  interface Rule {
+    boolean test(EpcKey epc, int rssi, long now);
+  }
+
+  private final Rule[] chain;
+  private final String[] names;
+  private final long[] dropped;
+  private final Prefix[] tidPrefixes;
+  private long accepted = 0;
+
+  private ReadFilter(List<Rule> rules, List<String> names, Prefix[] tidPrefixes) {
+    this.chain = rules.toArray(new Rule[0]);
+    this.names = names.toArray(new String[0]);
+    this.dropped = new long[chain.length];
+    this.tidPrefixes = tidPrefixes;
+  }
+
+  /** null / boş spesifikasiya — null (filtr yoxdur). Səhv dəyər — IllegalArgumentException. */
+  static ReadFilter compile(Map<String, Object> spec) {
+    if (spec == null || spec.isEmpty()) return null;
+    List<Rule> rules = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+
+    List<?> bitsArg = list(spec, "epcBits");
+    if (bitsArg != null && !bitsArg.isEmpty()) {
+      final boolean[] allowed = new boolean[MAX_EPC_BITS + 1];
+      for (Object o : bitsArg) {
+        int bits = intOf(o, "epcBits");
+        if (bits <= 0 || bits > MAX_EPC_BITS || bits % 8 != 0) {
+          throw new IllegalArgumentException("epcBits: " + bits + " is not a byte-aligned EPC length");
+        }
+        allowed[bits] = true;
+      }
+      rules.add((epc, rssi, now) -> allowed[epc.length() * 8]);
+      names.add("epcBits");
+    }
+
+    final Prefix[] prefixes = prefixes(spec, "epcPrefixes");
+    if (prefixes.length > 0) {
+      rules.add((epc, rssi, now) -> anyMatch(prefixes, epc));
+      names.add("epcPrefix");
+    }
+
+    Object rssiArg = spec.get("rssiMin");
+    if (rssiArg != null) {
+      final int min = intOf(rssiArg, "rssiMin");
+      rules.add((epc, rssi, now) -> rssi >= min);
+      names.add("rssiMin");
+    }
+
+    Object minReadsArg = spec.get("minReads");
+    int minReads = minReadsArg != null ? intOf(minReadsArg, "minReads") : 1;
+    if (minReads > MAX_MIN_READS) throw new IllegalArgumentException("minReads must be <= " + MAX_MIN_READS);
+    if (minReads > 1) {
+      Object windowArg = spec.get("readWindowMs");
+      long window = windowArg != null ? intOf(windowArg, "readWindowMs") : DEFAULT_READ_WINDOW_MS;
+      if (window <= 0) throw new IllegalArgumentException("readWindowMs must be > 0");
+      Object capArg = spec.get("gateCapacity");
+      rules.add(new ReadGate(minReads, window, capArg != null ? intOf(capArg, "gateCapacity") : DEFAULT_GATE_CAPACITY));
+      names.add("minReads");
+    }
+
+    Prefix[] tid = prefixes(spec, "tidEpcPrefixes");
+    if (rules.isEmpty() && tid.length == 0) return null;
+    return new ReadFilter(rules, names, tid);
+  }
+
+  /** Reader thread (callback): epc — probe ola bilər, saxlanılmır (qapı lazım olsa copy edir). */
+  boolean accept(EpcKey epc, int rssi, long now) {
+    final Rule[] c = chain;
+    for (int i = 0; i < c.length; i++) {
+      if (!c[i].test(epc, rssi, now)) {
+        dropped[i]++;
+        return false;
+      }
+    }
+    accepted++;
+    return true;
+  }
+
+  /** includeTid olanda: bu EPC üçün TID oxunsunmu (tidEpcPrefixes yoxdursa hamısı). */
+  boolean wantsTid(EpcKey epc) {
+    return tidPrefixes.length == 0 || anyMatch(tidPrefixes, epc);
+  }
+
+  /** {rules: [...], accepted, dropped: {qayda: say}} */
+  Map<String, Object> stats() {
+    Map<String, Object> drops = new HashMap<>();
+    long total = 0;
+    for (int i = 0; i < names.length; i++) {
+      drops.put(names[i], dropped[i]);
+      total += dropped[i];
+    }
+    Map<String, Object> m = new HashMap<>();
+    List<String> rules = new ArrayList<>(names.length);
+    for (String n : names) rules.add(n);
+    m.put("rules", rules);
+    m.put("accepted", accepted);
+    m.put("droppedTotal", total);
+    m.put("dropped", drops);
+    if (tidPrefixes.length > 0) m.put("tidEpcPrefixes", tidPrefixes.length);
+    return m;
+  }
+
+  // ---- qaydalar ----
+
+  /** EPC hex prefiksi, nibble dəqiqliyi ilə ("30F" — 12 bit). */
+  private static final class Prefix {
+    final byte[] bytes; // tək nibble sonda yuxarı yarıda
+    final int nibbles;
+
+    Prefix(String hex) {
+      nibbles = hex.length();
+      bytes = new byte[(nibbles + 1) / 2];
+      for (int i = 0; i < nibbles; i++) {
+        int d = Character.digit(hex.charAt(i), 16);
+        if (d < 0) throw new IllegalArgumentException("invalid hex prefix: " + hex);
+        bytes[i / 2] |= (byte) ((i % 2 == 0) ? d << 4 : d);
+      }
+    }
+
+    boolean matches(EpcKey epc) {
+      if (epc.length() * 2 < nibbles) return false;
+      int full = nibbles / 2;
+      for (int i = 0; i < full; i++) {
+        if (epc.byteAt(i) != bytes[i]) return false;
+      }
+      return (nibbles & 1) == 0 || (epc.byteAt(full) & 0xF0) == (bytes[full] & 0xF0);
+    }
+  }
+
+  private static boolean anyMatch(Prefix[] prefixes, EpcKey epc) {
+    for (Prefix p : prefixes) {
+      if (p.matches(epc)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * minReads oxu readWindowMs ərzində: tag başına son minReads oxunun vaxtı (halqa).
+   * Cari oxu ilə birlikdə son minReads oxu pəncərəyə sığırsa keçir — tək-tük (küy) oxular
+   * süzülür, davamlı oxunan tag-ın sonrakı oxuları keçir. Ən köhnə istifadə olunan tag
+   * gateCapacity-dən sonra unudulur.
+   */
+  private static final class ReadGate implements Rule {
+    private final int minReads;
+    private final long windowMs;
+    private final LinkedHashMap<EpcKey, long[]> recent;
+
+    ReadGate(int minReads, long windowMs, final int capacity) {
+      this.minReads = minReads;
+      this.windowMs = windowMs;
+      this.recent = new LinkedHashMap<EpcKey, long[]>(1024, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<EpcKey, long[]> eldest) {
+          return size() > Math.max(1, capacity);
+        }
+      };
+    }
+
+    @Override public boolean test(EpcKey epc, int rssi, long now) {
+      long[] ring = recent.get(epc);
+      if (ring == null) {
+        ring = new long[minReads + 1]; // son slot — oxu sayı
+        recent.put(epc.copy(), ring);
+      }
+      long n = ring[minReads];
+      ring[(int) (n % minReads)] = now;
+      ring[minReads] = ++n;
+      // növbəti yazılacaq slot — son minReads oxunun ən köhnəsi
+      return n >= minReads && now - ring[(int) (n % minReads)] <= windowMs;
+    }
+  }
+
+  // ---- arqumentlər ----
+
+  private static Prefix[] prefixes(Map<String, Object> spec, String name) {
+    List<?> l = list(spec, name);
+    if (l == null) return new Prefix[0];
+    List<Prefix> out = new ArrayList<>(l.size());
+    for (Object o : l) {
+      if (!(o instanceof String) || ((String) o).isEmpty()) {
+        throw new IllegalArgumentException(name + ": expected non-empty hex strings");
+      }
+      out.add(new Prefix((String) o));
+    }
+    return out.toArray(new Prefix[0]);
+  }
+
+  private static List<?> list(Map<String, Object> spec, String name) {
+    Object v = spec.get(name);
+    if (v == null) return null;
+    if (!(v instanceof List)) throw new IllegalArgumentException(name + ": expected a list");
+    return (List<?>) v;
+  }
+
+  private static int intOf(Object v, String name) {
+    if (!(v instanceof Number)) throw new IllegalArgumentException(name + ": expected a number");
+    return ((Number) v).intValue();
+  }
+}
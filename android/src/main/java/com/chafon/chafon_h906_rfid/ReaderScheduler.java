@@ -0,0 +1,137 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.flutter.Log;
+
+/**
+ * BaseReader-ə (/dev/ttyHSL0) bütün serial müraciət tək bir uzunömürlü thread-dən keçir.
+ * Komandalar prioritet növbəsindədir: stop/power kimi CONTROL komandaları oxulardan,
+ * adi komandalar isə Inventory_G2 round-larından əvvəl icra olunur. Inventory loop
+ * hər round-u ayrıca (ən aşağı prioritetli) komanda kimi göndərir — ad-hoc komandalar
+ * round-lar arasına təmiz şəkildə düşür.
+ */
+final class ReaderScheduler {
+
+  static final int PRIORITY_CONTROL   = 0;
+  static final int PRIORITY_NORMAL    = 1;
+  static final int PRIORITY_INVENTORY = 2;
+
+  static final class Command implements Comparable<Command> {
+    final int priority;
+    final long seq;
+    final long notBefore;
+    final Runnable task;
+
+    Command(int priority, long seq, long notBefore, Runnable task) {
+      this.priority = priority;
+      this.seq = seq;
+      this.notBefore = notBefore;
+      this.task = task;
+    }
+
+    @Override public int compareTo(Command o) {
+      if (priority != o.priority) return priority < o.priority ? -1 : 1;
+      return Long.compare(seq, o.seq);
+    }
+  }
+
+  private final String name;
+  private final Object lock = new Object();
+  private final PriorityQueue<Command> ready = new PriorityQueue<>();
+  // gecikdirilmiş komandalar notBefore üzrə
+  private final PriorityQueue<Command> delayed =
+          new PriorityQueue<>(11, (a, b) -> Long.compare(a.notBefore, b.notBefore));
+  private final AtomicLong seq = new AtomicLong();
+
+  private Thread worker;
+  private boolean running = false;
+
+  ReaderScheduler(String name) {
+    this.name = name;
+  }
+
+  Command submit(int priority, Runnable task) {
+    return submitDelayed(priority, 0, task);
+  }
+
+  /** delayMs keçdikdən sonra növbəyə daxil olur (bu vaxt ərzində başqa komandalar işləyir). */
+  Command submitDelayed(int priority, long delayMs, Runnable task) {
+    Command c = new Command(priority, seq.incrementAndGet(), now() + Math.max(0, delayMs), task);
+    synchronized (lock) {
+      ensureWorker();
+      if (delayMs > 0) delayed.add(c);
+      else ready.add(c);
+      lock.notifyAll();
+    }
+    return c;
+  }
+
+  /** Hələ başlamamış komandanı növbədən çıxar. true — çıxarıldı (icra olunmayacaq). */
+  boolean cancel(Command c) {
+    if (c == null) return false;
+    synchronized (lock) {
+      return ready.remove(c) || delayed.remove(c);
+    }
+  }
+
+  int queued() {
+    synchronized (lock) {
+      return ready.size() + delayed.size();
+    }
+  }
+
+  /** Cari komanda bitdikdən sonra thread dayanır; növbədəki komandalar atılır. */
+  void shutdown() {
+    synchronized (lock) {
+      running = false;
+      ready.clear();
+      delayed.clear();
+      worker = null;
+      lock.notifyAll();
+    }
+  }
+
+  private void ensureWorker() {
+    if (worker != null) return;
+    running = true;
+    final Thread t = new Thread(this::loop, name);
+    t.setDaemon(true);
+    worker = t;
+    t.start();
+  }
+
+  private void loop() {
+    final Thread self = Thread.currentThread();
+    while (true) {
+      Command c;
+      synchronized (lock) {
+        while (true) {
+          if (!running || worker != self) return;
+          long t = now();
+          while (!delayed.isEmpty() && delayed.peek().notBefore <= t) {
+            ready.add(delayed.poll());
+          }
+          c = ready.poll();
+          if (c != null) break;
+          long wait = delayed.isEmpty() ? 0 : Math.max(1, delayed.peek().notBefore - t);
+          try {
+            lock.wait(wait);
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+      }
+      try {
+        c.task.run();
+      } catch (Throwable t) {
+        Log.e("H906", "reader command error: " + t.getMessage());
+      }
+    }
+  }
+
+  private static long now() {
+    return System.nanoTime() / 1_000_000L;
+  }
+}
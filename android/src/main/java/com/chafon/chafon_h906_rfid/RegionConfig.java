@@ -0,0 +1,143 @@
+package com.chafon.chafon_h906_rfid;
+
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tezlik regionu: SDK band kodu + kanal aralığı (minChannel..maxChannel, reader bu aralıqda
+ * hop edir). Band cədvəli modulun sənədindən: kanal sayı, başlanğıc tezlik və addım.
+ * Site üzrə seçilmiş region Store-da saxlanılır — hər connect-də survey təkrarlanmır.
+ */
+final class RegionConfig {
+
+  static final int BAND_CN2 = 1;
+  static final int BAND_US = 2;
+  static final int BAND_KR = 3;
+  static final int BAND_EU = 4;
+  static final int BAND_CN1 = 8;
+
+  static final int MAX_CHANNEL = 62; // SDK: 6 bitlik kanal nömrəsi
+
+  private static final int[] BANDS = {BAND_CN2, BAND_US, BAND_KR, BAND_EU, BAND_CN1};
+  private static final String[] NAMES = {"CN2", "US", "KR", "EU", "CN1"};
+  private static final int[] CHANNELS = {20, 50, 32, 15, 20};
+  private static final double[] START_MHZ = {920.125, 902.75, 917.1, 865.1, 840.125};
+  private static final double[] STEP_MHZ = {0.25, 0.5, 0.2, 0.2, 0.25};
+
+  /** Site → region (son survey / setRegion(save: true)). */
+  interface Store {
+    String get(String site);
+
+    void put(String site, String value);
+  }
+
+  private static final String KEY_PREFIX = "h906.region.";
+
+  static Store prefs(final SharedPreferences p) {
+    return new Store() {
+      @Override public String get(String site) { return p.getString(KEY_PREFIX + site, null); }
+      @Override public void put(String site, String value) {
+        p.edit().putString(KEY_PREFIX + site, value).apply();
+      }
+    };
+  }
+
+  final int band;
+  final int minChannel;
+  final int maxChannel;
+
+  private RegionConfig(int band, int minChannel, int maxChannel) {
+    this.band = band;
+    this.minChannel = minChannel;
+    this.maxChannel = maxChannel;
+  }
+
+  /** Kanallar band-ın aralığına sıxılır; band tanınmırsa və ya min > max — IllegalArgumentException. */
+  static RegionConfig of(int band, int minChannel, int maxChannel) {
+    int i = indexOf(band);
+    if (i < 0) throw new IllegalArgumentException("unknown band " + band);
+    int last = CHANNELS[i] - 1;
+    int lo = Math.max(0, Math.min(last, minChannel));
+    int hi = Math.max(0, Math.min(last, maxChannel));
+    if (lo > hi) throw new IllegalArgumentException("minChannel must be <= maxChannel");
+    return new RegionConfig(band, lo, hi);
+  }
+
+  /** Bütün band: 0..kanal sayı-1. */
+  static RegionConfig full(int band) {
+    return of(band, 0, MAX_CHANNEL);
+  }
+
+  /** "EU" | "US" ("FCC") | "KR" | "CN1" | "CN2" və ya SDK kodu; tanınmırsa -1. */
+  static int parseBand(Object v) {
+    if (v instanceof Number) {
+      int b = ((Number) v).intValue();
+      return indexOf(b) >= 0 ? b : -1;
+    }
+    if (!(v instanceof String)) return -1;
+    String s = ((String) v).toUpperCase();
+    if ("FCC".equals(s)) return BAND_US;
+    for (int i = 0; i < NAMES.length; i++) if (NAMES[i].equals(s)) return BANDS[i];
+    return -1;
+  }
+
+  private static int indexOf(int band) {
+    for (int i = 0; i < BANDS.length; i++) if (BANDS[i] == band) return i;
+    return -1;
+  }
+
+  static double freqMHz(int band, int channel) {
+    int i = indexOf(band);
+    return i >= 0 ? START_MHZ[i] + STEP_MHZ[i] * channel : Double.NaN;
+  }
+
+  String bandName() {
+    return NAMES[indexOf(band)];
+  }
+
+  /** Eyni band, başqa kanal aralığı. */
+  RegionConfig window(int minChannel, int maxChannel) {
+    return of(band, minChannel, maxChannel);
+  }
+
+  /** Store formatı: "band:min:max". */
+  String encode() {
+    return band + ":" + minChannel + ":" + maxChannel;
+  }
+
+  /** null — boş və ya pozulmuş dəyər. */
+  static RegionConfig decode(String v) {
+    if (v == null) return null;
+    String[] p = v.split(":");
+    if (p.length != 3) return null;
+    try {
+      return of(Integer.parseInt(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2]));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** {band, bandCode, minChannel, maxChannel, minMHz, maxMHz} */
+  Map<String, Object> toMap() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("band", bandName());
+    m.put("bandCode", band);
+    m.put("minChannel", minChannel);
+    m.put("maxChannel", maxChannel);
+    m.put("minMHz", freqMHz(band, minChannel));
+    m.put("maxMHz", freqMHz(band, maxChannel));
+    return m;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (!(o instanceof RegionConfig)) return false;
+    RegionConfig r = (RegionConfig) o;
+    return band == r.band && minChannel == r.minChannel && maxChannel == r.maxChannel;
+  }
+
+  @Override public int hashCode() {
+    return (band * 64 + minChannel) * 64 + maxChannel;
+  }
+}
@@ -0,0 +1,48 @@
+package com.chafon.chafon_h906_rfid;
+
+import com.rfid.trans.ReadTag;
+import com.rfid.trans.TagCallback;
+
+import java.util.List;
+
+/**
+ * Plugin-in istifadə etdiyi BaseReader komandaları. Əsas implementasiya — SdkReader
+ * (rfiddrive-release.aar); testlərdə və benchmark-da aparatsız simulyator qoşulur.
+ * Metod adları və arqument sırası SDK ilə eynidir — çağırış yerləri dəyişmir.
+ */
+interface RfidReader {
+
+  void SetCallBack(TagCallback callback);
+
+  int Connect(String port, int baud, int logSwitch);
+
+  int DisConnect();
+
+  int GetReadParameter(byte comAddr, byte[] param);
+
+  int SetReadParameter(byte comAddr, byte[] param);
+
+  int SetRfPower(byte comAddr, byte power);
+
+  int SetRegion(byte comAddr, int band, int maxFre, int minFre);
+
+  int SetRegion(byte comAddr, int type, int band, int maxFre, int minFre);
+
+  int ReadData_G2(byte comAddr, byte eNum, byte[] epc, byte mem, byte wordPtr, byte num,
+                  byte[] password, byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData,
+                  byte[] data, byte[] errorCode);
+
+  int WriteData_G2(byte comAddr, byte wNum, byte eNum, byte[] epc, byte mem, byte wordPtr,
+                   byte[] writeData, byte[] password, byte maskMem, byte[] maskAdr, byte maskLen,
+                   byte[] maskData, byte[] errorCode);
+
+  int Lock_G2(byte comAddr, byte eNum, byte[] epc, byte select, byte setProtect, byte[] password,
+              byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData, byte[] errorCode);
+
+  int Inventory_G2(byte comAddr, byte qValue, byte session, byte adrTid, byte lenTid,
+                   byte target, byte ant, byte scanTime, byte maskMem, byte[] maskAdr,
+                   byte maskLen, byte[] maskData, List<ReadTag> tags, int[] cardNum, boolean beep);
+
+  /** Modulun qidası (OtgUtils.set53GPIOEnabled). */
+  void setGpioEnabled(boolean on);
+}
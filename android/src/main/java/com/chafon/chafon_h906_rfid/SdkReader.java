@@ -0,0 +1,77 @@
+package com.chafon.chafon_h906_rfid;
+
+import com.rfid.trans.BaseReader;
+import com.rfid.trans.OtgUtils;
+import com.rfid.trans.ReadTag;
+import com.rfid.trans.TagCallback;
+
+import java.util.List;
+
+/** RfidReader — rfiddrive-release.aar BaseReader üzərindən (/dev/ttyHSL0). */
+final class SdkReader implements RfidReader {
+
+  private final BaseReader reader = new BaseReader();
+
+  @Override public void SetCallBack(TagCallback callback) {
+    reader.SetCallBack(callback);
+  }
+
+  @Override public int Connect(String port, int baud, int logSwitch) {
+    return reader.Connect(port, baud, logSwitch);
+  }
+
+  @Override public int DisConnect() {
+    return reader.DisConnect();
+  }
+
+  @Override public int GetReadParameter(byte comAddr, byte[] param) {
+    return reader.GetReadParameter(comAddr, param);
+  }
+
+  @Override public int SetReadParameter(byte comAddr, byte[] param) {
+    return reader.SetReadParameter(comAddr, param);
+  }
+
+  @Override public int SetRfPower(byte comAddr, byte power) {
+    return reader.SetRfPower(comAddr, power);
+  }
+
+  @Override public int SetRegion(byte comAddr, int band, int maxFre, int minFre) {
+    return reader.SetRegion(comAddr, band, maxFre, minFre);
+  }
+
+  @Override public int SetRegion(byte comAddr, int type, int band, int maxFre, int minFre) {
+    return reader.SetRegion(comAddr, type, band, maxFre, minFre);
+  }
+
+  @Override public int ReadData_G2(byte comAddr, byte eNum, byte[] epc, byte mem, byte wordPtr, byte num,
+                                   byte[] password, byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData,
+                                   byte[] data, byte[] errorCode) {
+    return reader.ReadData_G2(comAddr, eNum, epc, mem, wordPtr, num, password,
+            maskMem, maskAdr, maskLen, maskData, data, errorCode);
+  }
+
+  @Override public int WriteData_G2(byte comAddr, byte wNum, byte eNum, byte[] epc, byte mem, byte wordPtr,
+                                    byte[] writeData, byte[] password, byte maskMem, byte[] maskAdr, byte maskLen,
+                                    byte[] maskData, byte[] errorCode) {
+    return reader.WriteData_G2(comAddr, wNum, eNum, epc, mem, wordPtr, writeData, password,
+            maskMem, maskAdr, maskLen, maskData, errorCode);
+  }
+
+  @Override public int Lock_G2(byte comAddr, byte eNum, byte[] epc, byte select, byte setProtect, byte[] password,
+                               byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData, byte[] errorCode) {
+    return reader.Lock_G2(comAddr, eNum, epc, select, setProtect, password,
+            maskMem, maskAdr, maskLen, maskData, errorCode);
+  }
+
+  @Override public int Inventory_G2(byte comAddr, byte qValue, byte session, byte adrTid, byte lenTid,
+                                    byte target, byte ant, byte scanTime, byte maskMem, byte[] maskAdr,
+                                    byte maskLen, byte[] maskData, List<ReadTag> tags, int[] cardNum, boolean beep) {
+    return reader.Inventory_G2(comAddr, qValue, session, adrTid, lenTid, target, ant, scanTime,
+            maskMem, maskAdr, maskLen, maskData, tags, cardNum, beep);
+  }
+
+  @Override public void setGpioEnabled(boolean on) {
+    OtgUtils.set53GPIOEnabled(on);
+  }
+}
@@ -0,0 +1,266 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SDK callback ilə EventSink arasında məhdud (bounded) növbə + batch mərhələsi.
+ * Oxular əvvəlcədən ayrılmış TagRead slot-larından ibarət ring buffer-ə kopyalanır;
+ * ölçü limitinə (maxBatch) və ya zaman pəncərəsinə (intervalMs) çatanda main thread-də
+ * ötürülür. Main thread gecikəndə növbə capacity-dən böyümür — overflow siyasəti
+ * (dropOldest / dropDuplicate / coalesce / block) nə ediləcəyini seçir.
+ * Looper növbəsində eyni anda ən çox bir dərhal flush gözləyir.
+ */
+final class TagBatcher {
+
+  interface Sink {
+    /** Siyahı və elementlər yalnız çağırış müddətində etibarlıdır (slot-lar təkrar istifadə olunur). */
+    void deliver(List<TagRead> batch);
+  }
+
+  static final int DEFAULT_BATCH_SIZE = 256;
+  static final int DEFAULT_INTERVAL_MS = 50;
+  static final int DEFAULT_CAPACITY = 4096;
+  static final long BLOCK_TIMEOUT_MS = 1000;
+
+  /** Dolu növbədə ən köhnə oxu atılır. */
+  static final String POLICY_DROP_OLDEST = "dropOldest";
+  /** Dolu növbədə EPC-si artıq növbədə olan yeni oxu atılır; yeni EPC üçün ən köhnə atılır. */
+  static final String POLICY_DROP_DUPLICATE = "dropDuplicate";
+  /** Növbədə olan EPC-nin oxusu yerində yenilənir; dolu olanda ən köhnə atılır. */
+  static final String POLICY_COALESCE = "coalesce";
+  /** Reader thread main thread yer açana qədər gözləyir (ən çox BLOCK_TIMEOUT_MS, sonra atılır). */
+  static final String POLICY_BLOCK = "block";
+
+  private final MainExecutor handler;
+  private final Sink sink;
+  private final Runnable flushTask = this::flush;
+  private final Runnable delayedFlushTask = this::flush;
+
+  private volatile int maxBatch = DEFAULT_BATCH_SIZE;
+  private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+  private String policy = POLICY_DROP_OLDEST;
+
+  // ring: [head, tail) ardıcıllıq nömrələri, slot = seq % capacity
+  private TagRead[] slots = newSlots(DEFAULT_CAPACITY);
+  private long head = 0;
+  private long tail = 0;
+  // dropDuplicate / coalesce: növbədəki EPC → son seq
+  private final Map<EpcKey, Long> queuedSeq = new HashMap<>();
+
+  private boolean flushScheduled = false;  // postDelayed gözləyir
+  private boolean flushPosted = false;     // post (dərhal) gözləyir
+
+  // main thread-ə məxsus: flush ring-dən bura kopyalayır, sink-ə lock-suz ötürür
+  private TagRead[] drainBuf = newSlots(DEFAULT_BATCH_SIZE);
+  private final ArrayView view = new ArrayView();
+
+  private long dropped = 0;
+  private long coalesced = 0;
+  private long blockedMs = 0;
+  private int highWater = 0;
+
+  TagBatcher(MainExecutor handler, Sink sink) {
+    this.handler = handler;
+    this.sink = sink;
+  }
+
+  /** maxBatch <= 1 — batch söndürülür, hər tag ayrıca göndərilir. */
+  void configure(int maxBatch, long intervalMs) {
+    this.maxBatch = Math.max(1, maxBatch);
+    this.intervalMs = Math.max(1, intervalMs);
+  }
+
+  /** Növbə ölçüsü və overflow siyasəti; növbədəki oxular atılır, sayğaclar sıfırlanır. */
+  synchronized void configureQueue(int capacity, String overflowPolicy) {
+    int cap = Math.max(16, capacity);
+    if (cap != slots.length) slots = newSlots(cap);
+    policy = isPolicy(overflowPolicy) ? overflowPolicy : POLICY_DROP_OLDEST;
+    head = tail = 0;
+    queuedSeq.clear();
+    dropped = coalesced = blockedMs = 0;
+    highWater = 0;
+    notifyAll();
+  }
+
+  static boolean isPolicy(String p) {
+    return POLICY_DROP_OLDEST.equals(p) || POLICY_DROP_DUPLICATE.equals(p)
+            || POLICY_COALESCE.equals(p) || POLICY_BLOCK.equals(p);
+  }
+
+  boolean isEnabled() {
+    return maxBatch > 1;
+  }
+
+  /** İstənilən thread-dən (SDK callback thread). read kopyalanır — çağıran onu təkrar istifadə edə bilər. */
+  void add(TagRead read) {
+    boolean post = false;
+    boolean schedule = false;
+    synchronized (this) {
+      if (!enqueue(read)) return;
+      int size = (int) (tail - head);
+      if (size > highWater) highWater = size;
+      if (size >= maxBatch || size * 2 >= slots.length) {
+        // limitə çatdı — gecikməni gözləmədən göndər
+        if (!flushPosted) {
+          flushPosted = true;
+          post = true;
+        }
+      } else if (!flushScheduled && !flushPosted) {
+        flushScheduled = true;
+        schedule = true;
+      }
+    }
+    if (post) handler.post(flushTask);
+    else if (schedule) handler.postDelayed(delayedFlushTask, intervalMs);
+  }
+
+  /** lock altında. false — oxu yeni slot tutmadı (atıldı və ya birləşdirildi). */
+  private boolean enqueue(TagRead read) {
+    final int cap = slots.length;
+    final boolean tracked = POLICY_COALESCE.equals(policy) || POLICY_DROP_DUPLICATE.equals(policy);
+
+    if (tracked) {
+      TagRead queued = queuedSlot(read.key);
+      if (queued != null) {
+        if (POLICY_COALESCE.equals(policy)) {
+          queued.merge(read);
+          coalesced++;
+          return false;
+        }
+        if (tail - head >= cap) {
+          dropped++;
+          return false;
+        }
+      }
+    }
+
+    if (tail - head >= cap) {
+      if (POLICY_BLOCK.equals(policy) && !awaitSpace()) {
+        dropped++;
+        return false;
+      }
+      if (tail - head >= cap) {
+        head++; // ən köhnəni at
+        dropped++;
+      }
+    }
+
+    slots[(int) (tail % cap)].copyFrom(read);
+    if (tracked) queuedSeq.put(read.key, tail);
+    tail++;
+    return true;
+  }
+
+  private TagRead queuedSlot(EpcKey key) {
+    Long seq = queuedSeq.get(key);
+    if (seq == null || seq < head) return null;
+    TagRead r = slots[(int) (seq % slots.length)];
+    return key.equals(r.key) ? r : null;
+  }
+
+  /** block siyasəti (lock altında): main thread yer açana qədər gözlə. false — vaxt bitdi. */
+  private boolean awaitSpace() {
+    final long t0 = System.nanoTime();
+    final long deadline = t0 + BLOCK_TIMEOUT_MS * 1_000_000L;
+    if (!flushPosted) {
+      flushPosted = true;
+      handler.post(flushTask);
+    }
+    try {
+      while (tail - head >= slots.length) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0) break;
+        wait(Math.max(1, left / 1_000_000L));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      blockedMs += (System.nanoTime() - t0) / 1_000_000L;
+    }
+    return tail - head < slots.length;
+  }
+
+  /** Main thread-də çağırılır: yığılanları maxBatch-lik hissələrlə ötür. */
+  void flush() {
+    while (true) {
+      int n;
+      synchronized (this) {
+        flushScheduled = false;
+        flushPosted = false;
+        n = (int) Math.min(tail - head, maxBatch);
+        if (n == 0) return;
+        if (drainBuf.length < n) drainBuf = newSlots(Math.max(n, drainBuf.length * 2));
+        final int cap = slots.length;
+        for (int i = 0; i < n; i++) drainBuf[i].copyFrom(slots[(int) ((head + i) % cap)]);
+        head += n;
+        if (head == tail) queuedSeq.clear();
+        notifyAll(); // block siyasəti
+      }
+      view.set(drainBuf, n);
+      sink.deliver(view);
+    }
+  }
+
+  /** Göndərilməmiş tag-ları at (məs. engine ayrılanda). */
+  void clear() {
+    handler.removeCallbacks(flushTask);
+    handler.removeCallbacks(delayedFlushTask);
+    synchronized (this) {
+      head = tail;
+      queuedSeq.clear();
+      flushScheduled = false;
+      flushPosted = false;
+      notifyAll();
+    }
+  }
+
+  /** {capacity, policy, queued, highWater, dropped, coalesced, blockedMs} */
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("capacity", slots.length);
+    m.put("policy", policy);
+    m.put("queued", (int) (tail - head));
+    m.put("highWater", highWater);
+    m.put("dropped", dropped);
+    m.put("coalesced", coalesced);
+    m.put("blockedMs", blockedMs);
+    return m;
+  }
+
+  synchronized long dropped() {
+    return dropped;
+  }
+
+  synchronized long coalesced() {
+    return coalesced;
+  }
+
+  private static TagRead[] newSlots(int n) {
+    TagRead[] a = new TagRead[n];
+    for (int i = 0; i < n; i++) a[i] = new TagRead();
+    return a;
+  }
+
+  /** drainBuf-un ilk n elementi — hər flush-da yeni siyahı ayrılmasın. */
+  private static final class ArrayView extends AbstractList<TagRead> {
+    private TagRead[] a;
+    private int n;
+
+    void set(TagRead[] a, int n) {
+      this.a = a;
+      this.n = n;
+    }
+
+    @Override public TagRead get(int i) {
+      if (i >= n) throw new IndexOutOfBoundsException();
+      return a[i];
+    }
+
+    @Override public int size() {
+      return n;
+    }
+  }
+}
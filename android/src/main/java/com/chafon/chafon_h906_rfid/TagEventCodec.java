@@ -0,0 +1,108 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.List;
+
+/**
+ * Inventory tag-ları üçün sıx binary format (bir batch — bir byte[]).
+ * Dart tərəfində ChafonH906Rfid.decodePackedTags ilə açılır. Bütün ədədlər big-endian.
+ *
+ * <pre>
+ * header:  u8 magic(0xC7) | u8 version(1) | u16 count | i64 baseTime(ms)
+ * record:  u8 epcLen | epc[epcLen] | i16 rssi | u32 dt(ms, baseTime-dan) | u8 antenna | u8 flags
+ *          [flags&1: u8 tidLen | tid[tidLen]] [flags&2: u8 memLen | mem[memLen]]
+ *          flags&4: known-tag yoxlanıb, flags&8: gözlənilən (expected) EPC
+ * </pre>
+ */
+final class TagEventCodec {
+
+  static final int MAGIC = 0xC7;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 12;
+
+  static final int FLAG_TID = 1;
+  static final int FLAG_MEM = 2;
+  static final int FLAG_CHECKED = 4;
+  static final int FLAG_EXPECTED = 8;
+
+  private TagEventCodec() {}
+
+  static byte[] encode(List<TagRead> reads) {
+    return encode(reads, 0, reads.size());
+  }
+
+  static byte[] encode(List<TagRead> reads, int from, int to) {
+    int count = Math.min(0xFFFF, to - from);
+    to = from + count;
+    long base = count > 0 ? reads.get(from).timestamp : 0;
+    for (int i = from; i < to; i++) base = Math.min(base, reads.get(i).timestamp);
+
+    int size = HEADER_SIZE;
+    for (int i = from; i < to; i++) size += recordSize(reads.get(i));
+
+    byte[] out = new byte[size];
+    int p = 0;
+    out[p++] = (byte) MAGIC;
+    out[p++] = (byte) VERSION;
+    p = putShort(out, p, count);
+    p = putLong(out, p, base);
+    for (int i = from; i < to; i++) p = writeRecord(out, p, reads.get(i), base);
+    return out;
+  }
+
+  private static int recordSize(TagRead r) {
+    int n = 1 + Math.min(255, r.key.length()) + 2 + 4 + 1 + 1;
+    if (r.tid != null) n += 1 + Math.min(255, HexCodec.decodedLength(r.tid));
+    if (r.mem != null && !r.mem.isEmpty()) n += 1 + Math.min(255, HexCodec.decodedLength(r.mem));
+    return n;
+  }
+
+  private static int writeRecord(byte[] out, int p, TagRead r, long base) {
+    int epcLen = Math.min(255, r.key.length());
+    out[p++] = (byte) epcLen;
+    System.arraycopy(r.key.bytes, 0, out, p, epcLen);
+    p += epcLen;
+    p = putShort(out, p, Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, r.rssi)));
+    p = putInt(out, p, (int) Math.min(0xFFFFFFFFL, r.timestamp - base));
+    out[p++] = (byte) r.antenna;
+
+    boolean hasTid = r.tid != null;
+    boolean hasMem = r.mem != null && !r.mem.isEmpty();
+    int flags = (hasTid ? FLAG_TID : 0) | (hasMem ? FLAG_MEM : 0);
+    if (r.expected != TagRead.EXPECTED_NA) {
+      flags |= FLAG_CHECKED | (r.expected == TagRead.EXPECTED_YES ? FLAG_EXPECTED : 0);
+    }
+    out[p++] = (byte) flags;
+    if (hasTid) p = putHex(out, p, r.tid);
+    if (hasMem) p = putHex(out, p, r.mem);
+    return p;
+  }
+
+  /** u8 uzunluq + hex-dən decode olunmuş baytlar (aralıq massiv yaratmadan). */
+  private static int putHex(byte[] out, int p, String hex) {
+    int n = Math.min(255, HexCodec.decodedLength(hex));
+    out[p++] = (byte) n;
+    if (n == HexCodec.decodedLength(hex)) {
+      HexCodec.decode(hex, out, p);
+    }
+    return p + n;
+  }
+
+  private static int putShort(byte[] b, int p, int v) {
+    b[p] = (byte) (v >> 8);
+    b[p + 1] = (byte) v;
+    return p + 2;
+  }
+
+  private static int putInt(byte[] b, int p, int v) {
+    b[p] = (byte) (v >> 24);
+    b[p + 1] = (byte) (v >> 16);
+    b[p + 2] = (byte) (v >> 8);
+    b[p + 3] = (byte) v;
+    return p + 4;
+  }
+
+  private static int putLong(byte[] b, int p, long v) {
+    p = putInt(b, p, (int) (v >> 32));
+    return putInt(b, p, (int) v);
+  }
+}
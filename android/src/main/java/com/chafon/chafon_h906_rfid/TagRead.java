@@ -0,0 +1,70 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tag yolunda bir oxu — SDK callback-dən sink-ə qədər EPC byte kimi daşınır.
+ * Map və ya packed binary formata yalnız flush zamanı çevrilir.
+ */
+final class TagRead {
+
+  EpcKey key;
+  int rssi;
+  long timestamp;   // ms (wall clock)
+  int antenna;
+  String mem;       // hex, SDK-dan (yoxdursa null)
+  String tid;       // hex (yoxdursa null)
+  long firstSeen;   // dedup rejimində, əks halda 0
+  byte expected;    // KnownTagIndex: EXPECTED_NA / EXPECTED_YES / EXPECTED_NO
+
+  static final byte EXPECTED_NA = 0;
+  static final byte EXPECTED_YES = 1;
+  static final byte EXPECTED_NO = 2;
+
+  TagRead set(EpcKey key, int rssi, long timestamp, int antenna) {
+    this.key = key;
+    this.rssi = rssi;
+    this.timestamp = timestamp;
+    this.antenna = antenna;
+    this.mem = null;
+    this.tid = null;
+    this.firstSeen = 0;
+    this.expected = EXPECTED_NA;
+    return this;
+  }
+
+  /** Növbə slot-u üçün: bütün sahələri kopyala. */
+  TagRead copyFrom(TagRead o) {
+    this.key = o.key;
+    this.rssi = o.rssi;
+    this.timestamp = o.timestamp;
+    this.antenna = o.antenna;
+    this.mem = o.mem;
+    this.tid = o.tid;
+    this.firstSeen = o.firstSeen;
+    this.expected = o.expected;
+    return this;
+  }
+
+  /** Eyni EPC-nin daha yeni oxusu (coalesce): son rssi/vaxt/antenna, TID/mem itirilmir. */
+  void merge(TagRead newer) {
+    this.rssi = newer.rssi;
+    this.timestamp = newer.timestamp;
+    this.antenna = newer.antenna;
+    if (newer.mem != null) this.mem = newer.mem;
+    if (newer.tid != null) this.tid = newer.tid;
+  }
+
+  /** Köhnə event formatı: {epc, rssi, optional: mem, tid, firstSeen, expected} */
+  Map<String, Object> toMap() {
+    Map<String, Object> m = new HashMap<>();
+    m.put("epc", key.toHex());
+    m.put("rssi", rssi);
+    if (mem != null && !mem.isEmpty()) m.put("mem", mem);
+    if (tid != null) m.put("tid", tid);
+    if (firstSeen != 0) m.put("firstSeen", firstSeen);
+    if (expected != EXPECTED_NA) m.put("expected", expected == EXPECTED_YES);
+    return m;
+  }
+}
@@ -0,0 +1,98 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * ReadData_G2 / WriteData_G2 / Lock_G2 üçün hədəf tag seçimi: ya ENum + EPC (tam EPC ilə
+ * ünvanlama, readSingleTag-dakı kimi), ya da Mask* sahələri (EPC prefiksi, TID və s.).
+ * Dəyişməzdir; arqumentlər SDK imzasına birbaşa ötürülür.
+ */
+final class TagSelector {
+
+  static final byte MEM_EPC = 1;
+  static final byte MEM_TID = 2;
+
+  private static final byte[] NO_BYTES = new byte[0];
+
+  final byte eNum;        // EPC uzunluğu, söz ilə; 0 — maska istifadə olunur
+  final byte[] epc;
+  final byte maskMem;
+  final byte[] maskAdr;   // bit ünvanı, 2 bayt big-endian
+  final byte maskLen;     // bit
+  final byte[] maskData;
+
+  private TagSelector(byte eNum, byte[] epc, byte maskMem, int bitPtr, int bitLen, byte[] maskData) {
+    this.eNum = eNum;
+    this.epc = epc;
+    this.maskMem = maskMem;
+    this.maskAdr = new byte[]{(byte) ((bitPtr >> 8) & 0xFF), (byte) (bitPtr & 0xFF)};
+    this.maskLen = (byte) Math.max(0, Math.min(255, Math.min(bitLen, maskData.length * 8)));
+    this.maskData = maskData;
+  }
+
+  /** Seçim yoxdur — sahədəki istənilən (ilk cavab verən) tag. */
+  static TagSelector any() {
+    return new TagSelector((byte) 0, NO_BYTES, (byte) 0, 0, 0, NO_BYTES);
+  }
+
+  /** Tam EPC ilə (ENum, ən çox 15 söz); tək sayda bayt kəsilir. Boş hex — any(). */
+  static TagSelector byEpc(String hex) {
+    if (hex == null || hex.isEmpty()) return any();
+    byte[] b = HexCodec.decode(hex);
+    int words = Math.min(15, b.length / 2);
+    if (words == 0) return any();
+    return new TagSelector((byte) words, Arrays.copyOf(b, words * 2), (byte) 0, 0, 0, NO_BYTES);
+  }
+
+  /** EPC bankında PC-dən sonrakı prefiks maskası. */
+  static TagSelector byEpcMask(byte[] epc) {
+    return byMask(MEM_EPC, MaskScheduler.EPC_BIT_PTR, epc, epc.length * 8);
+  }
+
+  /** TID bankının əvvəlindən maska (tam TID və ya prefiks). */
+  static TagSelector byTid(String hex) {
+    byte[] b = HexCodec.decode(hex);
+    return byMask(MEM_TID, 0, b, b.length * 8);
+  }
+
+  static TagSelector byMask(int mem, int bitPtr, byte[] data, int bitLen) {
+    return new TagSelector((byte) 0, NO_BYTES, (byte) mem, bitPtr, bitLen, data);
+  }
+
+  /**
+   * Map-dən: {epc} | {tid} | {mask, maskMem=1, maskBitPtr=0x20, maskBitLen=len*8}.
+   * Heç biri yoxdursa any().
+   */
+  static TagSelector fromMap(Map<?, ?> m) {
+    Object epc = m.get("epc");
+    if (epc instanceof String && !((String) epc).isEmpty()) return byEpc((String) epc);
+    Object tid = m.get("tid");
+    if (tid instanceof String && !((String) tid).isEmpty()) return byTid((String) tid);
+    Object mask = m.get("mask");
+    if (mask instanceof String && !((String) mask).isEmpty()) {
+      byte[] data = HexCodec.decode((String) mask);
+      int mem = m.get("maskMem") instanceof Number ? ((Number) m.get("maskMem")).intValue() : MEM_EPC;
+      int ptr = m.get("maskBitPtr") instanceof Number
+              ? ((Number) m.get("maskBitPtr")).intValue()
+              : (mem == MEM_EPC ? MaskScheduler.EPC_BIT_PTR : 0);
+      int len = m.get("maskBitLen") instanceof Number ? ((Number) m.get("maskBitLen")).intValue() : data.length * 8;
+      return byMask(mem, ptr, data, len);
+    }
+    return any();
+  }
+
+  boolean isAny() {
+    return eNum == 0 && maskLen == 0;
+  }
+
+  /** Cavablarda göstərmək üçün: "epc:...", "tid:...", "mask:mem@ptr/len:..." və ya "any". */
+  String describe() {
+    if (eNum != 0) return "epc:" + HexCodec.encode(epc);
+    if (maskLen == 0) return "any";
+    String hex = HexCodec.encode(maskData);
+    int ptr = ((maskAdr[0] & 0xFF) << 8) | (maskAdr[1] & 0xFF);
+    if (maskMem == MEM_TID && ptr == 0) return "tid:" + hex;
+    return "mask:" + maskMem + "@" + ptr + "/" + (maskLen & 0xFF) + ":" + hex;
+  }
+}
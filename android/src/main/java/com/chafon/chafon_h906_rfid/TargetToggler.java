@@ -0,0 +1,121 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inventory_G2 Target (A/B) seçimi. S1..S3-də oxunan tag inventoried bayrağını A→B çevirib
+ * susur; yalnız A hədəfi ilə işləyəndə güclü tag-lar bir dəfə oxunandan sonra zəif tag-lar
+ * qalır, amma B-yə keçmiş populyasiya bir daha görünmür. "dual" rejimində hədəf A↔B
+ * növbələnir: hər toggleRounds round-dan bir (0 — söndürülüb) və ya emptyRounds ardıcıl
+ * round yeni tag tapmayanda. Hər faza (A, B) üçün round/oxu/yeni tag sayılır.
+ * Reader thread-dən dəyişdirilir.
+ */
+final class TargetToggler {
+
+  static final String MODE_A = "A";
+  static final String MODE_B = "B";
+  static final String MODE_DUAL = "dual";
+
+  static final byte TARGET_A = 0;
+  static final byte TARGET_B = 1;
+
+  static final int DEFAULT_TOGGLE_ROUNDS = 0;
+  static final int DEFAULT_EMPTY_ROUNDS = 1;
+
+  /** "A" | "B" | "dual" (tanınmırsa A). */
+  static String parseMode(String v) {
+    if (MODE_DUAL.equals(v)) return MODE_DUAL;
+    if (MODE_B.equals(v)) return MODE_B;
+    return MODE_A;
+  }
+
+  private static final class Phase {
+    long rounds;
+    long reads;
+    long newTags;
+    long entered; // bu fazaya neçə dəfə keçilib
+
+    Map<String, Object> toMap() {
+      Map<String, Object> m = new HashMap<>();
+      m.put("rounds", rounds);
+      m.put("reads", reads);
+      m.put("newTags", newTags);
+      m.put("entered", entered);
+      m.put("newTagsPerRound", rounds > 0 ? (double) newTags / rounds : 0d);
+      return m;
+    }
+  }
+
+  private final String mode;
+  private final int toggleRounds;
+  private final int emptyRounds;
+  private final Phase a = new Phase();
+  private final Phase b = new Phase();
+
+  private byte target;
+  private int phaseRounds = 0;
+  private int emptyStreak = 0;
+  private long switches = 0;
+
+  TargetToggler(String mode, int toggleRounds, int emptyRounds) {
+    this.mode = parseMode(mode);
+    this.toggleRounds = Math.max(0, toggleRounds);
+    this.emptyRounds = Math.max(0, emptyRounds);
+    this.target = MODE_B.equals(this.mode) ? TARGET_B : TARGET_A;
+    phase().entered++;
+  }
+
+  String mode() {
+    return mode;
+  }
+
+  boolean isDual() {
+    return MODE_DUAL.equals(mode);
+  }
+
+  /** Növbəti Inventory_G2 üçün Target (0 — A, 1 — B). */
+  byte target() {
+    return target;
+  }
+
+  private Phase phase() {
+    return target == TARGET_A ? a : b;
+  }
+
+  /** Round nəticəsini cari fazaya yaz; dual rejimində lazım gəlsə hədəfi çevir. true — çevrildi. */
+  boolean onRound(int reads, int newTags) {
+    Phase p = phase();
+    p.rounds++;
+    p.reads += Math.max(0, reads);
+    p.newTags += Math.max(0, newTags);
+    phaseRounds++;
+    emptyStreak = newTags > 0 ? 0 : emptyStreak + 1;
+    if (!isDual()) return false;
+
+    boolean due = (toggleRounds > 0 && phaseRounds >= toggleRounds)
+            || (emptyRounds > 0 && emptyStreak >= emptyRounds);
+    if (!due) return false;
+    target = target == TARGET_A ? TARGET_B : TARGET_A;
+    phaseRounds = 0;
+    emptyStreak = 0;
+    switches++;
+    phase().entered++;
+    return true;
+  }
+
+  /** {mode, target, switches, toggleRounds, emptyRounds, phases: {A: {...}, B: {...}}} */
+  Map<String, Object> stats() {
+    Map<String, Object> phases = new HashMap<>();
+    phases.put(MODE_A, a.toMap());
+    phases.put(MODE_B, b.toMap());
+    Map<String, Object> m = new HashMap<>();
+    m.put("mode", mode);
+    m.put("target", target == TARGET_A ? MODE_A : MODE_B);
+    m.put("switches", switches);
+    m.put("toggleRounds", toggleRounds);
+    m.put("emptyRounds", emptyRounds);
+    m.put("phases", phases);
+    return m;
+  }
+}
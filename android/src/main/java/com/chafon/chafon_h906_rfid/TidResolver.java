@@ -0,0 +1,88 @@
+package com.chafon.chafon_h906_rfid;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * EPC → TID cache və oxunmamış EPC növbəsi.
+ * Callback thread yalnız cache-ə baxır / növbəyə qoyur; ReadData_G2(MEM_TID)
+ * inventory round-ları arasında loop thread-də icra olunur. Hər tag üçün TID
+ * sessiyada bir dəfə oxunur.
+ */
+final class TidResolver {
+
+  static final int DEFAULT_PER_ROUND = 8;
+  static final int MAX_ATTEMPTS = 3;
+  private static final int MAX_PENDING = 4096;
+  private static final int MAX_CACHE = 50_000;
+
+  private final LinkedHashMap<EpcKey, String> cache = new LinkedHashMap<EpcKey, String>(256, 0.75f, true) {
+    @Override protected boolean removeEldestEntry(Map.Entry<EpcKey, String> eldest) {
+      return size() > MAX_CACHE;
+    }
+  };
+  private final LinkedHashSet<EpcKey> pending = new LinkedHashSet<>();
+  private final HashMap<EpcKey, Integer> attempts = new HashMap<>();
+
+  private volatile int perRound = DEFAULT_PER_ROUND;
+
+  void configure(int perRound) {
+    this.perRound = Math.max(1, perRound);
+  }
+
+  int perRound() {
+    return perRound;
+  }
+
+  synchronized void reset() {
+    cache.clear();
+    pending.clear();
+    attempts.clear();
+  }
+
+  /** Cache-də varsa TID, yoxdursa null — və EPC növbəyə düşür (bir dəfə). */
+  synchronized String lookup(EpcKey key) {
+    String tid = cache.get(key);
+    if (tid != null) return tid.isEmpty() ? null : tid;
+    if (pending.size() < MAX_PENDING) pending.add(key);
+    return null;
+  }
+
+  /** Növbədən növbəti EPC (yoxdursa null). */
+  synchronized EpcKey poll() {
+    Iterator<EpcKey> it = pending.iterator();
+    if (!it.hasNext()) return null;
+    EpcKey k = it.next();
+    it.remove();
+    return k;
+  }
+
+  synchronized void resolved(EpcKey key, String tid) {
+    attempts.remove(key);
+    cache.put(key, tid);
+  }
+
+  /** Uğursuz oxu — MAX_ATTEMPTS-dən sonra bu sessiyada bir daha cəhd edilmir. */
+  synchronized void failed(EpcKey key) {
+    Integer n = attempts.get(key);
+    int next = (n == null ? 0 : n) + 1;
+    if (next >= MAX_ATTEMPTS) {
+      attempts.remove(key);
+      cache.put(key, ""); // boş — "oxunmur" kimi yadda saxla
+    } else {
+      attempts.put(key, next);
+      pending.add(key);
+    }
+  }
+
+  synchronized int pendingCount() {
+    return pending.size();
+  }
+
+  synchronized int cachedCount() {
+    return cache.size();
+  }
+}
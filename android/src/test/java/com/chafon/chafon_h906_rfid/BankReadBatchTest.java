@@ -0,0 +1,72 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class BankReadBatchTest {
+
+  private static final byte COM_ADDR = (byte) 0xFF;
+
+  private static Map<String, Object> map(Object... kv) {
+    Map<String, Object> m = new HashMap<>();
+    for (int i = 0; i < kv.length; i += 2) m.put((String) kv[i], kv[i + 1]);
+    return m;
+  }
+
+  @Test
+  public void epcsTimesBanks_readsTidAndUserInOnePass() {
+    SimulatedReader r = new SimulatedReader(5).population(20, 12).latency(0, 0);
+    r.Connect("sim", 115200, 0);
+    byte[] err = new byte[1];
+    TagSelector t3 = TagSelector.byEpc(r.epcHex(3));
+    r.WriteData_G2(COM_ADDR, (byte) 2, t3.eNum, t3.epc, (byte) 3, (byte) 0, HexCodec.decode("0102A0B0"),
+            new byte[4], t3.maskMem, t3.maskAdr, t3.maskLen, t3.maskData, err);
+
+    List<String> epcs = List.of(r.epcHex(3), r.epcHex(4), "3000DEADBEEF000000000000");
+    List<Map<String, Object>> banks = List.of(map("mem", "tid", "len", 6), map("mem", 3, "wordPtr", 0, "len", 2));
+    List<BankReadBatch.Request> reqs = BankReadBatch.parse(null, epcs, banks, new byte[4]);
+    assertEquals(6, reqs.size());
+
+    List<Integer> rcs = new ArrayList<>();
+    BankReadBatch batch = new BankReadBatch();
+    List<Map<String, Object>> res = batch.run(r, COM_ADDR, reqs, 1, rcs::add);
+
+    assertEquals("E28011600000000000000003", res.get(0).get("hex"));
+    assertEquals("0102A0B0", res.get(1).get("hex"));
+    assertEquals("E28011600000000000000004", res.get(2).get("hex"));
+    assertEquals("00000000", res.get(3).get("hex"));
+    assertEquals(false, res.get(4).get("success"));
+    assertEquals(2, res.get(4).get("attempts"));
+    assertEquals(4, batch.ok());
+    assertEquals(2, batch.failed());
+    assertEquals(8, rcs.size()); // 4 uğurlu + 2 × 2 cəhd
+    for (int i = 0; i < 6; i++) assertEquals(i, res.get(i).get("index"));
+  }
+
+  @Test
+  public void parse_requestDefaultsAndErrors() {
+    BankReadBatch.Request q = BankReadBatch.parseRequest(0, map("tid", "E280"), null, new byte[4]);
+    assertEquals(BankReadBatch.MEM_EPC, q.mem);
+    assertEquals(2, q.wordPtr);
+    assertEquals(6, q.len);
+    assertTrue(q.target.describe().startsWith("tid:"));
+
+    assertEquals(BankReadBatch.MEM_USER, BankReadBatch.parseMem("user", 1));
+    assertEquals(-1, BankReadBatch.parseMem(7, 1));
+    for (Map<String, Object> bad : List.of(map("mem", "kill"), map("len", 0), map("len", 65))) {
+      boolean threw = false;
+      try {
+        BankReadBatch.parseRequest(0, bad, null, new byte[4]);
+      } catch (IllegalArgumentException e) {
+        threw = true;
+      }
+      assertTrue(threw);
+    }
+  }
+}
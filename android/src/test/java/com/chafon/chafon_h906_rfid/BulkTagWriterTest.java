@@ -0,0 +1,153 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class BulkTagWriterTest {
+
+  private static final byte COM_ADDR = (byte) 0xFF;
+
+  private static SimulatedReader reader(int tags) {
+    SimulatedReader r = new SimulatedReader(11).population(tags, 12).latency(0, 0);
+    r.Connect("sim", 115200, 0);
+    return r;
+  }
+
+  private static Map<String, Object> job(Object... kv) {
+    Map<String, Object> m = new HashMap<>();
+    for (int i = 0; i < kv.length; i += 2) m.put((String) kv[i], kv[i + 1]);
+    return m;
+  }
+
+  /** Bütün işləri bitir, progress event-lərini yığ. */
+  private static List<Map<String, Object>> runAll(BulkTagWriter w, SimulatedReader r, List<Integer> rcs) {
+    List<Map<String, Object>> events = new ArrayList<>();
+    w.start(0);
+    while (!w.isFinished()) {
+      w.runSlice(r, COM_ADDR, 1000, rcs::add);
+      if (w.progressDue(0) || w.isFinished()) events.add(w.drainProgress(0));
+    }
+    return events;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> results(List<Map<String, Object>> events) {
+    List<Map<String, Object>> out = new ArrayList<>();
+    for (Map<String, Object> e : events) out.addAll((List<Map<String, Object>>) e.get("results"));
+    return out;
+  }
+
+  @Test
+  public void writeEpc_reTagsWholePopulationInBatches() {
+    SimulatedReader r = reader(100);
+    List<BulkTagWriter.Job> jobs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String newEpc = String.format("E2000000000000000000%04X", i);
+      jobs.add(BulkTagWriter.parseJob(i, job("op", "writeEpc", "epc", r.epcHex(i), "data", newEpc), true));
+    }
+    BulkTagWriter w = new BulkTagWriter(1, jobs, 2, 32);
+    List<Integer> rcs = new ArrayList<>();
+    List<Map<String, Object>> events = runAll(w, r, rcs);
+
+    assertEquals(4, events.size()); // 32 + 32 + 32 + 4
+    Map<String, Object> last = events.get(events.size() - 1);
+    assertEquals(100, last.get("ok"));
+    assertEquals(0, last.get("failed"));
+    assertEquals(true, last.get("finished"));
+    assertEquals(100, results(events).size());
+    for (int i = 0; i < 100; i++) assertEquals(String.format("E2000000000000000000%04X", i), r.epcHex(i));
+    assertEquals(200, rcs.size()); // yazı + verify oxusu
+  }
+
+  @Test
+  public void writeEpc_keepsPcFlagsAndChangesOnlyLength() {
+    SimulatedReader r = reader(2).pcFlags(0, 0x0401).pcFlags(1, 0x00A5); // XI + AFI, UMI + AFI
+    List<BulkTagWriter.Job> jobs = new ArrayList<>();
+    jobs.add(BulkTagWriter.parseJob(0, job("op", "writeEpc", "epc", r.epcHex(0), "data", "E2001234"), true));
+    jobs.add(BulkTagWriter.parseJob(1, job("op", "writeEpc", "epc", r.epcHex(1),
+            "data", "E200000000000000000000000000ABCD"), true));
+    List<Map<String, Object>> res = results(runAll(new BulkTagWriter(1, jobs, 0, 10), r, new ArrayList<>()));
+
+    assertEquals(true, res.get(0).get("success"));
+    assertEquals(true, res.get(1).get("success"));
+    assertEquals("E2001234", r.epcHex(0)); // 2 söz
+    assertEquals("E200000000000000000000000000ABCD", r.epcHex(1)); // 8 söz
+    assertEquals(0x0401, r.pcFlags(0));
+    assertEquals(0x00A5, r.pcFlags(1));
+  }
+
+  @Test
+  public void userWrite_byTidSelector() {
+    SimulatedReader r = reader(10);
+    BulkTagWriter.Job j = BulkTagWriter.parseJob(0,
+            job("tid", "E28011600000000000000007", "mem", 3, "wordPtr", 2, "data", "CAFEBABE"), false);
+    assertTrue(j.target.describe().startsWith("tid:"));
+    BulkTagWriter w = new BulkTagWriter(1, List.of(j), 0, 1);
+    runAll(w, r, new ArrayList<>());
+    assertTrue(r.userHex(7).startsWith("00000000CAFEBABE"));
+    assertTrue(r.userHex(6).startsWith("0000000000000000"));
+  }
+
+  @Test
+  public void retries_transientErrorsButNotLockedMemory() {
+    SimulatedReader r = reader(4).errors(0.5, SimulatedReader.RC_COMM_ERROR);
+    byte[] pwd = HexCodec.decode("11223344");
+    r.accessPassword(1, pwd);
+    BulkTagWriter lock = new BulkTagWriter(1, List.of(BulkTagWriter.parseJob(0,
+            job("op", "lock", "epc", r.epcHex(1), "select", 4, "protect", 2, "password", "11223344"), false)), 20, 1);
+    runAll(lock, r, new ArrayList<>());
+    assertTrue(r.isLocked(1, 3));
+
+    r.errors(0, 0);
+    List<BulkTagWriter.Job> jobs = new ArrayList<>();
+    jobs.add(BulkTagWriter.parseJob(0, job("epc", r.epcHex(1), "data", "ABCD"), false));                  // kilidli
+    jobs.add(BulkTagWriter.parseJob(1, job("epc", r.epcHex(1), "data", "ABCD", "password", "11223344"), false));
+    jobs.add(BulkTagWriter.parseJob(2, job("epc", "3000FFFFFFFFFFFFFFFFFFFF", "data", "ABCD"), false));   // tag yoxdur
+    BulkTagWriter w = new BulkTagWriter(2, jobs, 3, 10);
+    List<Map<String, Object>> res = results(runAll(w, r, new ArrayList<>()));
+
+    assertEquals(false, res.get(0).get("success"));
+    assertEquals(1, res.get(0).get("attempts"));
+    assertEquals("memory locked", res.get(0).get("message"));
+    assertEquals(true, res.get(1).get("success"));
+    assertEquals(SimulatedReader.RC_NO_TAG, res.get(2).get("code"));
+    assertEquals(4, res.get(2).get("attempts"));
+    assertTrue(r.userHex(1).startsWith("ABCD"));
+  }
+
+  @Test
+  public void abortsAfterRepeatedCommFailures() {
+    SimulatedReader r = reader(4);
+    List<BulkTagWriter.Job> jobs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) jobs.add(BulkTagWriter.parseJob(i, job("data", "0001"), false));
+    r.DisConnect();
+    BulkTagWriter w = new BulkTagWriter(1, jobs, 1, 100);
+    List<Map<String, Object>> events = runAll(w, r, new ArrayList<>());
+    Map<String, Object> last = events.get(events.size() - 1);
+    assertEquals(BulkTagWriter.MAX_COMM_FAILURES, last.get("failed"));
+    assertTrue(String.valueOf(last.get("error")).startsWith("link lost"));
+  }
+
+  @Test
+  public void parse_rejectsBadJobs() {
+    for (Map<String, Object> bad : List.of(job("data", "ABC"), job("op", "lock", "select", 9, "protect", 1),
+            job("op", "erase", "data", "0000"), job("mem", 5, "data", "0000"))) {
+      boolean threw = false;
+      try {
+        BulkTagWriter.parseJob(0, bad, false);
+      } catch (IllegalArgumentException e) {
+        threw = true;
+      }
+      assertTrue(threw);
+    }
+    assertFalse(BulkTagWriter.isRetriable(SimulatedReader.RC_TAG_ERROR, SimulatedReader.TAG_ERR_OVERRUN));
+    assertTrue(BulkTagWriter.isRetriable(SimulatedReader.RC_TAG_ERROR, 0x0B));
+  }
+}
@@ -0,0 +1,57 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ChannelSurveyTest {
+
+  /** Pəncərəyə tags unikal tag, rounds round (hamısı uğurlu). */
+  private static void window(ChannelSurvey s, int tags, int rounds) {
+    s.begin();
+    for (int r = 0; r < rounds; r++) {
+      s.beginRound();
+      for (int i = 0; i < tags; i++) s.onRead(String.format("3000%020X", i));
+      s.endRound(true);
+    }
+    s.end(5);
+  }
+
+  @Test
+  public void best_isLongestContiguousRunOfGoodWindows() {
+    ChannelSurvey s = new ChannelSurvey(1, "dock", RegionConfig.full(RegionConfig.BAND_EU), 3, 2, 0.7);
+    assertEquals(5, s.windows()); // 15 kanal / 3
+    window(s, 40, 2); // 0..2
+    window(s, 5, 2);  // 3..5 — müdaxilə
+    window(s, 38, 2); // 6..8
+    window(s, 36, 2); // 9..11
+    window(s, 40, 2); // 12..14
+    assertNull(s.begin());
+    RegionConfig best = s.best();
+    assertEquals(6, best.minChannel);
+    assertEquals(14, best.maxChannel);
+  }
+
+  @Test
+  public void best_isNullWithoutReads() {
+    ChannelSurvey s = new ChannelSurvey(1, "dock", RegionConfig.of(RegionConfig.BAND_EU, 0, 1), 1, 1, 0.7);
+    window(s, 0, 1);
+    window(s, 0, 1);
+    assertNull(s.best());
+  }
+
+  @Test
+  public void regionConfig_parsesClampsAndRoundTrips() {
+    assertEquals(RegionConfig.BAND_US, RegionConfig.parseBand("fcc"));
+    assertEquals(RegionConfig.BAND_EU, RegionConfig.parseBand(4));
+    assertEquals(-1, RegionConfig.parseBand("XX"));
+    RegionConfig eu = RegionConfig.full(RegionConfig.BAND_EU);
+    assertEquals(14, eu.maxChannel); // 62 → EU-nun son kanalı
+    RegionConfig w = eu.window(2, 5);
+    assertEquals("4:2:5", w.encode());
+    assertEquals(w, RegionConfig.decode(w.encode()));
+    assertNull(RegionConfig.decode("4:9:2"));
+    assertNull(RegionConfig.decode("garbage"));
+  }
+}
@@ -0,0 +1,78 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ConnectionManagerTest {
+
+  /** Yaddaşda SharedPreferences əvəzi. */
+  private static final class MemStore implements ConnectionManager.Store {
+    String port;
+    int baud;
+    int saves;
+
+    @Override public String port() { return port; }
+    @Override public int baud() { return baud; }
+    @Override public void save(String port, int baud) {
+      this.port = port;
+      this.baud = baud;
+      saves++;
+    }
+  }
+
+  @Test
+  public void remembersFallbackBaudAcrossRestarts() {
+    SimulatedReader r = new SimulatedReader(1).acceptBaud(57600);
+    MemStore store = new MemStore();
+
+    ConnectionManager first = new ConnectionManager(r, "/dev/ttyHSL0", 115200, 57600);
+    first.setStore(store);
+    assertEquals(0, first.connect());
+    assertEquals(2, r.handshakes.get()); // 115200 uğursuz, 57600
+    assertEquals(57600, store.baud);
+
+    // "tətbiq yenidən açıldı" — yeni menecer, eyni store: birinci handshake uğurlu
+    ConnectionManager second = new ConnectionManager(r, "/dev/ttyHSL0", 115200, 57600);
+    second.setStore(store);
+    r.handshakes.set(0);
+    assertEquals(0, second.connect());
+    assertEquals(1, r.handshakes.get());
+    assertEquals(57600, second.baud());
+    assertEquals(1, store.saves); // dəyişməyib — yenidən yazılmır
+  }
+
+  @Test
+  public void gpioOncePerProcessAndAfterFullFailure() {
+    SimulatedReader r = new SimulatedReader(1);
+    ConnectionManager cm = new ConnectionManager(r, "/dev/ttyHSL0", 115200, 57600);
+    cm.connect();
+    cm.connect();
+    cm.connectFast();
+    assertEquals(1, r.gpioCalls.get());
+
+    r.acceptBaud(9600);
+    assertTrue(cm.connect() != 0);
+    r.acceptBaud(0);
+    cm.connect();
+    assertEquals(2, r.gpioCalls.get());
+  }
+
+  @Test
+  public void backoffDoublesUpToCapAndReconnectTimeIsReported() {
+    SimulatedReader r = new SimulatedReader(1);
+    ConnectionManager cm = new ConnectionManager(r, "/dev/ttyHSL0", 115200, 57600);
+    assertEquals(250, cm.nextBackoffMs());
+    assertEquals(500, cm.nextBackoffMs());
+    for (int i = 0; i < 10; i++) cm.nextBackoffMs();
+    assertEquals(ConnectionManager.BACKOFF_MAX_MS, cm.nextBackoffMs());
+
+    cm.markLost();
+    assertEquals(true, cm.toMap().get("reconnecting"));
+    assertEquals(0, cm.connect());
+    assertEquals(1L, cm.toMap().get("reconnects"));
+    assertEquals(false, cm.toMap().get("reconnecting"));
+    assertEquals(250, cm.nextBackoffMs()); // uğurdan sonra sıfırlanır
+  }
+}
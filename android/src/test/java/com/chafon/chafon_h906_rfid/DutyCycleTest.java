@@ -0,0 +1,51 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DutyCycleTest {
+
+  @Test
+  public void continuous_neverPauses() {
+    DutyCycle d = new DutyCycle(DutyCycle.MODE_CONTINUOUS, 1000, 500);
+    assertEquals(DutyCycle.MODE_CONTINUOUS, d.mode());
+    for (int i = 0; i < 100; i++) assertEquals(0, d.onRound(50, 1 + i * 50L));
+    assertEquals(0, d.offMs());
+  }
+
+  @Test
+  public void duty_pausesOffMsAfterOnMsOfRadioTime() {
+    DutyCycle d = new DutyCycle(DutyCycle.MODE_DUTY, 300, 700);
+    assertEquals(DutyCycle.MODE_DUTY, d.mode());
+    long now = 1;
+    // 100 ms-lik round-lar: üçüncüdən sonra 700 ms fasilə, sonra yeni on-pəncərə
+    for (int period = 0; period < 3; period++) {
+      assertEquals(0, d.onRound(100, now += 100));
+      assertEquals(0, d.onRound(100, now += 100));
+      assertEquals(700, d.onRound(100, now += 100));
+      now += 700;
+    }
+    assertEquals(9, d.rounds());
+  }
+
+  @Test
+  public void duty_withoutOffTimeIsContinuous() {
+    DutyCycle d = new DutyCycle(DutyCycle.MODE_DUTY, 100, 0);
+    assertEquals(DutyCycle.MODE_CONTINUOUS, d.mode());
+    assertEquals(0, d.onRound(500, 1));
+  }
+
+  @Test
+  public void roundsPerSecond_measuredOverOneSecondWindows() {
+    DutyCycle d = new DutyCycle(DutyCycle.MODE_CONTINUOUS, 1000, 0);
+    assertEquals(0.0, d.roundsPerSecond(), 0);
+    long now = 1000;
+    d.onRound(20, now); // pəncərə başlanğıcı
+    for (int i = 0; i < 40; i++) d.onRound(20, now += 25); // başlanğıc + 40 round / 1000 ms
+    assertEquals(41.0, d.roundsPerSecond(), 0.01);
+
+    for (int i = 0; i < 10; i++) d.onRound(100, now += 100); // yeni pəncərə: 10 round / 1000 ms
+    assertEquals(10.0, d.roundsPerSecond(), 0.01);
+  }
+}
@@ -0,0 +1,60 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class EpcAggregatorTest {
+  @Test
+  public void observe_keysOnBytesRegardlessOfHexCase() {
+    EpcAggregator agg = new EpcAggregator();
+    assertTrue(agg.observe(EpcKey.fromHex("e2801160"), -60, 1000).isNew());
+    EpcAggregator.Stats s = agg.observe(EpcKey.fromHex("E2801160"), -50, 1010);
+
+    assertFalse(s.isNew());
+    assertEquals(1, agg.size());
+    assertEquals(2, s.count);
+    assertEquals(-60, s.rssiMin);
+    assertEquals(-50, s.rssiMax);
+    assertEquals(1000, s.firstSeen);
+    assertEquals(1010, s.lastSeen);
+  }
+
+  @Test
+  public void drainSummary_reportsOnlyChangedTagsSinceLastDrain() {
+    EpcAggregator agg = new EpcAggregator();
+    agg.observe(EpcKey.fromHex("AA"), 10, 0);
+    agg.observe(EpcKey.fromHex("AA"), 20, 1);
+    agg.observe(EpcKey.fromHex("BB"), 30, 2);
+
+    List<Map<String, Object>> first = agg.drainSummary();
+    assertEquals(2, first.size());
+    assertNull(agg.drainSummary());
+
+    agg.observe(EpcKey.fromHex("AA"), 30, 3);
+    List<Map<String, Object>> second = agg.drainSummary();
+    assertEquals(1, second.size());
+    assertEquals("AA", second.get(0).get("epc"));
+    assertEquals(3, second.get(0).get("count"));
+    assertEquals(1, second.get(0).get("delta"));
+  }
+
+  @Test
+  public void eviction_boundedByCapacityAndTtl() {
+    EpcAggregator agg = new EpcAggregator();
+    agg.configure(100, 2);
+    agg.observe(EpcKey.fromHex("01"), 0, 0);
+    agg.observe(EpcKey.fromHex("02"), 0, 50);
+    agg.observe(EpcKey.fromHex("03"), 0, 60);
+    assertEquals(2, agg.size());
+
+    assertEquals(1, agg.evictExpired(155));
+    assertEquals(1, agg.size());
+    assertEquals(2, agg.evictedCount());
+  }
+}
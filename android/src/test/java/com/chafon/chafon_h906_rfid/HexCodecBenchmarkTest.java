@@ -0,0 +1,138 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import org.junit.Test;
+
+/**
+ * HexCodec / EpcKey üçün düzgünlük testləri və köhnə helper-lərlə müqayisəli micro-benchmark.
+ * Benchmark nəticələri stdout-a yazılır; assert yalnız ayrılan yaddaşın azalmasını yoxlayır
+ * (vaxt CI maşınında dəyişkəndir).
+ */
+public class HexCodecBenchmarkTest {
+
+  private static final int WARMUP = 20_000;
+  private static final int ITERATIONS = 200_000;
+
+  // ---- köhnə helper-lər (ChafonH906RfidPlugin-dən, müqayisə üçün) ----
+
+  private static byte[] legacyHexToBytes(String s) {
+    if (s == null) return new byte[0];
+    s = s.replaceAll("\\s+", "");
+    if (s.length() % 2 != 0) s = "0" + s;
+    byte[] out = new byte[s.length() / 2];
+    for (int i = 0; i < s.length(); i += 2) {
+      out[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
+              + Character.digit(s.charAt(i + 1), 16));
+    }
+    return out;
+  }
+
+  private static String legacyBytesToHex(byte[] bytes, int offset, int length) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = offset; i < offset + length && i < bytes.length; i++) {
+      sb.append(String.format("%02X", bytes[i]));
+    }
+    return sb.toString();
+  }
+
+  // ---- düzgünlük ----
+
+  @Test
+  public void codec_matchesLegacyHelpers() {
+    String[] samples = {"E2801160600002085A1B3C4D", "e2 80 11 60", "abc", "", "00FF7f80"};
+    for (String s : samples) {
+      byte[] expected = legacyHexToBytes(s);
+      assertArrayEquals(expected, HexCodec.decode(s));
+      assertEquals(legacyBytesToHex(expected, 0, expected.length), HexCodec.encode(expected));
+    }
+  }
+
+  @Test
+  public void upper_returnsSameInstanceWhenAlreadyUpperCase() {
+    String s = "E2801160";
+    assertSame(s, HexCodec.upper(s));
+    assertEquals("E2801160AB", HexCodec.upper("e2801160ab"));
+  }
+
+  @Test
+  public void probe_findsStoredKeyWithoutAllocatingNewKey() {
+    HashMap<EpcKey, String> map = new HashMap<>();
+    map.put(EpcKey.fromHex("E2801160600002085A1B3C4D"), "x");
+    EpcKey probe = EpcKey.probe();
+
+    assertEquals("x", map.get(probe.set("e2801160600002085a1b3c4d")));
+    assertEquals(null, map.get(probe.set("E2801160600002085A1B3C4E")));
+    assertEquals(EpcKey.fromHex("AABB"), probe.set("AABB").copy());
+  }
+
+  // ---- benchmark ----
+
+  @Test
+  public void benchmark_tagPathAllocatesLessThanLegacyHelpers() {
+    final String epcHex = "e2801160600002085a1b3c4d";
+    final byte[] epc = HexCodec.decode(epcHex);
+    final HashMap<EpcKey, Integer> seen = new HashMap<>();
+    seen.put(EpcKey.fromHex(epcHex), 0);
+    final EpcKey probe = EpcKey.probe();
+
+    // köhnə yol: toUpperCase + hexToBytes (regex) + bytesToHex (String.format)
+    Runnable legacy = () -> {
+      String up = epcHex.toUpperCase();
+      byte[] b = legacyHexToBytes(up);
+      sink += legacyBytesToHex(b, 0, b.length).length();
+    };
+    // yeni yol: probe ilə byte açar axtarışı (təkrar tag — yeni String/byte[] yoxdur)
+    Runnable codec = () -> {
+      Integer v = seen.get(probe.set(epcHex));
+      sink += v == null ? 0 : 1;
+      sink += HexCodec.encode(epc, 0, epc.length, scratch, 0);
+    };
+
+    Result old = measure(legacy);
+    Result neu = measure(codec);
+    System.out.println(String.format(
+            "hex tag path: legacy %.1f ns/op %.1f B/op | codec %.1f ns/op %.1f B/op",
+            old.nanosPerOp, old.bytesPerOp, neu.nanosPerOp, neu.bytesPerOp));
+
+    if (old.bytesPerOp >= 0 && neu.bytesPerOp >= 0) {
+      assertTrue("codec allocates " + neu.bytesPerOp + " B/op", neu.bytesPerOp < old.bytesPerOp / 10);
+    }
+  }
+
+  private static long sink;
+  private static final char[] scratch = new char[128];
+
+  private static final class Result {
+    double nanosPerOp;
+    double bytesPerOp; // -1 — JVM ölçməni dəstəkləmir
+  }
+
+  private static Result measure(Runnable op) {
+    for (int i = 0; i < WARMUP; i++) op.run();
+    long alloc0 = allocatedBytes();
+    long t0 = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) op.run();
+    long t1 = System.nanoTime();
+    long alloc1 = allocatedBytes();
+    Result r = new Result();
+    r.nanosPerOp = (t1 - t0) / (double) ITERATIONS;
+    r.bytesPerOp = (alloc0 < 0 || alloc1 < 0) ? -1 : (alloc1 - alloc0) / (double) ITERATIONS;
+    return r;
+  }
+
+  private static long allocatedBytes() {
+    try {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    } catch (Throwable ignore) {}
+    return -1;
+  }
+}
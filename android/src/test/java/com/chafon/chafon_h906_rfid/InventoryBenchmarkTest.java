@@ -0,0 +1,496 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+/**
+ * Inventory pipeline-ı (SDK callback → aggregator → batcher → EventSink) SimulatedReader ilə,
+ * H906 olmadan ölçür: tag/s, callback→sink gecikməsi (binary rejimdə) və tag başına ayrılan yaddaş.
+ * Nəticələr stdout-a yazılır; assert-lər yalnız itki olmadığını yoxlayır (vaxt maşından asılıdır).
+ */
+public class InventoryBenchmarkTest {
+
+  private static final long RUN_MS = 1000;
+
+  @Test
+  public void benchmark_inventoryPipeline() throws Exception {
+    run("map unbatched", args(1, "map"));
+    run("map batch=256", args(256, "map"));
+    run("binary batch=256", args(256, "binary"));
+  }
+
+  @Test
+  public void epcFilter_onlyMatchingTagsReachSink() throws Exception {
+    SimulatedReader sim = new SimulatedReader(7).population(200, 12).latency(500, 5);
+    Map<String, Object> a = args(256, "map");
+    a.put("epcFilter", sim.epcHex(3).substring(0, 6));
+    Bench b = new Bench(sim);
+    b.start(a);
+    Thread.sleep(200);
+    long dropped = b.stop();
+    assertTrue(b.sink.tags.get() > 0);
+    assertEquals(sim.tagsEmitted.get(), b.sink.tags.get() + dropped);
+    b.close();
+  }
+
+  @Test
+  public void surveyChannels_sdkExceptionEndsSurveyAndRestoresRegion() throws Exception {
+    SimulatedReader sim = new SimulatedReader(23).population(50, 12).latency(200, 2);
+    Bench b = new Bench(sim);
+    Map<String, Object> r = new HashMap<>();
+    r.put("band", "EU");
+    r.put("maxChannel", 9);
+    assertEquals(true, ((Map<?, ?>) b.call("setRegion", r)).get("success"));
+    sim.throwOnRound(sim.rounds.get() + 6); // ikinci pəncərənin ortası
+    Map<String, Object> a = new HashMap<>();
+    a.put("band", "EU");
+    a.put("roundsPerWindow", 4);
+    assertEquals(true, ((Map<?, ?>) b.call("surveyChannels", a)).get("success"));
+
+    Map<?, ?> res = null;
+    for (int i = 0; i < 200 && res == null; i++) {
+      Thread.sleep(10);
+      Map<?, ?> ev = (Map<?, ?>) b.sink.lastEvent.get("channelSurvey");
+      if (ev != null && Boolean.TRUE.equals(ev.get("finished"))) res = ev;
+    }
+    assertTrue("survey did not finish", res != null);
+    assertEquals(true, res.get("cancelled"));
+    assertEquals("simulated SDK failure", res.get("error"));
+    assertEquals(false, res.get("applied"));
+    assertEquals(0, sim.regionMin());
+    assertEquals(9, sim.regionMax());
+    b.start(args(256, "map"));
+    b.stop();
+    b.close();
+  }
+
+  @Test
+  public void readFilter_rejectedReadsNeverReachSink() throws Exception {
+    SimulatedReader sim = new SimulatedReader(21).population(200, 12).rssi(60, 10).latency(500, 5);
+    Bench b = new Bench(sim);
+    Map<String, Object> bad = args(256, "map");
+    Map<String, Object> badFilter = new HashMap<>();
+    badFilter.put("epcPrefixes", Collections.singletonList("30ZZ"));
+    bad.put("filter", badFilter);
+    assertEquals(false, ((Map<?, ?>) b.call("startInventory", bad)).get("success"));
+
+    String p3 = sim.epcHex(3).substring(0, 5);
+    String p4 = sim.epcHex(4).substring(0, 5);
+    int matching = 0;
+    for (int i = 0; i < 200; i++) {
+      if (sim.epcHex(i).startsWith(p3) || sim.epcHex(i).startsWith(p4)) matching++;
+    }
+    Map<String, Object> a = args(256, "map");
+    Map<String, Object> filter = new HashMap<>();
+    filter.put("epcPrefixes", Arrays.asList(p3, p4));
+    filter.put("rssiMin", 60);
+    a.put("filter", filter);
+    b.start(a);
+    Thread.sleep(200);
+    Map<?, ?> resp = (Map<?, ?>) b.call("stopInventory", null);
+    b.main.drain();
+    Map<?, ?> stats = (Map<?, ?>) resp.get("filter");
+    long accepted = (Long) stats.get("accepted");
+    long dropped = ((Number) ((Map<?, ?>) resp.get("queue")).get("dropped")).longValue();
+    assertTrue(accepted > 0);
+    assertTrue((Long) stats.get("droppedTotal") > accepted); // 200 tag-dan 2-si, RSSI-nin ~yarısı
+    assertEquals(sim.tagsEmitted.get(), accepted + (Long) stats.get("droppedTotal"));
+    assertEquals(accepted, b.sink.tags.get() + dropped);
+    assertEquals(matching, resp.get("uniqueTags")); // aggregator yalnız keçən oxuları görür
+    b.close();
+  }
+
+  @Test
+  public void pauseResume_keepsSessionStateAndSkipsParamWrites() throws Exception {
+    SimulatedReader sim = new SimulatedReader(9).population(50, 12).readProbability(0.5).latency(500, 5);
+    Map<String, Object> a = args(256, "map");
+    a.put("dedup", true);
+    a.put("qValue", 4);
+    a.put("session", 0);
+    Bench b = new Bench(sim);
+    Map<?, ?> started = (Map<?, ?>) b.call("startInventory", a);
+    assertEquals(false, started.get("paramsWritten")); // connect Q=4/S=0 yazıb — eynidir
+    Thread.sleep(100);
+
+    Map<?, ?> paused = (Map<?, ?>) b.call("pauseInventory", null);
+    assertEquals("paused", ((Map<?, ?>) paused.get("session")).get("state"));
+    int unique = (Integer) paused.get("uniqueTags");
+    assertTrue(unique > 0);
+    long rounds = sim.rounds.get();
+    long writes = sim.paramWrites.get();
+    Thread.sleep(100);
+    assertEquals(rounds, sim.rounds.get());
+
+    Map<?, ?> resumed = (Map<?, ?>) b.call("resumeInventory", null);
+    assertEquals(false, resumed.get("paramsWritten"));
+    assertEquals(writes, sim.paramWrites.get());
+    Thread.sleep(100);
+    assertTrue(sim.rounds.get() > rounds);
+
+    Map<?, ?> stopped = (Map<?, ?>) b.call("stopInventory", null);
+    Map<?, ?> summary = (Map<?, ?>) stopped.get("session");
+    assertEquals("stopped", summary.get("state"));
+    assertEquals(1, summary.get("pauses"));
+    assertEquals(started.get("session"), summary.get("session"));
+    assertTrue((Integer) summary.get("uniqueTags") >= unique); // dedup cədvəli pauzada sıfırlanmayıb
+    assertTrue((Long) summary.get("pausedMs") >= 90);
+    b.main.drain();
+    b.close();
+  }
+
+  @Test
+  public void locate_tightMaskedRoundsAndFixedRateProximity() throws Exception {
+    SimulatedReader sim = new SimulatedReader(11).population(300, 12).rssi(70, 6).latency(500, 5);
+    Bench b = new Bench(sim);
+    Map<String, Object> a = new HashMap<>();
+    a.put("epc", sim.epcHex(7));
+    a.put("uiHz", 50);
+    Map<?, ?> started = (Map<?, ?>) b.call("startLocate", a);
+    assertEquals(true, started.get("success"));
+    Thread.sleep(300);
+
+    Map<?, ?> ev = (Map<?, ?>) b.sink.lastEvent.get("locate");
+    assertTrue(ev != null);
+    assertEquals(true, ev.get("found"));
+    assertTrue((Double) ev.get("proximity") > 0.5);
+    assertEquals(0L, b.sink.tags.get()); // oxular tag event-i kimi getmir
+    Map<?, ?> stopped = (Map<?, ?>) b.call("stopLocate", null);
+    long rounds = (Long) stopped.get("rounds");
+    // maska: hər round yalnız hədəf tag (stop round-un ortasına düşə bilər — o oxu sayılmır)
+    assertTrue(rounds - (Long) stopped.get("reads") <= 1);
+    assertTrue("rounds=" + rounds, rounds > 200); // ~0.5 ms round, aralarında gözləmə yoxdur
+
+    Map<?, ?> inv = (Map<?, ?>) b.call("startInventory", args(256, "map"));
+    assertEquals(true, inv.get("success"));
+    b.stop();
+    b.close();
+  }
+
+  @Test
+  public void calibratePower_suggestsLowestPowerCoveringShelfWithoutCrossReads() throws Exception {
+    // 80 rəf tag-ı 5..18 güclə oxunur, 20 qonşu rəf tag-ı yalnız 26+ ilə
+    SimulatedReader sim = new SimulatedReader(13).population(100, 12).latency(200, 2)
+            .powerProfile(0, 80, 5, 18).powerProfile(80, 100, 26, 30);
+    Bench b = new Bench(sim);
+    Map<String, Object> a = new HashMap<>();
+    a.put("from", 5);
+    a.put("to", 30);
+    a.put("step", 5);
+    a.put("expectedCount", 80);
+    a.put("targetCoverage", 1.0);
+    a.put("apply", true);
+    Map<?, ?> started = (Map<?, ?>) b.call("calibratePower", a);
+    assertEquals(true, started.get("success"));
+    assertEquals(6, started.get("levels"));
+
+    Map<?, ?> res = null;
+    for (int i = 0; i < 200 && res == null; i++) {
+      Thread.sleep(10);
+      Map<?, ?> ev = (Map<?, ?>) b.sink.lastEvent.get("powerCalibration");
+      if (ev != null && Boolean.TRUE.equals(ev.get("finished"))) res = ev;
+    }
+    assertTrue("calibration did not finish", res != null);
+    assertEquals(20, res.get("suggestedPower"));
+    assertEquals(true, res.get("applied"));
+    assertEquals(20, sim.power());
+    assertEquals(4, ((List<?>) res.get("levels")).size()); // 25/30 ölçülmür — hədəf 20-də tapıldı
+
+    // eyni güc təkrar yazılmır; loop işləyərkən Q/Session toxunulmur
+    long powerWrites = sim.powerWrites.get();
+    long paramWrites = sim.paramWrites.get();
+    Map<String, Object> p = new HashMap<>();
+    p.put("power", 20);
+    Map<?, ?> data = (Map<?, ?>) ((Map<?, ?>) b.call("setPower", p)).get("data");
+    assertEquals(false, data.get("powerWritten"));
+    assertEquals(powerWrites, sim.powerWrites.get());
+    b.start(args(256, "map"));
+    p.put("power", 25);
+    b.call("setPower", p);
+    b.stop();
+    assertEquals(powerWrites + 1, sim.powerWrites.get());
+    assertEquals(paramWrites, sim.paramWrites.get());
+    b.close();
+  }
+
+  @Test
+  public void calibratePower_sdkExceptionEndsSweepAndRestoresPower() throws Exception {
+    SimulatedReader sim = new SimulatedReader(19).population(50, 12).latency(200, 2);
+    Bench b = new Bench(sim);
+    Map<String, Object> p = new HashMap<>();
+    p.put("power", 22);
+    b.call("setPower", p);
+    sim.throwOnRound(sim.rounds.get() + 7); // ikinci səviyyənin ortası
+    Map<String, Object> a = new HashMap<>();
+    a.put("from", 5);
+    a.put("to", 30);
+    a.put("step", 5);
+    a.put("apply", true);
+    assertEquals(true, ((Map<?, ?>) b.call("calibratePower", a)).get("success"));
+
+    Map<?, ?> res = null;
+    for (int i = 0; i < 200 && res == null; i++) {
+      Thread.sleep(10);
+      Map<?, ?> ev = (Map<?, ?>) b.sink.lastEvent.get("powerCalibration");
+      if (ev != null && Boolean.TRUE.equals(ev.get("finished"))) res = ev;
+    }
+    assertTrue("calibration did not finish", res != null);
+    assertEquals(true, res.get("cancelled"));
+    assertEquals("simulated SDK failure", res.get("error"));
+    assertEquals(false, res.get("applied"));
+    assertEquals(22, sim.power());
+    // reader yenidən sərbəstdir
+    b.start(args(256, "map"));
+    b.stop();
+    b.close();
+  }
+
+  @Test
+  public void surveyChannels_picksLongestCleanRunAndReappliesItPerSite() throws Exception {
+    SimulatedReader sim = new SimulatedReader(17).population(100, 12).latency(200, 2)
+            .noisyChannels(5, 6, 7, 12);
+    Bench b = new Bench(sim);
+    Map<String, String> saved = new HashMap<>();
+    b.plugin.setRegionStore(new RegionConfig.Store() {
+      @Override public String get(String site) { return saved.get(site); }
+      @Override public void put(String site, String value) { saved.put(site, value); }
+    });
+    Map<String, Object> a = new HashMap<>();
+    a.put("band", "EU");
+    a.put("roundsPerWindow", 4);
+    a.put("site", "dock-1");
+    Map<?, ?> started = (Map<?, ?>) b.call("surveyChannels", a);
+    assertEquals(true, started.get("success"));
+    assertEquals(15, started.get("windows"));
+
+    Map<?, ?> res = null;
+    for (int i = 0; i < 300 && res == null; i++) {
+      Thread.sleep(10);
+      Map<?, ?> ev = (Map<?, ?>) b.sink.lastEvent.get("channelSurvey");
+      if (ev != null && Boolean.TRUE.equals(ev.get("finished"))) res = ev;
+    }
+    assertTrue("survey did not finish", res != null);
+    Map<?, ?> best = (Map<?, ?>) res.get("best");
+    assertEquals(0, best.get("minChannel"));
+    assertEquals(4, best.get("maxChannel"));
+    assertEquals(true, res.get("applied"));
+    assertEquals(4, sim.regionMax());
+    assertEquals("4:0:4", saved.get("dock-1"));
+
+    // başqa region yazılıb — yenidən qoşulanda site-ın regionu qayıdır, survey təkrarlanmır
+    Map<String, Object> r = new HashMap<>();
+    r.put("band", "EU");
+    b.call("setRegion", r);
+    assertEquals(14, sim.regionMax());
+    b.call("disconnect", null);
+    Map<String, Object> c = new HashMap<>();
+    c.put("site", "dock-1");
+    assertEquals(true, ((Map<?, ?>) b.call("connect", c)).get("success"));
+    assertEquals(0, sim.regionMin());
+    assertEquals(4, sim.regionMax());
+    b.close();
+  }
+
+  // ---- harness ----
+
+  private static Map<String, Object> args(int batchSize, String encoding) {
+    Map<String, Object> a = new HashMap<>();
+    a.put("batchSize", batchSize);
+    a.put("batchIntervalMs", 20);
+    a.put("encoding", encoding);
+    a.put("summaryIntervalMs", 0);
+    return a;
+  }
+
+  private static void run(String name, Map<String, Object> args) throws Exception {
+    SimulatedReader sim = new SimulatedReader(42).population(300, 12).readProbability(0.9).latency(1000, 2);
+    Bench b = new Bench(sim);
+    b.start(args);
+    long alloc0 = allocatedBytes();
+    long t0 = System.nanoTime();
+    long tags0 = b.sink.tags.get();
+    Thread.sleep(RUN_MS);
+    long tags1 = b.sink.tags.get();
+    long t1 = System.nanoTime();
+    long alloc1 = allocatedBytes();
+    long dropped = b.stop();
+
+    double secs = (t1 - t0) / 1e9;
+    long delivered = tags1 - tags0;
+    String alloc = (alloc0 < 0 || alloc1 < 0 || delivered == 0) ? "n/a"
+            : String.format("%.0f B/tag", (alloc1 - alloc0) / (double) delivered);
+    String latency = b.sink.latencyCount.get() == 0 ? "n/a"
+            : String.format("p50 %d ms p99 %d ms", b.sink.percentile(0.50), b.sink.percentile(0.99));
+    System.out.println(String.format("inventory %-18s %9.0f tags/s  rounds %5d  %s  %s",
+            name, delivered / secs, sim.rounds.get(), latency, alloc));
+
+    assertTrue(delivered > 0);
+    assertEquals("tags lost between callback and sink", sim.tagsEmitted.get(), b.sink.tags.get() + dropped);
+    b.close();
+  }
+
+  /** Plugin + simulyator + ayrıca "main" thread. */
+  private static final class Bench {
+    final SimulatedReader sim;
+    final TestMain main = new TestMain();
+    final CountingSink sink = new CountingSink();
+    final ChafonH906RfidPlugin plugin;
+
+    Bench(SimulatedReader sim) {
+      this.sim = sim;
+      plugin = new ChafonH906RfidPlugin(sim, main);
+      plugin.setTagSink(sink);
+    }
+
+    void start(Map<String, Object> args) throws Exception {
+      Object resp = call("startInventory", args);
+      assertEquals(true, ((Map<?, ?>) resp).get("success"));
+    }
+
+    /** Növbənin overflow ilə atdığı oxu sayını qaytarır. */
+    long stop() throws Exception {
+      Map<?, ?> resp = (Map<?, ?>) call("stopInventory", null);
+      // son batch-lar main thread-ə çatsın
+      main.drain();
+      return ((Number) ((Map<?, ?>) resp.get("queue")).get("dropped")).longValue();
+    }
+
+    Object call(String method, Object args) throws Exception {
+      final CountDownLatch done = new CountDownLatch(1);
+      final Object[] out = new Object[1];
+      plugin.onMethodCall(new MethodCall(method, args), new MethodChannel.Result() {
+        @Override public void success(Object o) { out[0] = o; done.countDown(); }
+        @Override public void error(String c, String m, Object d) { out[0] = d; done.countDown(); }
+        @Override public void notImplemented() { done.countDown(); }
+      });
+      assertTrue(method + " timed out", done.await(5, TimeUnit.SECONDS));
+      return out[0];
+    }
+
+    void close() {
+      main.exec.shutdownNow();
+    }
+  }
+
+  /** Looper əvəzi: tək thread-li scheduled executor. */
+  private static final class TestMain implements MainExecutor {
+    final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor();
+    final Map<Runnable, ScheduledFuture<?>> delayed = new ConcurrentHashMap<>();
+
+    @Override public void post(Runnable r) {
+      exec.execute(r);
+    }
+
+    @Override public void postDelayed(final Runnable r, long delayMs) {
+      delayed.put(r, exec.schedule(() -> {
+        delayed.remove(r);
+        r.run();
+      }, delayMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override public void removeCallbacks(Runnable r) {
+      ScheduledFuture<?> f = delayed.remove(r);
+      if (f != null) f.cancel(false);
+    }
+
+    void drain() throws Exception {
+      Thread.sleep(50); // gecikdirilmiş flush-lar
+      final CountDownLatch l = new CountDownLatch(1);
+      exec.execute(l::countDown);
+      l.await(5, TimeUnit.SECONDS);
+    }
+  }
+
+  /** EventSink: tag sayı + binary rejimdə record timestamp-ından gecikmə histogramı (ms). */
+  private static final class CountingSink implements EventChannel.EventSink {
+    final AtomicLong tags = new AtomicLong();
+    final Map<Object, Object> lastEvent = new ConcurrentHashMap<>(); // side event açarı → son dəyər
+    final AtomicLong latencyCount = new AtomicLong();
+    final long[] latencyMs = new long[1001];
+
+    @Override public void success(Object event) {
+      if (event instanceof byte[]) {
+        countPacked((byte[]) event);
+      } else if (event instanceof Map) {
+        Map<?, ?> m = (Map<?, ?>) event;
+        if (m.get("tags") instanceof List) tags.addAndGet(((List<?>) m.get("tags")).size());
+        else if (m.containsKey("epc")) tags.incrementAndGet();
+        else for (Map.Entry<?, ?> e : m.entrySet()) lastEvent.put(e.getKey(), e.getValue());
+      }
+    }
+
+    private void countPacked(byte[] packed) {
+      long now = System.currentTimeMillis();
+      ByteBuffer b = ByteBuffer.wrap(packed);
+      b.position(2);
+      int count = b.getShort() & 0xFFFF;
+      long base = b.getLong();
+      for (int i = 0; i < count; i++) {
+        skip(b);                                     // EPC
+        b.getShort();                                // rssi
+        long ts = base + (b.getInt() & 0xFFFFFFFFL);
+        b.get();                                     // antenna
+        int flags = b.get();
+        if ((flags & TagEventCodec.FLAG_TID) != 0) skip(b);
+        if ((flags & TagEventCodec.FLAG_MEM) != 0) skip(b);
+        latencyMs[(int) Math.max(0, Math.min(1000, now - ts))]++;
+      }
+      latencyCount.addAndGet(count);
+      tags.addAndGet(count);
+    }
+
+    /** u8 uzunluq + o qədər bayt. */
+    private static void skip(ByteBuffer b) {
+      int n = b.get() & 0xFF;
+      b.position(b.position() + n);
+    }
+
+    long percentile(double p) {
+      long target = (long) Math.ceil(latencyCount.get() * p);
+      long acc = 0;
+      for (int i = 0; i < latencyMs.length; i++) {
+        acc += latencyMs[i];
+        if (acc >= target) return i;
+      }
+      return latencyMs.length - 1;
+    }
+
+    @Override public void error(String code, String message, Object details) {}
+    @Override public void endOfStream() {}
+  }
+
+  /** Bütün canlı thread-lərin ayırdığı yaddaş (reader + main thread-lər benchmark boyu yaşayır). */
+  private static long allocatedBytes() {
+    try {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+        long sum = 0;
+        for (long v : sun.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+          if (v > 0) sum += v;
+        }
+        return sum;
+      }
+    } catch (Throwable ignore) {}
+    return -1;
+  }
+}
@@ -0,0 +1,108 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class InventoryJournalTest {
+
+  private static Object await(java.util.function.Consumer<InventoryJournal.Callback> op) throws Exception {
+    final CountDownLatch done = new CountDownLatch(1);
+    final Object[] out = new Object[2];
+    op.accept((value, error) -> {
+      out[0] = value;
+      out[1] = error;
+      done.countDown();
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    if (out[1] != null) throw new AssertionError(out[1]);
+    return out[0];
+  }
+
+  private static int countReads(List<?> chunks) {
+    int n = 0;
+    for (Object c : chunks) n += ByteBuffer.wrap((byte[]) c).getShort(2) & 0xFFFF;
+    return n;
+  }
+
+  @Test
+  public void sessionIsWrittenInFramesAndReadBackInPages() throws Exception {
+    File dir = Files.createTempDirectory("h906j").toFile();
+    InventoryJournal journal = new InventoryJournal();
+    journal.setDirectory(dir);
+
+    String id = journal.open(1_700_000_000_000L);
+    assertNotNull(id);
+    TagRead r = new TagRead();
+    for (int i = 0; i < 1300; i++) {
+      journal.append(r.set(EpcKey.fromHex(String.format("3000%08X", i)), 60, 1_700_000_000_000L + i, 1));
+    }
+    journal.close();
+
+    List<?> sessions = (List<?>) await(journal::list);
+    assertEquals(1, sessions.size());
+    Map<?, ?> s = (Map<?, ?>) sessions.get(0);
+    assertEquals(id, s.get("session"));
+    assertEquals(1_700_000_000_000L, s.get("startedAt"));
+    assertEquals(false, s.get("open"));
+
+    // kiçik maxBytes — hər səhifədə bir frame
+    long offset = 0;
+    int total = 0;
+    int pages = 0;
+    while (true) {
+      final long off = offset;
+      Map<?, ?> page = (Map<?, ?>) await(cb -> journal.read(id, off, 1, cb));
+      total += countReads((List<?>) page.get("chunks"));
+      offset = (Long) page.get("nextOffset");
+      pages++;
+      if ((Boolean) page.get("eof")) break;
+    }
+    assertEquals(1300, total);
+    assertEquals(3, pages); // 512 + 512 + 276
+    assertEquals(0L, journal.stats().get("dropped"));
+  }
+
+  @Test
+  public void truncatedTailFrameIsIgnored() throws Exception {
+    File dir = Files.createTempDirectory("h906j").toFile();
+    InventoryJournal journal = new InventoryJournal();
+    journal.setDirectory(dir);
+    String id = journal.open(42L);
+    journal.append(new TagRead().set(EpcKey.fromHex("E280"), 50, 42L, 0));
+    journal.close();
+    await(journal::list); // io növbəsi boşalsın
+
+    // proses yazarkən öldü: yarımçıq frame
+    try (RandomAccessFile raf = new RandomAccessFile(new File(dir, id + InventoryJournal.EXT), "rw")) {
+      raf.seek(raf.length());
+      raf.writeInt(100);
+      raf.write(new byte[10]);
+    }
+    Map<?, ?> page = (Map<?, ?>) await(cb -> journal.read(id, 0, 1 << 20, cb));
+    assertEquals(1, countReads((List<?>) page.get("chunks")));
+    assertFalse((Boolean) page.get("eof"));
+  }
+
+  @Test
+  public void invalidSessionIdsAreRejected() throws Exception {
+    InventoryJournal journal = new InventoryJournal();
+    journal.setDirectory(Files.createTempDirectory("h906j").toFile());
+    final CountDownLatch done = new CountDownLatch(1);
+    final String[] err = new String[1];
+    journal.delete("../etc", (v, e) -> { err[0] = e; done.countDown(); });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertNotNull(err[0]);
+  }
+}
@@ -0,0 +1,44 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class InventoryMetricsTest {
+
+  @Test
+  public void histogram_percentilesUseBucketUpperBound() {
+    InventoryMetrics.Histogram h = new InventoryMetrics.Histogram(InventoryMetrics.MS_BOUNDS);
+    for (int i = 0; i < 90; i++) h.record(3);   // (2, 5]
+    for (int i = 0; i < 10; i++) h.record(150); // (100, 200]
+
+    assertEquals(5.0, h.percentile(0.50), 0);
+    assertEquals(5.0, h.percentile(0.90), 0);
+    assertEquals(150.0, h.percentile(0.99), 0); // max-dan böyük olmur
+    Map<String, Object> m = h.toMap();
+    assertEquals(100L, m.get("count"));
+    assertEquals(17.7, (Double) m.get("mean"), 1e-9);
+    assertEquals(90L, ((List<?>) m.get("counts")).get(2));
+  }
+
+  @Test
+  public void tick_computesRatesOverWindow() {
+    InventoryMetrics metrics = new InventoryMetrics();
+    metrics.reset(1000);
+    metrics.onRound(40, 12, 30, 10, 0, false);
+    metrics.onRound(60, 8, 20, 0, 0x30, true);
+    metrics.tick(1500);
+
+    Map<String, Object> m = metrics.toMap(1500);
+    assertEquals(100.0, (Double) m.get("readsPerSecond"), 1e-9);
+    assertEquals(20.0, (Double) m.get("uniquePerSecond"), 1e-9);
+    assertEquals(4.0, (Double) m.get("roundsPerSecond"), 1e-9);
+    assertEquals(1L, m.get("roundErrors"));
+    assertEquals(500L, m.get("uptimeMs"));
+
+    metrics.tick(2500); // boş pəncərə
+    assertEquals(0.0, (Double) metrics.toMap(2500).get("readsPerSecond"), 1e-9);
+  }
+}
@@ -0,0 +1,73 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class KnownTagIndexTest {
+
+  private static String epc(int i) {
+    return String.format("3000%020X", (long) i * 2654435761L);
+  }
+
+  @Test
+  public void lookup_hasNoFalseNegativesAndBloomRejectsUnknown() {
+    List<String> epcs = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) epcs.add(epc(i));
+    KnownTagIndex idx = KnownTagIndex.fromHex(epcs, true);
+    assertEquals(20_000, idx.size());
+
+    EpcKey probe = EpcKey.probe();
+    for (int i = 0; i < 20_000; i++) assertTrue(idx.contains(probe.set(epc(i))));
+    int falsePositives = 0;
+    for (int i = 20_000; i < 40_000; i++) if (idx.contains(probe.set(epc(i)))) falsePositives++;
+    assertEquals(0, falsePositives); // Bloom müsbət versə də cədvəl rədd edir
+    assertTrue((Long) idx.stats().get("bloomRejects") > 19_000);
+  }
+
+  @Test
+  public void match_tracksSeenAndMissing() {
+    KnownTagIndex idx = KnownTagIndex.fromHex(Arrays.asList("E280AA", "E280BB", "e280bb", "E280CC"), false);
+    assertEquals(3, idx.size());
+    assertEquals(1, idx.duplicates());
+
+    assertTrue(idx.match(EpcKey.fromHex("E280BB")));
+    assertTrue(idx.match(EpcKey.fromHex("E280BB")));
+    assertFalse(idx.match(EpcKey.fromHex("E280DD")));
+
+    assertEquals(1, idx.stats().get("seen"));
+    assertEquals(2, idx.stats().get("missing"));
+    assertEquals(2L, idx.stats().get("expectedReads"));
+    assertEquals(1L, idx.stats().get("unexpectedReads"));
+    List<String> missing = idx.missing(0, 10);
+    assertEquals(2, missing.size());
+    assertTrue(missing.containsAll(Arrays.asList("E280AA", "E280CC")));
+    assertEquals(1, idx.missing(1, 10).size());
+
+    idx.resetSeen();
+    assertEquals(3, idx.stats().get("missing"));
+  }
+
+  @Test
+  public void load_fromBlobAndCsvFile() throws Exception {
+    byte[] blob = {2, (byte) 0xE2, (byte) 0x80, 3, 0x30, 0x00, 0x01};
+    KnownTagIndex fromBlob = KnownTagIndex.fromBlob(blob, true);
+    assertEquals(2, fromBlob.size());
+    assertTrue(fromBlob.contains(EpcKey.fromHex("300001")));
+
+    File f = File.createTempFile("known", ".csv");
+    Files.write(f.toPath(), "# stock\nE28011,shelf A\n\n300002;x\n  AABB  \n".getBytes(StandardCharsets.UTF_8));
+    KnownTagIndex fromFile = KnownTagIndex.fromFile(f, false, true);
+    assertEquals(3, fromFile.size());
+    assertTrue(fromFile.contains(EpcKey.fromHex("E28011")));
+    assertTrue(fromFile.contains(EpcKey.fromHex("AABB")));
+  }
+}
@@ -0,0 +1,59 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LinkHealthTest {
+
+  @Test
+  public void freshAfterOkUntilWindowExpires() throws Exception {
+    LinkHealth h = new LinkHealth();
+    h.setFreshMs(30);
+    assertFalse(h.isFresh()); // heç vaxt cavab olmayıb
+    h.markOk();
+    assertTrue(h.isFresh());
+    h.skipped();
+    assertEquals(1L, h.toMap().get("probesSkipped"));
+    Thread.sleep(60);
+    assertFalse(h.isFresh());
+    h.markOk();
+    assertTrue(h.isFresh());
+  }
+
+  @Test
+  public void zeroWindowAlwaysProbes() throws Exception {
+    LinkHealth h = new LinkHealth();
+    h.setFreshMs(0);
+    h.markOk();
+    Thread.sleep(2);
+    assertFalse(h.isFresh());
+    assertEquals(0L, h.toMap().get("freshMs"));
+  }
+
+  @Test
+  public void commErrorInvalidatesFreshnessAndParamCache() {
+    LinkHealth h = new LinkHealth();
+    byte[] block = {4, 2, 0, 0, 0, 0};
+    h.recordProbe(1_000_000L, true);
+    h.updateParams(block);
+    assertTrue(h.isFresh());
+    assertArrayEquals(block, h.params());
+
+    h.recordProbe(2_000_000L, false); // probe rabitə xətası
+    assertFalse(h.isFresh());
+    assertNull(h.params());
+    assertEquals(2L, h.toMap().get("probes"));
+    assertEquals(1L, h.toMap().get("probeFailures"));
+
+    h.markOk();
+    h.updateParams(block);
+    h.invalidate(); // noteResult(RC_COMM_ERROR)
+    assertFalse(h.isFresh());
+    assertNull(h.params());
+  }
+}
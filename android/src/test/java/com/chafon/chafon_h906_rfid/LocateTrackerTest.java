@@ -0,0 +1,48 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class LocateTrackerTest {
+
+  private static final String EPC = "300833B2DDD9014000000001";
+  private static final long MS = 1_000_000L;
+
+  @Test
+  public void kalmanSmoothsNoiseAndFollowsStep() {
+    LocateTracker lt = new LocateTracker(EpcKey.fromHex(EPC), LocateTracker.FILTER_KALMAN, 0, 30, 80);
+    Random rnd = new Random(1);
+    EpcKey probe = EpcKey.probe();
+    long t = 0;
+    double maxDev = 0;
+    for (int i = 0; i < 200; i++) {
+      t += 2 * MS;
+      lt.onRead(probe.set(EPC), (int) Math.round(50 + rnd.nextGaussian() * 6), t);
+      if (i > 50) maxDev = Math.max(maxDev, Math.abs((Double) lt.snapshot(t).get("smoothed") - 50));
+    }
+    assertTrue("maxDev=" + maxDev, maxDev < 4); // tək oxu ±18-ə qədər səpələnir
+    for (int i = 0; i < 100; i++) {
+      t += 2 * MS;
+      lt.onRead(probe.set(EPC), 70, t);
+    }
+    assertEquals(70, (Double) lt.snapshot(t).get("smoothed"), 2);
+    assertEquals(0.8, lt.proximity(t), 0.05);
+  }
+
+  @Test
+  public void otherTagsIgnoredAndProximityFadesAfterHold() {
+    LocateTracker lt = new LocateTracker(EpcKey.fromHex(EPC), LocateTracker.FILTER_EMA, 0.5, 30, 80);
+    EpcKey probe = EpcKey.probe();
+    assertFalse(lt.onRead(probe.set("300833B2DDD9014000000002"), 80, MS));
+    assertEquals(0, lt.proximity(MS), 0);
+    assertTrue(lt.onRead(probe.set(EPC), 80, MS));
+    long t = MS + LocateTracker.HOLD_MS * MS;
+    assertEquals(1.0, lt.proximity(t), 1e-9);
+    assertEquals(0.5, lt.proximity(t + LocateTracker.FADE_MS / 2 * MS), 1e-9);
+    assertEquals(false, lt.snapshot(t + (LocateTracker.FADE_MS + 1) * MS).get("found"));
+  }
+}
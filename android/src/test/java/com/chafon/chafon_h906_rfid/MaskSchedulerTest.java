@@ -0,0 +1,50 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class MaskSchedulerTest {
+  private static MaskScheduler.Mask mask(String hex) {
+    byte[] data = EpcKey.fromHex(hex).bytes;
+    return new MaskScheduler.Mask(hex, data, MaskScheduler.MEM_EPC, MaskScheduler.EPC_BIT_PTR, data.length * 8, 1);
+  }
+
+  @Test
+  public void cycle_visitsEveryMaskInTurn() {
+    MaskScheduler.Mask a = mask("E280"), b = mask("3000"), c = mask("AA");
+    MaskScheduler sched = new MaskScheduler(Arrays.asList(a, b, c), MaskScheduler.STRATEGY_CYCLE);
+    int[] hits = new int[3];
+    for (int i = 0; i < 30; i++) {
+      MaskScheduler.Mask m = sched.next();
+      hits[m == a ? 0 : m == b ? 1 : 2]++;
+    }
+    assertEquals(10, hits[0]);
+    assertEquals(10, hits[1]);
+    assertEquals(10, hits[2]);
+  }
+
+  @Test
+  public void weighted_shiftsRoundsTowardMasksStillFindingNewTags() {
+    MaskScheduler.Mask fresh = mask("E280"), done = mask("3000");
+    MaskScheduler sched = new MaskScheduler(Arrays.asList(fresh, done), MaskScheduler.STRATEGY_WEIGHTED);
+    int freshRounds = 0;
+    for (int i = 0; i < 200; i++) {
+      MaskScheduler.Mask m = sched.next();
+      if (m == fresh) freshRounds++;
+      sched.onRound(m, 10, m == fresh ? 5 : 0);
+    }
+    assertTrue("fresh=" + freshRounds, freshRounds > 150);
+    assertTrue(done.rounds > 0); // tükənmiş prefiks də tam unudulmur
+  }
+
+  @Test
+  public void mask_encodesBitPointerAndClampsLength() {
+    MaskScheduler.Mask m = new MaskScheduler.Mask("ABCD", new byte[]{(byte) 0xAB, (byte) 0xCD}, 2, 0x0120, 40, 1);
+    assertEquals(0x01, m.adr[0]);
+    assertEquals(0x20, m.adr[1]);
+    assertEquals(16, m.bitLen);
+  }
+}
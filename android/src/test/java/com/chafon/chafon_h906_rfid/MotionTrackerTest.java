@@ -0,0 +1,71 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class MotionTrackerTest {
+
+  private static final EpcKey MOVING = EpcKey.fromHex("300833B2DDD9014000000001");
+  private static final EpcKey SHELF = EpcKey.fromHex("300833B2DDD9014000000002");
+
+  private static List<String> states(List<Map<String, Object>> events, EpcKey key) {
+    List<String> out = new ArrayList<>();
+    if (events == null) return out;
+    for (Map<String, Object> e : events) if (key.toHex().equals(e.get("epc"))) out.add((String) e.get("state"));
+    return out;
+  }
+
+  @Test
+  public void passingTagAndStaticTag_emitOnlyTransitions() {
+    MotionTracker mt = new MotionTracker(8, 16, 1000, 2000, 4.0);
+    List<Map<String, Object>> all = new ArrayList<>();
+    int reads = 0;
+    // 4 s, hər 50 ms: hərəkət edən tag 40→70→40 RSSI (pik 2 s-də), rəfdəki tag ~55 sabit
+    for (long t = 0; t <= 4000; t += 50) {
+      int r = (int) Math.round(70 - Math.abs(t - 2000) * 30.0 / 2000);
+      mt.onRead(MOVING, r, t);
+      mt.onRead(SHELF, 55 + (int) (t / 50 % 2), t);
+      reads += 2;
+      mt.sweep(t);
+      List<Map<String, Object>> d = mt.drain();
+      if (d != null) all.addAll(d);
+    }
+    // yalnız rəfdəki tag oxunur; hərəkət edən departMs-dən sonra departed
+    for (long t = 4050; t <= 5500; t += 50) {
+      mt.onRead(SHELF, 55, t);
+      mt.sweep(t);
+      List<Map<String, Object>> d = mt.drain();
+      if (d != null) all.addAll(d);
+    }
+
+    assertEquals(List.of("appeared", "approaching", "passedPeak", "departed"), states(all, MOVING));
+    assertEquals(List.of("appeared", "static"), states(all, SHELF));
+    Map<String, Object> departed = all.get(all.size() - 1);
+    assertEquals(2000L, departed.get("peakAt"));
+    assertEquals(70, departed.get("peakRssi"));
+    assertEquals(1, mt.activeCount());
+    assertNull(mt.drain());
+    assertEquals(6L, mt.stats().get("transitions")); // ~190 oxudan 6 event
+  }
+
+  @Test
+  public void capacityBoundsActiveTracksAndTracksAreReused() {
+    MotionTracker mt = new MotionTracker(4, 2, 100, 1000, 4.0);
+    mt.onRead(MOVING, 50, 0);
+    mt.onRead(SHELF, 50, 0);
+    mt.onRead(EpcKey.fromHex("3000000000000000000000FF"), 50, 0);
+    assertEquals(2, mt.activeCount());
+    assertEquals(1L, mt.stats().get("overflow"));
+    mt.sweep(200);
+    assertEquals(0, mt.activeCount());
+    mt.onRead(MOVING, 50, 300);
+    assertEquals(1, mt.activeCount());
+    mt.closeAll();
+    assertEquals(List.of("appeared", "departed", "appeared", "departed"), states(mt.drain(), MOVING));
+  }
+}
@@ -0,0 +1,31 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QTunerTest {
+  @Test
+  public void densePopulation_raisesQ() {
+    QTuner tuner = new QTuner(4, 0, 15);
+    for (int i = 0; i < 40; i++) tuner.onRound(300);
+    assertTrue("q=" + tuner.q(), tuner.q() >= 8);
+  }
+
+  @Test
+  public void sparsePopulation_lowersQ() {
+    QTuner tuner = new QTuner(8, 0, 15);
+    for (int i = 0; i < 40; i++) tuner.onRound(1);
+    assertTrue("q=" + tuner.q(), tuner.q() <= 2);
+  }
+
+  @Test
+  public void qStaysWithinConfiguredBounds() {
+    QTuner tuner = new QTuner(4, 3, 6);
+    for (int i = 0; i < 40; i++) tuner.onRound(5000);
+    assertEquals(6, tuner.q());
+    for (int i = 0; i < 80; i++) tuner.onRound(0);
+    assertEquals(3, tuner.q());
+  }
+}
@@ -0,0 +1,85 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ReadFilterTest {
+
+  private static final EpcKey SGTIN = EpcKey.fromHex("3034257BF7194E4000001A85");
+  private static final EpcKey OTHER = EpcKey.fromHex("E2801160600002054CC2");
+
+  @Test
+  public void prefixLengthAndRssiRules() {
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("epcPrefixes", Arrays.asList("303", "E28011"));
+    spec.put("epcBits", Collections.singletonList(96));
+    spec.put("rssiMin", 50);
+    ReadFilter f = ReadFilter.compile(spec);
+    assertTrue(f.accept(SGTIN, 60, 0));
+    assertFalse(f.accept(SGTIN, 49, 0));            // RSSI
+    assertFalse(f.accept(OTHER, 60, 0));            // prefiks uyğun, amma 80 bit
+    assertFalse(f.accept(EpcKey.fromHex("3134257BF7194E4000001A85"), 60, 0)); // "303" nibble-da fərqlənir
+
+    Map<?, ?> dropped = (Map<?, ?>) f.stats().get("dropped");
+    assertEquals(1L, f.stats().get("accepted"));
+    assertEquals(1L, dropped.get("rssiMin"));
+    assertEquals(1L, dropped.get("epcBits"));
+    assertEquals(1L, dropped.get("epcPrefix"));
+  }
+
+  @Test
+  public void readGate_passesOnlyNReadsWithinWindow() {
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("minReads", 3);
+    spec.put("readWindowMs", 100);
+    ReadFilter f = ReadFilter.compile(spec);
+    EpcKey probe = EpcKey.probe();
+    assertFalse(f.accept(probe.set(SGTIN.toHex()), 60, 0));
+    assertFalse(f.accept(probe.set(SGTIN.toHex()), 60, 150));
+    assertFalse(f.accept(probe.set(SGTIN.toHex()), 60, 200)); // 0..200 — pəncərədən geniş
+    assertTrue(f.accept(probe.set(SGTIN.toHex()), 60, 220));  // 150..220
+    assertTrue(f.accept(probe.set(SGTIN.toHex()), 60, 240));
+    assertFalse(f.accept(probe.set(OTHER.toHex()), 60, 240)); // hər tag öz sayğacı ilə
+  }
+
+  @Test
+  public void tidOnlyForMatchingEpcs() {
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("tidEpcPrefixes", Collections.singletonList("E280"));
+    ReadFilter f = ReadFilter.compile(spec);
+    assertTrue(f.accept(SGTIN, 10, 0)); // TID qaydası oxunu süzmür
+    assertTrue(f.wantsTid(OTHER));
+    assertFalse(f.wantsTid(SGTIN));
+  }
+
+  @Test
+  public void emptyOrInvalidSpecs() {
+    assertNull(ReadFilter.compile(null));
+    assertNull(ReadFilter.compile(new HashMap<>()));
+    Map<String, Object> spec = new HashMap<>();
+    spec.put("minReads", 1); // qapı yoxdur
+    assertNull(ReadFilter.compile(spec));
+    for (Object[] bad : new Object[][]{
+            {"epcPrefixes", Collections.singletonList("30G")},
+            {"epcBits", Collections.singletonList(100)},
+            {"rssiMin", "high"},
+            {"minReads", 1000}}) {
+      Map<String, Object> s = new HashMap<>();
+      s.put((String) bad[0], bad[1]);
+      try {
+        ReadFilter.compile(s);
+        throw new AssertionError("accepted " + s);
+      } catch (IllegalArgumentException expected) {
+        // gözlənilən
+      }
+    }
+  }
+}
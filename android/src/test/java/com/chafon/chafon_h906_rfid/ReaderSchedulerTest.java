@@ -0,0 +1,75 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ReaderSchedulerTest {
+  @Test
+  public void controlCommandsRunBeforeQueuedReadsAndRounds() throws Exception {
+    ReaderScheduler scheduler = new ReaderScheduler("test-reader");
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch gate = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(4);
+    final List<String> order = new ArrayList<>();
+
+    // reader thread-i məşğul saxla ki, qalanları növbədə yığılsın
+    scheduler.submit(ReaderScheduler.PRIORITY_INVENTORY, () -> {
+      started.countDown();
+      try { gate.await(); } catch (InterruptedException ignored) {}
+    });
+    // gate task worker-də işləməyə başlamalıdır — yoxsa növbədən prioritetlə round-lardan sonra götürülə bilər
+    assertTrue(started.await(2, TimeUnit.SECONDS));
+    scheduler.submit(ReaderScheduler.PRIORITY_INVENTORY, () -> { order.add("round"); finished.countDown(); });
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> { order.add("read"); finished.countDown(); });
+    scheduler.submit(ReaderScheduler.PRIORITY_CONTROL, () -> { order.add("stop"); finished.countDown(); });
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> { order.add("read2"); finished.countDown(); });
+    gate.countDown();
+
+    assertTrue(finished.await(2, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("stop", "read", "read2", "round"), order);
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void delayedCommandDoesNotBlockReadyCommands() throws Exception {
+    ReaderScheduler scheduler = new ReaderScheduler("test-reader");
+    final CountDownLatch ran = new CountDownLatch(1);
+    final long[] delayedAt = new long[1];
+    final long start = System.nanoTime();
+
+    scheduler.submitDelayed(ReaderScheduler.PRIORITY_CONTROL, 200, () -> delayedAt[0] = System.nanoTime());
+    scheduler.submit(ReaderScheduler.PRIORITY_INVENTORY, ran::countDown);
+
+    assertTrue(ran.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(0, delayedAt[0]);
+    Thread.sleep(300);
+    assertTrue((delayedAt[0] - start) >= TimeUnit.MILLISECONDS.toNanos(200));
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void cancel_removesCommandThatHasNotStarted() throws Exception {
+    ReaderScheduler scheduler = new ReaderScheduler("test-reader");
+    final CountDownLatch gate = new CountDownLatch(1);
+    final boolean[] ran = new boolean[1];
+
+    scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> {
+      try { gate.await(); } catch (InterruptedException ignored) {}
+    });
+    ReaderScheduler.Command c = scheduler.submit(ReaderScheduler.PRIORITY_NORMAL, () -> ran[0] = true);
+
+    assertTrue(scheduler.cancel(c));
+    gate.countDown();
+    Thread.sleep(50);
+    assertFalse(ran[0]);
+    scheduler.shutdown();
+  }
+}
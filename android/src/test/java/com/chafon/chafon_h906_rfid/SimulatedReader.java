@@ -0,0 +1,467 @@
+package com.chafon.chafon_h906_rfid;
+
+import com.rfid.trans.ReadTag;
+import com.rfid.trans.TagCallback;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Aparatsız RfidReader: H906 yoxdur, /dev/ttyHSL0 yoxdur. Konfiqurasiya olunan tag populyasiyası,
+ * RSSI paylanması, round gecikməsi və xəta kodları ilə Inventory_G2 zamanı TagCallback-i
+ * SDK kimi çağırır (hər tag üçün yeni ReadTag, çağıran thread-də).
+ */
+final class SimulatedReader implements RfidReader {
+
+  static final int RC_OK = 0;
+  static final int RC_COMM_ERROR = 0x30;
+  static final int RC_NO_TAG = 0xFB;
+  static final int RC_TAG_ERROR = 0xFC;
+  static final int TAG_ERR_OVERRUN = 0x03;
+  static final int TAG_ERR_LOCKED = 0x04;
+  static final int USER_BANK_BYTES = 64;
+
+  private static final byte[] TID_PREFIX = {(byte) 0xE2, (byte) 0x80, 0x11, 0x60};
+
+  private final Random random;
+  private byte[][] epcs = new byte[0][];
+  private String[] epcHex = new String[0];
+  private byte[][] tids = new byte[0][];
+  private byte[][] reserved = new byte[0][]; // kill(4) + access(4) password
+  private byte[][] user = new byte[0][];
+  private int[] locked = new int[0];         // bank bitləri (1 << mem)
+  private int[] pcFlags = new int[0];        // PC bit 10..0 (UMI/XI/T/AFI)
+  private boolean[] flagB = new boolean[0];  // S1..S3 inventoried bayrağı: false — A, true — B
+  private int[] minPower = new int[0];       // tag-ın cavab verməsi üçün lazım olan RF güc
+
+  private double readProbability = 1.0;
+  private int rssiMean = 60;
+  private int rssiSpread = 8;
+  private long roundBaseNanos = 2_000_000L;
+  private long perTagNanos = 20_000L;
+  private int roundCapacity = 0; // round-da ən çox neçə tag cavab verir (0 — limitsiz)
+  private double errorRate = 0;
+  private int errorCode = RC_COMM_ERROR;
+  private int connectRc = RC_OK;
+  private int acceptBaud = 0; // 0 — istənilən
+  private volatile long throwOnRound = 0; // bu nömrəli round exception atır (0 — heç vaxt)
+
+  private volatile TagCallback callback;
+  private volatile boolean connected = false;
+  private final byte[] params = {4, 0, 0, 0, 0, 0};
+  private int power = 30;
+  private int regionMin = 0;
+  private int regionMax = 14;
+  private boolean[] noisy = new boolean[RegionConfig.MAX_CHANNEL + 1]; // müdaxilə olan kanallar
+
+  final AtomicLong rounds = new AtomicLong();
+  final AtomicLong tagsEmitted = new AtomicLong();
+  final AtomicLong errors = new AtomicLong();
+  final AtomicLong handshakes = new AtomicLong();
+  final AtomicLong gpioCalls = new AtomicLong();
+  final AtomicLong paramWrites = new AtomicLong();
+  final AtomicLong powerWrites = new AtomicLong();
+  final AtomicLong regionWrites = new AtomicLong();
+
+  SimulatedReader(long seed) {
+    random = new Random(seed);
+    population(500, 12);
+  }
+
+  // ---- konfiqurasiya ----
+
+  /** count tag, hər biri epcBytes uzunluğunda EPC; TID — E2801160 + indeks. */
+  SimulatedReader population(int count, int epcBytes) {
+    byte[][] e = new byte[count][];
+    String[] h = new String[count];
+    byte[][] t = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      byte[] epc = new byte[epcBytes];
+      random.nextBytes(epc);
+      epc[0] = (byte) 0x30; // SGTIN-96 header
+      e[i] = epc;
+      h[i] = HexCodec.encode(epc);
+      byte[] tid = Arrays.copyOf(TID_PREFIX, 12);
+      tid[8] = (byte) (i >>> 24);
+      tid[9] = (byte) (i >>> 16);
+      tid[10] = (byte) (i >>> 8);
+      tid[11] = (byte) i;
+      t[i] = tid;
+    }
+    epcs = e;
+    epcHex = h;
+    tids = t;
+    reserved = new byte[count][8];
+    user = new byte[count][USER_BANK_BYTES];
+    locked = new int[count];
+    pcFlags = new int[count];
+    flagB = new boolean[count];
+    minPower = new int[count];
+    return this;
+  }
+
+  /** Hər round-da tag-ın oxunma ehtimalı (0..1). */
+  SimulatedReader readProbability(double p) {
+    readProbability = p;
+    return this;
+  }
+
+  /**
+   * Round-da cavab verən tag sayının həddi — sıx populyasiyada kolliziya: siyahıda əvvəl gələn
+   * ("güclü") tag-lar hər round-da qalanları sıxışdırır.
+   */
+  SimulatedReader roundCapacity(int n) {
+    roundCapacity = n;
+    return this;
+  }
+
+  /** [from, to) indeksli tag-lar yalnız RF güc lo..hi (təsadüfi) və yuxarı olanda oxunur. */
+  SimulatedReader powerProfile(int from, int to, int lo, int hi) {
+    for (int i = from; i < to && i < minPower.length; i++) minPower[i] = lo + random.nextInt(hi - lo + 1);
+    return this;
+  }
+
+  int power() {
+    return power;
+  }
+
+  /** n-ci Inventory_G2 round-u (sayğac rounds ilə, 1-dən) RuntimeException atır — SDK daxili xətası. */
+  SimulatedReader throwOnRound(long n) {
+    throwOnRound = n;
+    return this;
+  }
+
+  /** Bu kanallarda müdaxilə: hop aralığındakı payı qədər oxu ehtimalı ~10 dəfə düşür. */
+  SimulatedReader noisyChannels(int... channels) {
+    for (int c : channels) noisy[c] = true;
+    return this;
+  }
+
+  int regionMin() {
+    return regionMin;
+  }
+
+  int regionMax() {
+    return regionMax;
+  }
+
+  /** Cari hop aralığı üzrə orta kanal keyfiyyəti (0.1..1). */
+  private double channelQuality() {
+    double sum = 0;
+    for (int c = regionMin; c <= regionMax; c++) sum += noisy[c] ? 0.1 : 1.0;
+    return sum / (regionMax - regionMin + 1);
+  }
+
+  /** RSSI ~ N(mean, spread), SDK kimi müsbət tam ədəd. */
+  SimulatedReader rssi(int mean, int spread) {
+    rssiMean = mean;
+    rssiSpread = spread;
+    return this;
+  }
+
+  /** Round müddəti = baseMicros + perTagMicros × oxunan tag sayı. */
+  SimulatedReader latency(long baseMicros, long perTagMicros) {
+    roundBaseNanos = baseMicros * 1000L;
+    perTagNanos = perTagMicros * 1000L;
+    return this;
+  }
+
+  /** Komandaların rate hissəsi code ilə uğursuz olur (tag ötürülmür). */
+  SimulatedReader errors(double rate, int code) {
+    errorRate = rate;
+    errorCode = code;
+    return this;
+  }
+
+  SimulatedReader connectResult(int rc) {
+    connectRc = rc;
+    return this;
+  }
+
+  /** Modul yalnız bu baud-da cavab verir (0 — istənilən). */
+  SimulatedReader acceptBaud(int baud) {
+    acceptBaud = baud;
+    return this;
+  }
+
+  /** Serial xətt "qopur": Connect çağırılana qədər komandalar RC_COMM_ERROR qaytarır. */
+  SimulatedReader dropLink() {
+    connected = false;
+    return this;
+  }
+
+  String epcHex(int i) {
+    return epcHex[i];
+  }
+
+  int populationSize() {
+    return epcs.length;
+  }
+
+  String userHex(int i) {
+    return HexCodec.encode(user[i]);
+  }
+
+  boolean isLocked(int i, int mem) {
+    return (locked[i] & (1 << mem)) != 0;
+  }
+
+  /** PC sözünün uzunluqdan başqa bitləri (10..0) — EPC yazısında qorunmalıdır. */
+  SimulatedReader pcFlags(int i, int flags) {
+    pcFlags[i] = flags & 0x07FF;
+    return this;
+  }
+
+  int pcFlags(int i) {
+    return pcFlags[i];
+  }
+
+  /** Tag-ın access password-u (lock olunmuş bankı yazmaq üçün lazımdır). */
+  SimulatedReader accessPassword(int i, byte[] pwd) {
+    System.arraycopy(pwd, 0, reserved[i], 4, 4);
+    return this;
+  }
+
+  // ---- RfidReader ----
+
+  @Override public void SetCallBack(TagCallback callback) {
+    this.callback = callback;
+  }
+
+  @Override public int Connect(String port, int baud, int logSwitch) {
+    handshakes.incrementAndGet();
+    if (acceptBaud != 0 && baud != acceptBaud) {
+      connected = false;
+      return RC_COMM_ERROR;
+    }
+    connected = connectRc == RC_OK;
+    return connectRc;
+  }
+
+  @Override public int DisConnect() {
+    connected = false;
+    return RC_OK;
+  }
+
+  @Override public synchronized int GetReadParameter(byte comAddr, byte[] param) {
+    if (!connected) return RC_COMM_ERROR;
+    System.arraycopy(params, 0, param, 0, Math.min(param.length, params.length));
+    return RC_OK;
+  }
+
+  @Override public synchronized int SetReadParameter(byte comAddr, byte[] param) {
+    if (!connected) return RC_COMM_ERROR;
+    paramWrites.incrementAndGet();
+    System.arraycopy(param, 0, params, 0, Math.min(5, param.length));
+    return RC_OK;
+  }
+
+  @Override public int SetRfPower(byte comAddr, byte power) {
+    if (!connected) return RC_COMM_ERROR;
+    powerWrites.incrementAndGet();
+    this.power = power;
+    return RC_OK;
+  }
+
+  @Override public int SetRegion(byte comAddr, int band, int maxFre, int minFre) {
+    if (!connected) return RC_COMM_ERROR;
+    regionWrites.incrementAndGet();
+    regionMin = Math.min(minFre, maxFre);
+    regionMax = Math.max(minFre, maxFre);
+    return RC_OK;
+  }
+
+  @Override public int SetRegion(byte comAddr, int type, int band, int maxFre, int minFre) {
+    return SetRegion(comAddr, band, maxFre, minFre);
+  }
+
+  @Override public int ReadData_G2(byte comAddr, byte eNum, byte[] epc, byte mem, byte wordPtr, byte num,
+                                   byte[] password, byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData,
+                                   byte[] data, byte[] errorCode) {
+    if (!connected) return RC_COMM_ERROR;
+    park(roundBaseNanos / 4);
+    if (failNow()) return this.errorCode;
+
+    int idx = find(eNum, epc, maskMem, maskAdr, maskLen, maskData);
+    if (idx < 0) return RC_NO_TAG;
+
+    byte[] bank = bank(idx, mem);
+    int from = (wordPtr & 0xFF) * 2;
+    int len = (num & 0xFF) * 2;
+    Arrays.fill(data, 0, Math.min(len, data.length), (byte) 0);
+    for (int i = 0; i < len && i < data.length && from + i < bank.length; i++) data[i] = bank[from + i];
+    return RC_OK;
+  }
+
+  @Override public synchronized int WriteData_G2(byte comAddr, byte wNum, byte eNum, byte[] epc, byte mem,
+                                                 byte wordPtr, byte[] writeData, byte[] password, byte maskMem,
+                                                 byte[] maskAdr, byte maskLen, byte[] maskData, byte[] errorCode) {
+    if (!connected) return RC_COMM_ERROR;
+    park(roundBaseNanos / 4);
+    if (failNow()) return this.errorCode;
+    int idx = find(eNum, epc, maskMem, maskAdr, maskLen, maskData);
+    if (idx < 0) return RC_NO_TAG;
+    if (mem == 2 || (isLocked(idx, mem) && !passwordMatches(idx, password))) return tagError(errorCode, TAG_ERR_LOCKED);
+
+    byte[] bank = bank(idx, mem);
+    int from = (wordPtr & 0xFF) * 2;
+    int len = (wNum & 0xFF) * 2;
+    int limit = mem == 1 ? 4 + 62 : bank.length;
+    if (from + len > limit || len > writeData.length) return tagError(errorCode, TAG_ERR_OVERRUN);
+    if (from + len > bank.length) bank = Arrays.copyOf(bank, from + len);
+    System.arraycopy(writeData, 0, bank, from, len);
+
+    if (mem == 1) { // PC uzunluğu + EPC → populyasiya
+      int words = (bank[2] & 0xFF) >>> 3;
+      pcFlags[idx] = ((bank[2] & 0x07) << 8) | (bank[3] & 0xFF);
+      byte[] e = Arrays.copyOfRange(bank, 4, 4 + words * 2);
+      epcs[idx] = e;
+      epcHex[idx] = HexCodec.encode(e);
+    } else if (mem == 0) {
+      reserved[idx] = bank;
+    } else {
+      user[idx] = bank;
+    }
+    return RC_OK;
+  }
+
+  @Override public synchronized int Lock_G2(byte comAddr, byte eNum, byte[] epc, byte select, byte setProtect,
+                                            byte[] password, byte maskMem, byte[] maskAdr, byte maskLen,
+                                            byte[] maskData, byte[] errorCode) {
+    if (!connected) return RC_COMM_ERROR;
+    park(roundBaseNanos / 4);
+    if (failNow()) return this.errorCode;
+    int idx = find(eNum, epc, maskMem, maskAdr, maskLen, maskData);
+    if (idx < 0) return RC_NO_TAG;
+    if (!passwordMatches(idx, password)) return tagError(errorCode, TAG_ERR_LOCKED);
+    // select: 0/1 — kill/access password (reserved), 2 — EPC, 3 — TID, 4 — user
+    int mem = select <= 1 ? 0 : select == 2 ? 1 : select == 3 ? 2 : 3;
+    if (setProtect == 0) locked[idx] &= ~(1 << mem);
+    else locked[idx] |= 1 << mem;
+    return RC_OK;
+  }
+
+  @Override public int Inventory_G2(byte comAddr, byte qValue, byte session, byte adrTid, byte lenTid,
+                                    byte target, byte ant, byte scanTime, byte maskMem, byte[] maskAdr,
+                                    byte maskLen, byte[] maskData, List<ReadTag> tags, int[] cardNum, boolean beep) {
+    if (!connected) return RC_COMM_ERROR;
+    if (rounds.incrementAndGet() == throwOnRound) throw new IllegalStateException("simulated SDK failure");
+    if (failNow()) {
+      park(roundBaseNanos);
+      return errorCode;
+    }
+    final TagCallback cb = callback;
+    final long t0 = System.nanoTime();
+    int n = 0;
+    final boolean flagged = session != 0; // S0-da bayraq dərhal sıfırlanır
+    final boolean wantB = target != 0;
+    final double p = readProbability * channelQuality();
+    for (int i = 0; i < epcs.length; i++) {
+      if (roundCapacity > 0 && n >= roundCapacity) break;
+      if (flagged && flagB[i] != wantB) continue;
+      if (power < minPower[i]) continue;
+      if (!matches(i, maskMem, maskAdr, maskLen & 0xFF, maskData)) continue;
+      if (p < 1.0 && random.nextDouble() >= p) continue;
+      if (flagged) flagB[i] = !wantB; // oxunan tag digər hədəfə keçir
+      ReadTag t = new ReadTag();
+      t.epcId = epcHex[i];
+      t.rssi = Math.max(0, (int) Math.round(rssiMean + random.nextGaussian() * rssiSpread));
+      t.antId = ant & 0x7F;
+      if (tags != null) tags.add(t);
+      if (cb != null) cb.tagCallback(t);
+      n++;
+    }
+    tagsEmitted.addAndGet(n);
+    if (cardNum != null && cardNum.length > 0) cardNum[0] = n;
+    // callback işinə sərf olunan vaxt round müddətinin içindədir
+    park(roundBaseNanos + perTagNanos * n - (System.nanoTime() - t0));
+    return RC_OK;
+  }
+
+  @Override public void setGpioEnabled(boolean on) {
+    gpioCalls.incrementAndGet();
+  }
+
+  // ---- daxili ----
+
+  /** ENum + EPC (prefiks) və ya maska ilə ilk uyğun tag; -1 — yoxdur. */
+  private int find(byte eNum, byte[] epc, byte maskMem, byte[] maskAdr, byte maskLen, byte[] maskData) {
+    for (int i = 0; i < epcs.length; i++) {
+      if (eNum > 0 && epc != null) {
+        if (startsWith(epcs[i], epc, (eNum & 0xFF) * 2)) return i;
+      } else if (matches(i, maskMem, maskAdr, maskLen & 0xFF, maskData)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Bankın cari məzmunu: 0 — reserved, 1 — CRC(2) + PC(2) + EPC, 2 — TID, 3 — user. */
+  private byte[] bank(int idx, byte mem) {
+    if (mem == 2) return tids[idx];
+    if (mem == 0) return reserved[idx];
+    if (mem == 3) return user[idx];
+    byte[] bank = new byte[4 + epcs[idx].length];
+    bank[2] = (byte) (((epcs[idx].length / 2) << 3) | (pcFlags[idx] >>> 8));
+    bank[3] = (byte) pcFlags[idx];
+    System.arraycopy(epcs[idx], 0, bank, 4, epcs[idx].length);
+    return bank;
+  }
+
+  private boolean passwordMatches(int idx, byte[] password) {
+    for (int i = 0; i < 4; i++) {
+      if (reserved[idx][4 + i] != (password != null && password.length > i ? password[i] : 0)) return false;
+    }
+    return true;
+  }
+
+  private static int tagError(byte[] errorCode, int err) {
+    if (errorCode != null && errorCode.length > 0) errorCode[0] = (byte) err;
+    return RC_TAG_ERROR;
+  }
+
+  private boolean failNow() {
+    if (errorRate > 0 && random.nextDouble() < errorRate) {
+      errors.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /** Maska: EPC bankı (1) 0x20 bit-dən sonra EPC, TID bankı (2) 0-dan. */
+  private boolean matches(int i, byte maskMem, byte[] maskAdr, int bitLen, byte[] maskData) {
+    if (bitLen == 0 || maskData == null || maskAdr == null) return true;
+    int bitPtr = ((maskAdr[0] & 0xFF) << 8) | (maskAdr[1] & 0xFF);
+    byte[] bank;
+    if (maskMem == 1) {
+      if (bitPtr < MaskScheduler.EPC_BIT_PTR) return true; // CRC/PC sahəsi simulyasiya olunmur
+      bank = epcs[i];
+      bitPtr -= MaskScheduler.EPC_BIT_PTR;
+    } else if (maskMem == 2) {
+      bank = tids[i];
+    } else {
+      return true;
+    }
+    for (int b = 0; b < bitLen; b++) {
+      int pos = bitPtr + b;
+      if ((pos >>> 3) >= bank.length || (b >>> 3) >= maskData.length) return false;
+      int have = (bank[pos >>> 3] >>> (7 - (pos & 7))) & 1;
+      int want = (maskData[b >>> 3] >>> (7 - (b & 7))) & 1;
+      if (have != want) return false;
+    }
+    return true;
+  }
+
+  private static boolean startsWith(byte[] epc, byte[] prefix, int len) {
+    if (len > epc.length || len > prefix.length) return false;
+    for (int i = 0; i < len; i++) if (epc[i] != prefix[i]) return false;
+    return true;
+  }
+
+  private static void park(long nanos) {
+    if (nanos > 0) LockSupport.parkNanos(nanos);
+  }
+}
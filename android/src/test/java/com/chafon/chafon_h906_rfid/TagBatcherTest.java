@@ -0,0 +1,159 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class TagBatcherTest {
+
+  /** Main thread əvəzi: post-lar yalnız run() çağırılanda işləyir (yavaş Dart tərəfi). */
+  private static final class ManualMain implements MainExecutor {
+    final ArrayDeque<Runnable> posted = new ArrayDeque<>();
+    final List<Long> delays = new ArrayList<>(); // postDelayed gecikmələri
+    @Override public void post(Runnable r) { posted.add(r); }
+    @Override public void postDelayed(Runnable r, long delayMs) { posted.add(r); delays.add(delayMs); }
+    @Override public void removeCallbacks(Runnable r) { posted.remove(r); }
+    void runAll() {
+      Runnable r;
+      while ((r = posted.poll()) != null) r.run();
+    }
+  }
+
+  private final ManualMain main = new ManualMain();
+  private final List<String> delivered = new ArrayList<>();
+  private final List<Integer> rssi = new ArrayList<>();
+  private final List<Integer> batches = new ArrayList<>();
+  private final TagBatcher batcher = new TagBatcher(main, batch -> {
+    batches.add(batch.size());
+    for (TagRead r : batch) {
+      delivered.add(r.key.toHex());
+      rssi.add(r.rssi);
+    }
+  });
+  private final TagRead scratch = new TagRead();
+
+  private void add(String epc, int rssi) {
+    batcher.add(scratch.set(EpcKey.fromHex(epc), rssi, 1000, 1));
+  }
+
+  @Test
+  public void batchSize_flushesImmediatelyWhenFull() {
+    batcher.configure(8, 50);
+    batcher.configureQueue(64, TagBatcher.POLICY_DROP_OLDEST);
+    for (int i = 0; i < 7; i++) add(String.format("%04X", i), i);
+    assertEquals(1, main.delays.size()); // hələ dolmayıb — interval gözlənilir
+    add("0007", 7);
+    assertEquals(2, main.posted.size()); // dolu — gecikməsiz post
+
+    main.runAll();
+    assertEquals(Arrays.asList(8), batches);
+  }
+
+  @Test
+  public void interval_flushesPartialBatchOnce() {
+    batcher.configure(256, 40);
+    batcher.configureQueue(64, TagBatcher.POLICY_DROP_OLDEST);
+    for (int i = 0; i < 3; i++) add(String.format("%04X", i), i);
+    assertEquals(Arrays.asList(40L), main.delays); // bir gecikmiş flush, hər tag üçün yox
+    assertEquals(1, main.posted.size());
+
+    main.runAll();
+    assertEquals(Arrays.asList(3), batches);
+    add("0003", 3); // növbəti pəncərə yenidən planlaşdırılır
+    assertEquals(2, main.delays.size());
+  }
+
+  @Test
+  public void flush_splitsBacklogIntoMaxBatchChunks() {
+    batcher.configure(4, 50);
+    batcher.configureQueue(64, TagBatcher.POLICY_DROP_OLDEST);
+    for (int i = 0; i < 10; i++) add(String.format("%04X", i), i);
+
+    main.runAll();
+    assertEquals(Arrays.asList(4, 4, 2), batches);
+    assertEquals(10, delivered.size());
+  }
+
+  @Test
+  public void dropOldest_keepsNewestAndCountsDrops() {
+    batcher.configure(1000, 50);
+    batcher.configureQueue(16, TagBatcher.POLICY_DROP_OLDEST);
+    for (int i = 0; i < 20; i++) add(String.format("%04X", i), i);
+
+    assertTrue("Looper növbəsi məhdud qalmalıdır", main.posted.size() <= 2);
+    main.runAll();
+    assertEquals(16, delivered.size());
+    assertEquals("0004", delivered.get(0));
+    assertEquals(4L, batcher.dropped());
+  }
+
+  @Test
+  public void dropDuplicate_prefersUnseenEpcsWhenFull() {
+    batcher.configure(1000, 50);
+    batcher.configureQueue(16, TagBatcher.POLICY_DROP_DUPLICATE);
+    for (int i = 0; i < 16; i++) add(String.format("%04X", i), i);
+    add("0003", 99); // dolu + təkrar — atılır
+    add("AAAA", 1);  // dolu + yeni — ən köhnə atılır
+
+    main.runAll();
+    assertEquals(16, delivered.size());
+    assertEquals("0001", delivered.get(0));
+    assertEquals("AAAA", delivered.get(15));
+    assertEquals(2L, batcher.dropped());
+  }
+
+  @Test
+  public void coalesce_updatesQueuedReadInPlace() {
+    batcher.configure(1000, 50);
+    batcher.configureQueue(16, TagBatcher.POLICY_COALESCE);
+    add("E280", 10);
+    add("E281", 20);
+    add("E280", 30);
+
+    main.runAll();
+    assertEquals(2, delivered.size());
+    assertEquals(30, (int) rssi.get(0));
+    assertEquals(1L, batcher.coalesced());
+    assertEquals(0L, batcher.dropped());
+  }
+
+  @Test
+  public void unbatched_postsAtMostOneFlushForBacklog() {
+    batcher.configure(1, 50);
+    batcher.configureQueue(64, TagBatcher.POLICY_DROP_OLDEST);
+    for (int i = 0; i < 50; i++) add(String.format("%04X", i), i);
+
+    assertEquals(1, main.posted.size());
+    main.runAll();
+    assertEquals(50, delivered.size());
+  }
+
+  @Test
+  public void block_waitsForMainThreadInsteadOfDropping() throws Exception {
+    batcher.configure(1000, 50);
+    batcher.configureQueue(16, TagBatcher.POLICY_BLOCK);
+    for (int i = 0; i < 16; i++) add(String.format("%04X", i), i);
+
+    // main thread 100 ms sonra boşaldır — reader gözləyir, heç nə atılmır
+    Thread drainer = new Thread(() -> {
+      try { Thread.sleep(100); } catch (InterruptedException ignore) {}
+      batcher.flush();
+    });
+    drainer.start();
+    long t0 = System.nanoTime();
+    add("FFFF", 1);
+    long waitedMs = (System.nanoTime() - t0) / 1_000_000L;
+    drainer.join();
+
+    assertTrue("waited " + waitedMs + " ms", waitedMs >= 50);
+    assertEquals(0L, batcher.dropped());
+    main.posted.clear();
+    batcher.flush();
+    assertEquals(17, delivered.size());
+  }
+}
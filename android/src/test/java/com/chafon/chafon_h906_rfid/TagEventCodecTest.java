@@ -0,0 +1,44 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class TagEventCodecTest {
+  @Test
+  public void encode_writesHeaderAndFixedLayoutRecords() {
+    TagRead a = new TagRead().set(EpcKey.fromHex("E280"), -60, 1_700_000_000_005L, 1);
+    a.tid = "0a0b";
+    TagRead b = new TagRead().set(EpcKey.fromHex("30"), 200, 1_700_000_000_000L, 0);
+
+    ByteBuffer buf = ByteBuffer.wrap(TagEventCodec.encode(Arrays.asList(a, b)));
+
+    assertEquals(TagEventCodec.MAGIC, buf.get() & 0xFF);
+    assertEquals(TagEventCodec.VERSION, buf.get());
+    assertEquals(2, buf.getShort());
+    assertEquals(1_700_000_000_000L, buf.getLong()); // ən kiçik timestamp
+
+    assertEquals(2, buf.get());
+    byte[] epc = new byte[2];
+    buf.get(epc);
+    assertArrayEquals(new byte[]{(byte) 0xE2, (byte) 0x80}, epc);
+    assertEquals(-60, buf.getShort());
+    assertEquals(5, buf.getInt());
+    assertEquals(1, buf.get());
+    assertEquals(TagEventCodec.FLAG_TID, buf.get());
+    assertEquals(2, buf.get());
+    assertEquals(0x0A, buf.get());
+    assertEquals(0x0B, buf.get());
+
+    assertEquals(1, buf.get());
+    assertEquals(0x30, buf.get());
+    assertEquals(200, buf.getShort());
+    assertEquals(0, buf.getInt());
+    assertEquals(0, buf.get());
+    assertEquals(0, buf.get());
+    assertEquals(0, buf.remaining());
+  }
+}
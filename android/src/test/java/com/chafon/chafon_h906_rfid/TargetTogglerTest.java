@@ -0,0 +1,77 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.rfid.trans.ReadTag;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class TargetTogglerTest {
+
+  private static final byte COM_ADDR = (byte) 0xFF;
+
+  /** rounds round Inventory_G2 (S2), hər round-da toggler-in hədəfi ilə; qaytarır: unikal EPC sayı. */
+  private static int run(SimulatedReader r, TargetToggler t, int rounds) {
+    Set<String> seen = new HashSet<>();
+    int[] cardNum = new int[1];
+    List<ReadTag> out = new ArrayList<>();
+    for (int i = 0; i < rounds; i++) {
+      out.clear();
+      r.Inventory_G2(COM_ADDR, (byte) 4, (byte) 2, (byte) 0, (byte) 0, t.target(), (byte) 0x80, (byte) 10,
+              (byte) 1, new byte[2], (byte) 0, new byte[0], out, cardNum, false);
+      int fresh = 0;
+      for (ReadTag tag : out) if (seen.add(tag.epcId)) fresh++;
+      t.onRound(out.size(), fresh);
+    }
+    return seen.size();
+  }
+
+  @Test
+  public void dualTarget_coversCrowdedPopulationThatTargetAAloneStopsAt() {
+    SimulatedReader single = new SimulatedReader(3).population(300, 12).latency(0, 0).roundCapacity(40);
+    single.Connect("sim", 115200, 0);
+    TargetToggler onlyA = new TargetToggler(TargetToggler.MODE_A, 0, 1);
+    assertEquals(300, run(single, onlyA, 20)); // S2 + A: hər round yeni 40 tag, sonra susur
+    assertEquals(0L, onlyA.stats().get("switches"));
+
+    // ikinci keçid: A-da hamı artıq B-dədir — yalnız A ilə heç nə oxunmur, dual B fazasında tapır
+    TargetToggler dual = new TargetToggler(TargetToggler.MODE_DUAL, 0, 1);
+    TargetToggler stuck = new TargetToggler(TargetToggler.MODE_A, 0, 1);
+    SimulatedReader second = new SimulatedReader(3).population(300, 12).latency(0, 0).roundCapacity(40);
+    second.Connect("sim", 115200, 0);
+    run(second, stuck, 10);
+    assertEquals(0, run(second, stuck, 10));
+    assertEquals(300, run(second, dual, 20));
+    Map<?, ?> phases = (Map<?, ?>) dual.stats().get("phases");
+    assertEquals(300L, ((Map<?, ?>) phases.get("B")).get("newTags"));
+    assertTrue((Long) dual.stats().get("switches") >= 1);
+  }
+
+  @Test
+  public void toggleOnScheduleAndOnEmptyRounds() {
+    TargetToggler t = new TargetToggler(TargetToggler.MODE_DUAL, 3, 0);
+    assertEquals(TargetToggler.TARGET_A, t.target());
+    t.onRound(10, 5);
+    t.onRound(10, 5);
+    assertTrue(t.onRound(10, 5));
+    assertEquals(TargetToggler.TARGET_B, t.target());
+
+    TargetToggler e = new TargetToggler(TargetToggler.MODE_DUAL, 0, 2);
+    e.onRound(10, 0);
+    assertEquals(TargetToggler.TARGET_A, e.target());
+    e.onRound(10, 1); // yeni tag — sayğac sıfırlanır
+    e.onRound(10, 0);
+    assertTrue(e.onRound(10, 0));
+    assertEquals(TargetToggler.TARGET_B, e.target());
+
+    TargetToggler fixed = new TargetToggler("B", 1, 1);
+    for (int i = 0; i < 5; i++) fixed.onRound(0, 0);
+    assertEquals(TargetToggler.TARGET_B, fixed.target());
+    assertEquals(TargetToggler.MODE_A, TargetToggler.parseMode("x"));
+  }
+}
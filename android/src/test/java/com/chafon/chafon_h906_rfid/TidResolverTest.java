@@ -0,0 +1,68 @@
+package com.chafon.chafon_h906_rfid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class TidResolverTest {
+
+  /** Plugin-in round-lar arası addımı: növbədən n EPC; ok=false olanda ReadData_G2 xəta qaytarır. */
+  private static int resolve(TidResolver r, int n, boolean ok) {
+    int reads = 0;
+    for (int i = 0; i < n; i++) {
+      EpcKey key = r.poll();
+      if (key == null) break;
+      reads++;
+      if (ok) r.resolved(key, tidOf(key));
+      else r.failed(key);
+    }
+    return reads;
+  }
+
+  private static EpcKey epc(int i) {
+    return EpcKey.fromHex(String.format("3000%020X", i));
+  }
+
+  /** Saxta TID: E2801160 + EPC-nin son 8 byte-ı. */
+  private static String tidOf(EpcKey key) {
+    return "E2801160" + key.toHex().substring(8);
+  }
+
+  @Test
+  public void tidIsReadOncePerSessionAndServedFromCache() {
+    TidResolver r = new TidResolver();
+    EpcKey key = epc(3);
+    assertNull(r.lookup(key));
+    assertNull(r.lookup(key)); // təkrar oxu növbəyə ikinci dəfə düşmür
+    assertEquals(1, r.pendingCount());
+    assertEquals(1, resolve(r, 8, true));
+    assertEquals("E28011600000000000000003", r.lookup(key));
+    assertEquals(0, r.pendingCount()); // cache-dən — yeni ReadData_G2 yoxdur
+    assertEquals(1, r.cachedCount());
+
+    r.reset(); // yeni sessiya
+    assertNull(r.lookup(key));
+    assertEquals(0, r.cachedCount());
+  }
+
+  @Test
+  public void failedReadsRetryUpToMaxAttemptsThenStop() {
+    TidResolver r = new TidResolver();
+    EpcKey key = epc(0);
+    r.lookup(key);
+    assertEquals(TidResolver.MAX_ATTEMPTS, resolve(r, 100, false));
+    assertNull(r.lookup(key)); // "oxunmur" kimi yadda qalıb — növbəyə qayıtmır
+    assertEquals(0, r.pendingCount());
+  }
+
+  @Test
+  public void perRoundLimitsReadsBetweenRounds() {
+    TidResolver r = new TidResolver();
+    r.configure(4);
+    for (int i = 0; i < 10; i++) r.lookup(epc(i));
+    assertEquals(4, resolve(r, r.perRound(), true));
+    assertEquals(6, r.pendingCount());
+    assertEquals(4, r.cachedCount());
+  }
+}
@@ -1,41 +1,499 @@
 import 'dart:async';
+import 'dart:typed_data';
 import 'package:flutter/services.dart';
 
 class ChafonH906Rfid {
   static const MethodChannel _ch  = MethodChannel('chafon_h906_rfid');
   static const EventChannel  _evt = EventChannel('chafon_h906_rfid/tags');
 
+  /// EventChannel native tərəfdə tək listener saxlayır — bir stream paylaşılır.
+  static final Stream<dynamic> _events = _evt.receiveBroadcastStream();
+
   /// Native-dən gələn tag-lar: {epc, rssi, optional: mem, tid} və ya {stopped:true}
-  Stream<Map<String, dynamic>> get onTag =>
-      _evt.receiveBroadcastStream().map((e) => Map<String, dynamic>.from(e));
+  /// Batch-lar ({tags: [...]}) burada tək-tək event-lərə açılır.
+  Stream<Map<String, dynamic>> get onTag => _events.expand(_unbatch);
+
+  /// Batch variantı: native flush-a uyğun hər dəfə bir siyahı.
+  Stream<List<Map<String, dynamic>>> get onTagBatch => _events
+      .map((e) => _unbatch(e).toList(growable: false))
+      .where((l) => l.isNotEmpty);
+
+  /// dedup=true olanda periodik delta: [{epc, count, delta, firstSeen, lastSeen, rssiMin, rssiMax, rssiAvg}]
+  Stream<List<Map<String, dynamic>>> get onSummary => _events
+      .where((e) => e is Map && e['summary'] is List)
+      .map((e) => _mapList(e['summary']));
+
+  /// includeTid=true olanda TID round-lar arasında oxunur və sonradan gəlir: [{epc, tid}]
+  Stream<List<Map<String, dynamic>>> get onTid => _events
+      .where((e) => e is Map && e['tidResolved'] is List)
+      .map((e) => _mapList(e['tidResolved']));
+
+  /// adaptiveQ=true olanda Q dəyişikliyi: {q, scanTime, population}
+  Stream<Map<String, dynamic>> get onAdaptiveQ => _events
+      .where((e) => e is Map && e['adaptiveQ'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['adaptiveQ'] as Map));
+
+  /// Hər saniyə loop statistikası: {roundsPerSecond, rounds, dutyMode, dutyOnMs, dutyOffMs,
+  /// queue: {capacity, policy, queued, highWater, dropped, coalesced, blockedMs}}
+  Stream<Map<String, dynamic>> get onLoopStats => _events
+      .where((e) => e is Map && e['loopStats'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['loopStats'] as Map));
+
+  /// Tag olmayan event açarları — onTag/onTagBatch-a düşmür.
+  /// metricsIntervalMs > 0 olanda periodik metriklər (getMetrics ilə eyni format)
+  Stream<Map<String, dynamic>> get onMetrics => _events
+      .where((e) => e is Map && e['metrics'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['metrics'] as Map));
+
+  /// startBulkWrite nəticələri (batch-larla): {batch, total, done, ok, failed, retries, elapsedMs,
+  /// finished, cancelled, error?, results: [{index, op, target, success, code, attempts, tagError?, message?, epc?}]}
+  Stream<Map<String, dynamic>> get onWriteProgress => _events
+      .where((e) => e is Map && e['writeProgress'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['writeProgress'] as Map));
+
+  /// Bağlantı itəndə və arxa fonda bərpa olunanda: {connected, port, baud, reconnects,
+  /// lastReconnectMs, lastConnectMs, handshakes, failures, reconnecting}
+  Stream<Map<String, dynamic>> get onConnection => _events
+      .where((e) => e is Map && e['connection'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['connection'] as Map));
+
+  /// stopInventory-də sessiyanın yekunu: {session, startedAt, durationMs, activeMs, pausedMs, pauses,
+  /// uniqueTags, reads, rounds, roundErrors, readsPerSecond, dropped, paramWrites, settings, journal?}
+  Stream<Map<String, dynamic>> get onSessionSummary => _events
+      .where((e) => e is Map && e['sessionSummary'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['sessionSummary'] as Map));
+
+  /// [startLocate] zamanı sabit tezlikli yaxınlıq: {epc, found, proximity (0..1), rssi,
+  /// smoothed, peakRssi, ageMs, readsPerSecond, reads, rounds}; sonuncu — stopped: true.
+  Stream<Map<String, dynamic>> get onLocate => _events
+      .where((e) => e is Map && e['locate'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['locate'] as Map));
+
+  /// startInventory(motion: true): yalnız vəziyyət keçidləri — appeared, approaching,
+  /// passedPeak, static, departed. Hər biri {epc, state, from?, at, dwellMs, peakRssi, peakAt,
+  /// rssi, trend (RSSI/s), reads}.
+  Stream<List<Map<String, dynamic>>> get onMotion => _events
+      .where((e) => e is Map && e['motion'] is List)
+      .map((e) => _mapList(e['motion']));
+
+  /// calibratePower: {id, level: {power, uniqueTags, reads, readsPerSecond, coverage, ...}},
+  /// sonda {id, finished: true, levels, suggestedPower, applied?, power, error?} (error — SDK exception).
+  Stream<Map<String, dynamic>> get onPowerCalibration => _events
+      .where((e) => e is Map && e['powerCalibration'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['powerCalibration'] as Map));
+
+  /// surveyChannels: {id, window: {band, minChannel, maxChannel, uniqueTags, successRate, score, ...}},
+  /// sonda {id, finished: true, windows, best?, applied?, saved?, region?, error?}.
+  Stream<Map<String, dynamic>> get onChannelSurvey => _events
+      .where((e) => e is Map && e['channelSurvey'] is Map)
+      .map((e) => Map<String, dynamic>.from(e['channelSurvey'] as Map));
+
+  static const Set<String> _sideKeys = {
+    'summary', 'tidResolved', 'adaptiveQ', 'loopStats', 'metrics', 'writeProgress', 'connection',
+    'sessionSummary', 'locate', 'motion', 'powerCalibration', 'channelSurvey',
+  };
+
+  /// encoding='binary' olanda xam batch-lar — decode etmədən (məs. ayrıca isolate-ə ötürmək üçün).
+  Stream<Uint8List> get onTagPacked =>
+      _events.where((e) => e is Uint8List).cast<Uint8List>();
+
+  static Iterable<Map<String, dynamic>> _unbatch(dynamic e) {
+    if (e is Uint8List) return decodePackedTags(e);
+    final m = Map<String, dynamic>.from(e as Map);
+    final tags = m['tags'];
+    if (tags is List) {
+      return _mapList(tags);
+    }
+    if (m.keys.any(_sideKeys.contains)) return const [];
+    return [m];
+  }
+
+  static List<Map<String, dynamic>> _mapList(dynamic list) => (list as List)
+      .map((t) => Map<String, dynamic>.from(t as Map))
+      .toList(growable: false);
 
-  Future<Map<String, dynamic>> connect() async =>
-      Map<String, dynamic>.from(await _ch.invokeMethod('connect'));
+  static const int _packedMagic = 0xC7;
+  static const int _packedHeader = 12;
+  static final List<String> _hexByte = List.generate(
+      256, (i) => i.toRadixString(16).padLeft(2, '0').toUpperCase(),
+      growable: false);
 
+  /// Native TagEventCodec formatını açır (big-endian):
+  /// header: u8 magic(0xC7), u8 version, u16 count, i64 baseTime(ms);
+  /// record: u8 epcLen, epc, i16 rssi, u32 dt(ms), u8 antenna, u8 flags,
+  ///         [flags&1: u8 tidLen, tid] [flags&2: u8 memLen, mem]; flags&4 — known-tag
+  ///         yoxlanıb, flags&8 — gözlənilən EPC.
+  /// Nəticə: [{epc, rssi, ts, ant, optional: tid, mem, expected}]
+  static List<Map<String, dynamic>> decodePackedTags(Uint8List bytes) {
+    if (bytes.length < _packedHeader || bytes[0] != _packedMagic) {
+      throw const FormatException('packed tags: bad header');
+    }
+    final bd = ByteData.sublistView(bytes);
+    final count = bd.getUint16(2);
+    final base = bd.getInt64(4);
+    final out = <Map<String, dynamic>>[];
+    var p = _packedHeader;
+    for (var i = 0; i < count; i++) {
+      final epcLen = bytes[p++];
+      final epc = _hex(bytes, p, epcLen);
+      p += epcLen;
+      final rssi = bd.getInt16(p);
+      final dt = bd.getUint32(p + 2);
+      final ant = bytes[p + 6];
+      final flags = bytes[p + 7];
+      p += 8;
+      final m = <String, dynamic>{'epc': epc, 'rssi': rssi, 'ts': base + dt, 'ant': ant};
+      if (flags & 1 != 0) {
+        final n = bytes[p++];
+        m['tid'] = _hex(bytes, p, n);
+        p += n;
+      }
+      if (flags & 2 != 0) {
+        final n = bytes[p++];
+        m['mem'] = _hex(bytes, p, n);
+        p += n;
+      }
+      if (flags & 4 != 0) m['expected'] = flags & 8 != 0;
+      out.add(m);
+    }
+    return out;
+  }
+
+  static String _hex(Uint8List b, int off, int len) {
+    final sb = StringBuffer();
+    for (var i = off; i < off + len; i++) {
+      sb.write(_hexByte[b[i]]);
+    }
+    return sb.toString();
+  }
+
+  /// [site] — region cache açarı: bu site üçün surveyChannels / setRegion(save: true) ilə
+  /// yadda qalan region hər connect-də yazılır.
+  /// [linkFreshMs] — son uğurlu reader komandasından bu qədər ms ərzində bağlantı probe-u
+  /// (GetReadParameter) atlanır; 0 — hər dəfə probe (default 3000).
+  Future<Map<String, dynamic>> connect({String? site, int? linkFreshMs}) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('connect', {
+        if (site != null) 'site': site,
+        if (linkFreshMs != null) 'linkFreshMs': linkFreshMs,
+      }));
+
+  /// Bağlantı yoxdursa yalnız yadda qalan baud ilə bir cəhd; alınmasa false qaytarır və
+  /// reconnect arxa fonda davam edir ([onConnection]).
   Future<bool> isConnected() async =>
       await _ch.invokeMethod('isConnected') == true;
 
+  /// Bağlantı cache statistikası: {connected, port, baud, fresh, probes, probesSkipped, probeAvgMs,
+  /// connects, handshakes, reconnects, lastConnectMs, lastReconnectMs, reconnecting, ...}
+  Future<Map<String, dynamic>> getConnectionStats() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('getConnectionStats'));
+
+  /// Canlı inventory metrikləri: {rounds, roundErrors, reads, uniqueTags, readsPerSecond,
+  /// uniquePerSecond, roundsPerSecond, roundMs, cardNum, tidMs, postLagMs, queue, readerQueue, ...}.
+  /// Histogramlar: {count, mean, min, max, p50, p90, p99, bounds, counts}.
+  Future<Map<String, dynamic>> getMetrics() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('getMetrics'));
+
+  /// Cihazdakı jurnal sessiyaları (ən yenisi əvvəl): [{session, startedAt, bytes, open}]
+  Future<List<Map<String, dynamic>>> listJournalSessions() async =>
+      _mapList(await _ch.invokeMethod('listJournalSessions'));
+
+  /// Jurnaldan bir səhifə: {session, offset, nextOffset, eof, chunks: [Uint8List]}.
+  /// Hər chunk [decodePackedTags] ilə açılır; növbəti səhifə üçün offset=nextOffset.
+  Future<Map<String, dynamic>> readJournal(String session, {int offset = 0, int? maxBytes}) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('readJournal', {
+        'session': session,
+        'offset': offset,
+        if (maxBytes != null) 'maxBytes': maxBytes,
+      }));
+
+  /// Sessiyanı səhifə-səhifə oxuyub decode edir: hər element bir chunk-ın tag-ları
+  /// [{epc, rssi, ts, ant, tid?, mem?}]. Açıq sessiyada mövcud frame-lər bitəndə dayanır.
+  Stream<List<Map<String, dynamic>>> replayJournal(String session, {int? maxBytes}) async* {
+    var offset = 0;
+    while (true) {
+      final page = await readJournal(session, offset: offset, maxBytes: maxBytes);
+      final chunks = (page['chunks'] as List).cast<Uint8List>();
+      for (final c in chunks) {
+        yield decodePackedTags(c);
+      }
+      final next = (page['nextOffset'] as num).toInt();
+      if (page['eof'] == true || chunks.isEmpty || next == offset) break;
+      offset = next;
+    }
+  }
+
+  /// Bağlı sessiyanı silir (yazılan sessiya silinmir).
+  Future<bool> deleteJournal(String session) async =>
+      await _ch.invokeMethod('deleteJournal', {'session': session}) == true;
+
+  /// Gözlənilən EPC siyahısını native indeksə yükləyir (biri verilməlidir):
+  /// [epcs] — hex siyahı, [blob] — ardıcıl `u8 len | epc` record-ları,
+  /// [path] — cihazdakı fayl (mətn: sətir başına bir EPC / CSV-in ilk sütunu; [format]='binary'
+  /// və ya .bin — blob formatı). [mode]: 'mark' — tag-lara `expected: bool`,
+  /// 'drop' — naməlum tag-lar Dart-a göndərilmir, 'off'.
+  Future<Map<String, dynamic>> loadKnownTags({
+    List<String>? epcs,
+    Uint8List? blob,
+    String? path,
+    String? format,
+    bool bloom = true,
+    String mode = 'mark',
+  }) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('loadKnownTags', {
+        if (epcs != null) 'epcs': epcs,
+        if (blob != null) 'blob': blob,
+        if (path != null) 'path': path,
+        if (format != null) 'format': format,
+        'bloom': bloom,
+        'mode': mode,
+      }));
+
+  /// 'off' | 'mark' | 'drop'
+  Future<String> setKnownTagMode(String mode) async =>
+      await _ch.invokeMethod('setKnownTagMode', {'mode': mode}) as String;
+
+  Future<bool> clearKnownTags() async => await _ch.invokeMethod('clearKnownTags') == true;
+
+  /// {loaded, mode, size, duplicates, seen, missing, expectedReads, unexpectedReads, bloom, bytes}
+  Future<Map<String, dynamic>> getKnownTagStats() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('getKnownTagStats'));
+
+  /// Hələ oxunmamış gözlənilən EPC-lər (səhifə ilə): {total, epcs}
+  Future<Map<String, dynamic>> getMissingKnownTags({int offset = 0, int limit = 1000}) async =>
+      Map<String, dynamic>.from(
+          await _ch.invokeMethod('getMissingKnownTags', {'offset': offset, 'limit': limit}));
+
+  /// Yeni sayım üçün "seen" işarələrini və sayğacları sıfırlayır (indeks qalır).
+  Future<bool> resetKnownTagsSeen() async => await _ch.invokeMethod('resetKnownTagsSeen') == true;
+
+  /// 0 — log yoxdur, 1 — hər Inventory_G2 round-u Log.d ilə
+  Future<bool> setDebugLevel(int level) async =>
+      await _ch.invokeMethod('setDebugLevel', {'level': level}) == true;
+
   Future<bool> disconnect() async =>
       await _ch.invokeMethod('disconnect') == true;
 
-  Future<Map<String, dynamic>> setPower(int power) async =>
-      Map<String, dynamic>.from(await _ch.invokeMethod('setPower', {'power': power}));
+  /// [timeoutMs] — reader məşğuldursa bu müddətdən sonra PlatformException(TIMEOUT).
+  /// Round-lar arasında tətbiq olunur; eyni güc təkrar yazılmır, inventory işləyərkən
+  /// Q/Session-a toxunulmur (data.powerWritten / data.paramsWritten).
+  Future<Map<String, dynamic>> setPower(int power, {int? timeoutMs}) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('setPower', {
+        'power': power,
+        if (timeoutMs != null) 'timeoutMs': timeoutMs,
+      }));
 
+  /// [mem]: 0 | 1 | 2 | 3 və ya 'reserved' | 'epc' | 'tid' | 'user' (default EPC bankı).
   Future<Map<String, dynamic>> readSingleTag({
+    Object mem = 1,
     int wordPtr = 2,
     int len = 6,
     String password = '00000000',
     String? epc,
+    int? timeoutMs,
   }) async {
     final args = {
+      'mem': mem,
       'wordPtr': wordPtr,
       'len': len,
       'password': password,
       if (epc != null && epc.isNotEmpty) 'epc': epc,
+      if (timeoutMs != null) 'timeoutMs': timeoutMs,
     };
     return Map<String, dynamic>.from(await _ch.invokeMethod('readSingleTag', args));
   }
 
+  /// Bir native çağırışda çoxlu bank oxusu. [requests] — hər biri öz hədəfi ilə:
+  /// {epc | tid | mask, mem, wordPtr, len, password?}; [epcs] × [banks] — hər EPC üçün hər bank
+  /// ({mem, wordPtr, len, password?}, məs. TID + user sensor datası).
+  /// Cavab: {ok, failed, elapsedMs, results: [{index, target, mem, wordPtr, len, success, code, hex?}]}
+  Future<Map<String, dynamic>> readBanks({
+    List<Map<String, dynamic>>? requests,
+    List<String>? epcs,
+    List<Map<String, dynamic>>? banks,
+    String password = '00000000',
+    int retries = 1,
+    int? timeoutMs,
+  }) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('readBanks', {
+        if (requests != null) 'requests': requests,
+        if (epcs != null) 'epcs': epcs,
+        if (banks != null) 'banks': banks,
+        'password': password,
+        'retries': retries,
+        if (timeoutMs != null) 'timeoutMs': timeoutMs,
+      }));
+
+  /// Güc kalibrasiyası: [from]..[to] ([step]) hər səviyyədə [burstRounds] round; nəticə
+  /// [targetCoverage] əhatəyə çatan ən aşağı güc (suggestedPower). Məxrəc: [expectedCount],
+  /// [knownTags] — loadKnownTags siyahısı (kənar tag-lar unexpected sayılır), yoxdursa görülən
+  /// maksimum. [apply] — tövsiyə yazılır, əks halda əvvəlki güc bərpa olunur.
+  /// Future yekunu gözləyir; səviyyə nəticələri [onPowerCalibration]-da da gəlir.
+  Future<Map<String, dynamic>> calibratePower({
+    int from = 5,
+    int to = 30,
+    int step = 5,
+    int burstRounds = 5,
+    int? scanTime,
+    double targetCoverage = 0.98,
+    int expectedCount = 0,
+    bool knownTags = false,
+    bool apply = false,
+  }) async {
+    // yekun event cavabdan tez gələ bilər — dinləmə çağırışdan əvvəl başlayır
+    final done = Completer<Map<String, dynamic>>();
+    final sub = onPowerCalibration.listen((e) {
+      if (e['finished'] == true && !done.isCompleted) done.complete(e);
+    });
+    try {
+      final started = Map<String, dynamic>.from(await _ch.invokeMethod('calibratePower', {
+        'from': from,
+        'to': to,
+        'step': step,
+        'burstRounds': burstRounds,
+        'scanTime': scanTime,
+        'targetCoverage': targetCoverage,
+        'expectedCount': expectedCount,
+        'knownTags': knownTags,
+        'apply': apply,
+      }));
+      if (started['success'] != true) return started;
+      return await done.future;
+    } finally {
+      await sub.cancel();
+    }
+  }
+
+  /// Cari səviyyə bitəndən sonra dayanır; yekunda cancelled: true.
+  Future<bool> cancelCalibration() async => await _ch.invokeMethod('cancelCalibration') == true;
+
+  /// [band]: 'EU' | 'US' ('FCC') | 'KR' | 'CN1' | 'CN2' və ya SDK kodu; kanallar band-a sıxılır.
+  /// [band] verilməsə [site]-ın yadda qalan regionu yazılır. [save] — [site] üçün saxla.
+  Future<Map<String, dynamic>> setRegion({
+    Object? band,
+    int minChannel = 0,
+    int? maxChannel,
+    String? site,
+    bool save = false,
+  }) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('setRegion', {
+        if (band != null) 'band': band,
+        'minChannel': minChannel,
+        if (maxChannel != null) 'maxChannel': maxChannel,
+        if (site != null) 'site': site,
+        'save': save,
+      }));
+
+  /// {region?, site, cached?} — region: bu bağlantıda yazılan (yoxdursa modulun öz dəyəri).
+  Future<Map<String, dynamic>> getRegion() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('getRegion'));
+
+  /// Kanal survey-i: [band]-ın [minChannel]..[maxChannel] aralığı [window] kanallıq pəncərələrlə,
+  /// hər birində [roundsPerWindow] round. Bal = unikal tag × uğurlu round payı; tövsiyə (best) —
+  /// balı ≥ [goodRatio] × maksimum olan pəncərələrin ən uzun bitişik aralığı (SetRegion yalnız
+  /// min..max qəbul edir). [apply] — best yazılır və [site] üçün saxlanılır, növbəti connect-də
+  /// survey-siz tətbiq olunur. Future yekunu gözləyir; pəncərələr [onChannelSurvey]-da da gəlir.
+  Future<Map<String, dynamic>> surveyChannels({
+    Object band = 'EU',
+    int? minChannel,
+    int? maxChannel,
+    int window = 1,
+    int roundsPerWindow = 4,
+    int? scanTime,
+    double goodRatio = 0.7,
+    String? site,
+    bool apply = true,
+  }) async {
+    final done = Completer<Map<String, dynamic>>();
+    final sub = onChannelSurvey.listen((e) {
+      if (e['finished'] == true && !done.isCompleted) done.complete(e);
+    });
+    try {
+      final started = Map<String, dynamic>.from(await _ch.invokeMethod('surveyChannels', {
+        'band': band,
+        if (minChannel != null) 'minChannel': minChannel,
+        if (maxChannel != null) 'maxChannel': maxChannel,
+        'window': window,
+        'roundsPerWindow': roundsPerWindow,
+        'scanTime': scanTime,
+        'goodRatio': goodRatio,
+        if (site != null) 'site': site,
+        'apply': apply,
+      }));
+      if (started['success'] != true) return started;
+      return await done.future;
+    } finally {
+      await sub.cancel();
+    }
+  }
+
+  /// Cari pəncərə bitəndən sonra dayanır; əvvəlki region bərpa olunur, yekunda cancelled: true.
+  Future<bool> cancelSurvey() async => await _ch.invokeMethod('cancelSurvey') == true;
+
+  /// Toplu yazı / lock: işlər native reader thread-də ardıcıl icra olunur, nəticələr
+  /// [onWriteProgress] ilə gəlir (cavab dərhal: {batch, total}). Hər iş:
+  /// {op: 'write'|'writeEpc'|'lock', hədəf: epc | tid | mask (+maskMem, maskBitPtr, maskBitLen),
+  ///  mem=3, wordPtr=0, data (hex, tam sözlər), password='00000000', select/protect (lock), verify}.
+  /// 'writeEpc' — data yeni EPC-dir, PC uzunluğu ilə birlikdə yazılır.
+  /// Tag xətaları [retries] dəfə təkrarlanır (kilidli yaddaş / overrun — yox).
+  Future<Map<String, dynamic>> startBulkWrite(
+    List<Map<String, dynamic>> jobs, {
+    int retries = 2,
+    bool verify = false,
+    int progressEvery = 32,
+  }) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('startBulkWrite', {
+        'jobs': jobs,
+        'retries': retries,
+        'verify': verify,
+        'progressEvery': progressEvery,
+      }));
+
+  /// Cari iş bitəndən sonra dayanır; yekun event-də cancelled: true.
+  Future<bool> cancelBulkWrite() async => await _ch.invokeMethod('cancelBulkWrite') == true;
+
+  /// Tək tag axtarışı: [epc] maskası ilə Q=0 round-lar fasiləsiz təkrarlanır, RSSI native
+  /// tərəfdə hamarlanır ([filter]: 'kalman' | 'ema' + [alpha]) və [onLocate] ilə [uiHz]
+  /// tezliyində gəlir. [rssiMin]..[rssiMax] → proximity 0..1. Inventory işləyirsə xəta.
+  Future<Map<String, dynamic>> startLocate(
+    String epc, {
+    int scanTime = 1,
+    int uiHz = 30,
+    String filter = 'kalman',
+    double? alpha,
+    int? rssiMin,
+    int? rssiMax,
+    int? antenna,
+  }) async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('startLocate', {
+        'epc': epc,
+        'scanTime': scanTime,
+        'uiHz': uiHz,
+        'filter': filter,
+        'alpha': alpha,
+        'rssiMin': rssiMin,
+        'rssiMax': rssiMax,
+        'antenna': antenna,
+      }));
+
+  Future<Map<String, dynamic>> stopLocate() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('stopLocate'));
+
+  /// [masksHex] — hər biri EPC@0x20 maskası; [masks] — {hex, mem, bitPtr, bitLen, weight}.
+  /// Bir neçə maska verilərsə round-lar hamısı üzrə növbələnir ([maskStrategy]: 'cycle' bərabər,
+  /// 'weighted' — hələ yeni tag tapan prefikslərə daha çox round).
+  /// Native tərəfdə tag-lar [queueCapacity] ölçülü növbədən keçir; Dart gecikəndə
+  /// [overflowPolicy]: 'dropOldest' | 'dropDuplicate' | 'coalesce' | 'block'.
+  /// [journal] — bütün oxular cihazda sessiya faylına yazılır (cavabda journalSession);
+  /// UI/engine çöksə də sonra [replayJournal] ilə oxunur.
+  /// [targetMode]: 'A' | 'B' | 'dual' — dual-da Inventory_G2 Target A↔B çevrilir: hər
+  /// [toggleRounds] round-dan bir (0 — yox) və ya [toggleEmptyRounds] round yeni tag tapmayanda.
+  /// Böyük populyasiyada oxunan tag-lar susur, zəif tag-lar növbə alır; session verilməyibsə S2.
+  /// [motion] — EPC başına son [motionWindow] (vaxt, RSSI) nöqtəsindən trend/pik hesablanır,
+  /// [onMotion] ilə yalnız keçidlər gəlir (xam oxular lazım deyilsə [dedup] ilə birlikdə).
+  /// [filter] — native oxu filtri, rədd olunan oxu kanaldan keçmir: {rssiMin, epcPrefixes (hex,
+  /// nibble dəqiqliyi), epcBits (məs. [96]), minReads + readWindowMs (N oxu T ms ərzində),
+  /// tidEpcPrefixes (includeTid yalnız bunlar üçün)}. Səhv qayda — success: false; statistika
+  /// stopInventory cavabında ('filter').
   Future<Map<String, dynamic>> startInventory({
     int? scanTime,
     int? qValue,
@@ -44,21 +502,96 @@ class ChafonH906Rfid {
     bool includeTid = false,
     int tidWordPtr = 2,
     int tidLen = 6,
+    int? tidPerRound,
+    String? tidPassword,
     String? epcFilter,
     List<String>? masksHex,
+    List<Map<String, dynamic>>? masks,
+    String maskStrategy = 'weighted',
+    int? batchSize,
+    int? batchIntervalMs,
+    bool dedup = false,
+    int? dedupTtlMs,
+    int? dedupCapacity,
+    int? summaryIntervalMs,
+    bool adaptiveQ = false,
+    int? minQ,
+    int? maxQ,
+    String dutyMode = 'continuous',
+    int? dutyOnMs,
+    int? dutyOffMs,
+    int? debugLevel,
+    String encoding = 'map',
+    int? queueCapacity,
+    String overflowPolicy = 'dropOldest',
+    int? metricsIntervalMs,
+    bool journal = false,
+    String targetMode = 'A',
+    int? toggleRounds,
+    int? toggleEmptyRounds,
+    bool motion = false,
+    int? motionWindow,
+    int? motionDepartMs,
+    int? motionStaticMs,
+    double? motionTrend,
+    int? motionCapacity,
+    Map<String, dynamic>? filter,
   }) async =>
       Map<String, dynamic>.from(await _ch.invokeMethod('startInventory', {
-        'scanTime': 50,
-        'qValue': 4,
-        'session': 0,
+        // verilməyibsə əvvəlki default-lar; adaptiveQ-da scanTime native tərəfdə seçilir
+        'scanTime': scanTime ?? (adaptiveQ ? null : 50),
+        'qValue': qValue ?? 4,
+        'session': session ?? (targetMode == 'dual' ? 2 : 0),
         'antenna': antenna,
         'includeTid': includeTid,
         'tidWordPtr': tidWordPtr,
         'tidLen': tidLen,
+        'tidPerRound': tidPerRound,
+        'tidPassword': tidPassword,
         'epcFilter': epcFilter,
         'masksHex': masksHex,
+        'masks': masks,
+        'maskStrategy': maskStrategy,
+        'batchSize': batchSize,
+        'batchIntervalMs': batchIntervalMs,
+        'dedup': dedup,
+        'dedupTtlMs': dedupTtlMs,
+        'dedupCapacity': dedupCapacity,
+        'summaryIntervalMs': summaryIntervalMs,
+        'adaptiveQ': adaptiveQ,
+        'minQ': minQ,
+        'maxQ': maxQ,
+        'dutyMode': dutyMode,
+        'dutyOnMs': dutyOnMs,
+        'dutyOffMs': dutyOffMs,
+        'debugLevel': debugLevel,
+        'encoding': encoding,
+        'queueCapacity': queueCapacity,
+        'overflowPolicy': overflowPolicy,
+        'metricsIntervalMs': metricsIntervalMs,
+        'journal': journal,
+        'targetMode': targetMode,
+        'toggleRounds': toggleRounds,
+        'toggleEmptyRounds': toggleEmptyRounds,
+        'motion': motion,
+        'motionWindow': motionWindow,
+        'motionDepartMs': motionDepartMs,
+        'motionStaticMs': motionStaticMs,
+        'motionTrend': motionTrend,
+        'motionCapacity': motionCapacity,
+        if (filter != null) 'filter': filter,
       }));
 
+  /// Loop cari round bitəndən sonra dayanır; dedup/TID/metrik vəziyyəti və parametrlər
+  /// qalır — [resumeInventory] yenidən başlatma xərci olmadan davam edir.
+  Future<Map<String, dynamic>> pauseInventory() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('pauseInventory'));
+
+  /// Pauzadakı sessiyanı davam etdirir (parametrlər dəyişməyibsə SetReadParameter yazılmır).
+  Future<Map<String, dynamic>> resumeInventory() async =>
+      Map<String, dynamic>.from(await _ch.invokeMethod('resumeInventory'));
+
+  /// Cavabda və [onSessionSummary]-də sessiyanın yekunu (session).
   Future<Map<String, dynamic>> stopInventory() async =>
       Map<String, dynamic>.from(await _ch.invokeMethod('stopInventory'));
 }
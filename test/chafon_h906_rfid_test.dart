@@ -1,3 +1,5 @@
+import 'dart:typed_data';
+
 import 'package:flutter_test/flutter_test.dart';
 import 'package:chafon_h906_rfid/chafon_h906_rfid.dart';
 import 'package:chafon_h906_rfid/chafon_h906_rfid_platform_interface.dart';
@@ -26,4 +28,24 @@ void main() {
 
     //expect(await chafonH906RfidPlugin.getPlatformVersion(), '42');
   });
+
+  test('decodePackedTags', () {
+    final b = BytesBuilder();
+    b.add([0xC7, 1, 0, 3]); // magic, version, count=3
+    b.add((ByteData(8)..setInt64(0, 1700000000000)).buffer.asUint8List());
+    // #1: EPC E280, rssi -60, dt=5, ant=1, TID 0A0B
+    b.add([2, 0xE2, 0x80]);
+    b.add((ByteData(2)..setInt16(0, -60)).buffer.asUint8List());
+    b.add([0, 0, 0, 5, 1, 1, 2, 0x0A, 0x0B]);
+    // #2: EPC 30, rssi 200, dt=0, ant=0, flags=0
+    b.add([1, 0x30, 0, 200, 0, 0, 0, 0, 0, 0]);
+    // #3: EPC 31, known-tag yoxlanıb + gözlənilən (flags=4|8)
+    b.add([1, 0x31, 0, 50, 0, 0, 0, 0, 0, 12]);
+
+    final tags = ChafonH906Rfid.decodePackedTags(b.toBytes());
+    expect(tags.length, 3);
+    expect(tags[0], {'epc': 'E280', 'rssi': -60, 'ts': 1700000000005, 'ant': 1, 'tid': '0A0B'});
+    expect(tags[1], {'epc': '30', 'rssi': 200, 'ts': 1700000000000, 'ant': 0});
+    expect(tags[2]['expected'], true);
+  });
 }